@@ -0,0 +1,96 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.archive.ArchiveCatalog;
+import com.alistairj.frlgang.player.archive.ArchivePlayer;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.ThumbnailDetails;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoLiveStreamingDetails;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Videos and players that look like the real thing, built without the YouTube API. Made up
+ * video ids and archives come from {@link ShowFixtures}.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class BenchmarkFixtures {
+
+  private BenchmarkFixtures() {
+    // private constructor
+  }
+
+  /**
+   * Build an archive player that plays from the given videos.
+   *
+   * <p>
+   * The videos are saved as the archive catalog in a temporary file so the player starts from
+   * them. The player is never started, so it never asks YouTube for the archive and plays exactly
+   * these videos.
+   * </p>
+   *
+   * @param videos What to put in the queue
+   * @return a playing archive player
+   * @throws IOException Thrown if the catalog cannot be written
+   */
+  public static ArchivePlayer archivePlayer(List<ArchivedVideo> videos) throws IOException {
+    Path catalog = Files.createTempFile("efferalgang-benchmark", ".catalog");
+    catalog.toFile().deleteOnExit();
+    ArchiveCatalog.write(catalog, videos);
+
+    System.setProperty("archive.catalog.path", catalog.toString());
+    try {
+      ArchivePlayer ap = new ArchivePlayer(false);
+      ap.play();
+      return ap;
+    } finally {
+      System.clearProperty("archive.catalog.path");
+    }
+  }
+
+  /**
+   * A live stream that started a while ago and has not ended.
+   */
+  public static Video liveStream(String id, long nowMillis) {
+    return video(id, "P0D", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(nowMillis - TimeUnit.MINUTES.toMillis(30)))
+        .setActualStartTime(new DateTime(nowMillis - TimeUnit.MINUTES.toMillis(28))));
+  }
+
+  /**
+   * A live stream that has ended.
+   */
+  public static Video endedLiveStream(String id, long nowMillis) {
+    return video(id, "PT1H2M3S", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(nowMillis - TimeUnit.HOURS.toMillis(3)))
+        .setActualStartTime(new DateTime(nowMillis - TimeUnit.HOURS.toMillis(3)))
+        .setActualEndTime(new DateTime(nowMillis - TimeUnit.HOURS.toMillis(2))));
+  }
+
+  /**
+   * A premiere that is playing right now.
+   */
+  public static Video playingPremiere(String id, long nowMillis) {
+    return video(id, "PT1H30M", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(nowMillis - TimeUnit.MINUTES.toMillis(20))));
+  }
+
+  /**
+   * A live stream or premiere scheduled some time from now.
+   */
+  public static Video upcoming(String id, long nowMillis, long inMinutes) {
+    return video(id, "P0D", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(nowMillis + TimeUnit.MINUTES.toMillis(inMinutes))));
+  }
+
+  private static Video video(String id, String duration, VideoLiveStreamingDetails details) {
+    Video v = ShowFixtures.video(id, duration, details);
+    v.getSnippet().setThumbnails(new ThumbnailDetails().setStandard(ShowFixtures.thumbnail(id)));
+    return v;
+  }
+}
@@ -0,0 +1,39 @@
+package com.alistairj.frlgang;
+
+import java.nio.file.Paths;
+
+/**
+ * Runs a {@link Replay} from the command line.
+ *
+ * <p>
+ * Run with gradle replay, or gradle replay -PreplayArgs=&lt;script file&gt;,&lt;mean latency in
+ * ms&gt;.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ReplayHarness {
+
+  private static final long DEFAULT_MEAN_LATENCY_MILLIS = 40;
+
+  private ReplayHarness() {
+    // private constructor
+  }
+
+  /**
+   * Run the replay and print the report.
+   *
+   * @param args Optional script file, then optional mean API latency in milliseconds
+   */
+  public static void main(String[] args) throws Exception {
+    ReplayScript script = args.length > 0 && args[0].isEmpty() == false
+        ? ReplayScript.read(Paths.get(args[0])) : ReplayScript.readDefault();
+    long meanLatencyMillis = args.length > 1 ? Long.parseLong(args[1])
+        : DEFAULT_MEAN_LATENCY_MILLIS;
+
+    new Replay(script, meanLatencyMillis).run(System.out);
+
+    // the players keep their threads going
+    System.exit(0);
+  }
+}
@@ -0,0 +1,53 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.BenchmarkFixtures;
+import com.alistairj.frlgang.ShowFixtures;
+import com.alistairj.frlgang.player.archive.ArchivePlayer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What it costs to serve a page of /queue as the archive grows. Only a short look-ahead of the
+ * catalog is queued, so it should not depend on the catalog size.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchivePlayerSerializerBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int catalogSize;
+
+  private ArchivePlayer ap;
+
+  private ObjectWriter writer;
+
+  @Setup
+  public void setUp() throws IOException {
+    ap = BenchmarkFixtures.archivePlayer(ShowFixtures.archivedVideos(catalogSize, 42));
+    writer = new ObjectMapper().writer();
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return writer.writeValueAsBytes(ap);
+  }
+}
@@ -0,0 +1,83 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.BenchmarkFixtures;
+import com.alistairj.frlgang.ShowFixtures;
+import com.google.api.services.youtube.model.Video;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The checks that run on every broadcast status poll, and what it costs to build the shows they
+ * run on.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LiveShowBenchmark {
+
+  /**
+   * What a broadcast status poll typically gets back: a live stream, a premiere that is playing,
+   * one that has ended and a few upcoming shows.
+   */
+  private List<Video> polled;
+
+  private List<LiveShow> shows;
+
+  private long now;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    now = System.currentTimeMillis();
+
+    polled = new ArrayList<>();
+    polled.add(BenchmarkFixtures.liveStream(ShowFixtures.videoId(random), now));
+    polled.add(BenchmarkFixtures.playingPremiere(ShowFixtures.videoId(random), now));
+    polled.add(BenchmarkFixtures.endedLiveStream(ShowFixtures.videoId(random), now));
+    for (int i = 0; i < 5; i++) {
+      polled.add(BenchmarkFixtures.upcoming(ShowFixtures.videoId(random), now, 60L * i));
+    }
+
+    shows = new ArrayList<>();
+    for (Video v : polled) {
+      shows.add(LiveShow.fromVideo(v));
+    }
+  }
+
+  @Benchmark
+  public void fromVideo(Blackhole bh) {
+    for (Video v : polled) {
+      bh.consume(LiveShow.fromVideo(v));
+    }
+  }
+
+  /**
+   * The classification done for every show on a broadcast status poll.
+   */
+  @Benchmark
+  public void classify(Blackhole bh) {
+    for (LiveShow show : shows) {
+      bh.consume(show.hasEnded(now));
+      bh.consume(show.isLive(now));
+      bh.consume(show.isPending(now));
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.BenchmarkFixtures;
+import com.alistairj.frlgang.ShowFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What it costs to answer /live, both by serializing the radio player from scratch and from the
+ * cached snapshot.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RadioPlayerSerializerBenchmark {
+
+  @Param({"0", "3", "10"})
+  public int upcomingCount;
+
+  @Param({"false", "true"})
+  public boolean isLive;
+
+  private RadioPlayer rp;
+
+  private ObjectWriter writer;
+
+  private LiveSnapshotCache liveSnapshotCache;
+
+  private ByteArrayOutputStream out;
+
+  /**
+   * Build a radio player with a full archive queue and the requested live videos.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    Random random = new Random(42);
+    long now = System.currentTimeMillis();
+
+    List<LiveShow> upcoming = new ArrayList<>();
+    for (int i = 0; i < upcomingCount; i++) {
+      upcoming.add(LiveShow.fromVideo(BenchmarkFixtures.upcoming(
+          ShowFixtures.videoId(random), now, 60L * 24 * (i + 1))));
+    }
+    LiveShow live = isLive ? LiveShow.fromVideo(
+        BenchmarkFixtures.liveStream(ShowFixtures.videoId(random), now)) : null;
+
+    rp = new RadioPlayer(
+        BenchmarkFixtures.archivePlayer(ShowFixtures.archivedVideos(200, 42)), live,
+        upcoming);
+    writer = new ObjectMapper().writer();
+    liveSnapshotCache = new LiveSnapshotCache();
+    out = new ByteArrayOutputStream(4096);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return writer.writeValueAsBytes(rp);
+  }
+
+  /**
+   * The /live path: read the playhead, then write the cached snapshot around it.
+   */
+  @Benchmark
+  public int liveSnapshot() throws IOException {
+    RadioPlayerState state = rp.getState();
+    long playhead = state.getArchive().getPlayheadInSeconds(System.nanoTime());
+    LiveSnapshot snapshot = liveSnapshotCache.get(state);
+    out.reset();
+    snapshot.writeTo(out, playhead);
+    return snapshot.getETag(playhead).length() + out.size();
+  }
+}
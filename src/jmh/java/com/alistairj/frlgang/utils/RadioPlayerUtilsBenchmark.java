@@ -0,0 +1,42 @@
+package com.alistairj.frlgang.utils;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the ids sent to /track.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RadioPlayerUtilsBenchmark {
+
+  @Param({
+      "qAvSXHxE_SM",
+      "http://youtu.be/dQw4w9WgXcQ",
+      "http://www.youtube.com/watch?v=dQw4w9WgXcQ&a=GxdCwVVULXctT2lYDEPllDR0LRTutYfW",
+      "http://www.youtube.com/watch?feature=player_embedded&v=dQw4w9WgXcQ",
+      "https://studio.youtube.com/video/WNMfvKiYtiw/livestreaming",
+      "https://www.youtube.com/channel/UC5Z2eMviso2vnK9iHnmJO8w"
+  })
+  public String urlOrId;
+
+  @Benchmark
+  public String parseVideoId() {
+    return RadioPlayerUtils.parseVideoId(urlOrId);
+  }
+}
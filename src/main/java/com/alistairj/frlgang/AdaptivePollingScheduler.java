@@ -0,0 +1,183 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.LivePlayer;
+import com.alistairj.frlgang.player.LiveShow;
+import com.alistairj.frlgang.player.RadioPlayer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+/**
+ * Works out when to next poll YouTube from what the radio player is doing and how much quota is
+ * left.
+ *
+ * <p>
+ * The broadcast status poll only runs often while a live stream is pending or on air, as that is
+ * the only time YouTube has to be asked what is going on. Premieres are left to the show timeline
+ * of the live player, and the first poll for an upcoming live stream lands as it becomes pending.
+ * The search for new upcoming and live shows runs every 15 minutes while the channel is active
+ * and hourly when it is idle. Outside of a show, polls are also spaced out so that each job stays
+ * within its share of what is left of today's quota, and no poll ever eats into the units kept
+ * back for /track.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class AdaptivePollingScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(AdaptivePollingScheduler.class);
+
+  /**
+   * Kept back for /track look ups and anything else done on demand.
+   */
+  static final long RESERVED_UNITS = 500;
+
+  private static final double BROADCAST_STATUS_SHARE = 0.4;
+
+  private static final double UPCOMING_AND_LIVE_SHARE = 0.6;
+
+  private static final Duration STATUS_POLL_PENDING = Duration.ofSeconds(15);
+
+  private static final Duration STATUS_POLL_LIVE = Duration.ofSeconds(30);
+
+  private static final Duration STATUS_POLL_IDLE = Duration.ofMinutes(5);
+
+  private static final Duration STATUS_POLL_MIN = Duration.ofSeconds(1);
+
+  private static final Duration SEARCH_POLL_ACTIVE = Duration.ofMinutes(15);
+
+  private static final Duration SEARCH_POLL_IDLE = Duration.ofHours(1);
+
+  /**
+   * What a search for upcoming and live shows costs until one has been measured.
+   */
+  private static final long DEFAULT_SEARCH_COST = 2 * QuotaLedger.SEARCH_COST + 10;
+
+  private final RadioPlayer rp;
+
+  private final QuotaLedger ledger;
+
+  private final Clock clock;
+
+  private volatile long lastSearchCost = DEFAULT_SEARCH_COST;
+
+  public AdaptivePollingScheduler(RadioPlayer rp, QuotaLedger ledger) {
+    this(rp, ledger, Clock.systemUTC());
+  }
+
+  AdaptivePollingScheduler(RadioPlayer rp, QuotaLedger ledger, Clock clock) {
+    this.rp = rp;
+    this.ledger = ledger;
+    this.clock = clock;
+  }
+
+  /**
+   * Trigger for the broadcast status poll of the relevant ids.
+   *
+   * @return trigger to register with Spring
+   */
+  public Trigger broadcastStatusTrigger() {
+    return context -> nextExecution(context, nextBroadcastStatusPoll());
+  }
+
+  /**
+   * Trigger for the search for upcoming and live shows.
+   *
+   * @return trigger to register with Spring
+   */
+  public Trigger upcomingAndLiveTrigger() {
+    return context -> nextExecution(context, nextUpcomingAndLivePoll());
+  }
+
+  /**
+   * Run the search for upcoming and live shows and remember what it cost.
+   *
+   * <p>
+   * Only what is charged on the calling thread counts, so archive refills, /track look ups and
+   * other polls running at the same time do not make the search look dearer. That is every search
+   * and playlist call. The videos.list calls are made on threads shared with everyone else asking
+   * about videos, and are counted as one list call.
+   * </p>
+   *
+   * @param search The search to run, on the calling thread
+   */
+  public void measureUpcomingAndLiveSearch(Runnable search) {
+    long before = ledger.getSpentOnThisThread();
+    search.run();
+    long cost = ledger.getSpentOnThisThread() - before + QuotaLedger.LIST_COST;
+    lastSearchCost = cost;
+    logger.info("Search for upcoming and live shows cost {} units, {} units left today", cost,
+        ledger.getRemainingUnits());
+  }
+
+  Duration nextBroadcastStatusPoll() {
+    LivePlayer lp = rp.getLivePlayer();
+    long now = clock.millis();
+
+    // premieres start and end on the show timeline, only live streams need YouTube to tell
+    if (lp.isLiveStreamPending(now)) {
+      return throttle(STATUS_POLL_PENDING, QuotaLedger.LIST_COST, BROADCAST_STATUS_SHARE, true);
+    } else if (lp.isLiveStreamOn()) {
+      return throttle(STATUS_POLL_LIVE, QuotaLedger.LIST_COST, BROADCAST_STATUS_SHARE, true);
+    }
+
+    // land the first poll of the next live stream right as it becomes pending
+    long pendingFrom = lp.getNextLiveStreamPendingMillis(now);
+    if (pendingFrom != LiveShow.NOT_SET) {
+      Duration untilPending = Duration.ofMillis(pendingFrom - now + 1);
+      if (untilPending.compareTo(STATUS_POLL_IDLE) < 0) {
+        if (untilPending.compareTo(STATUS_POLL_MIN) < 0) {
+          untilPending = STATUS_POLL_MIN;
+        }
+        return throttle(untilPending, QuotaLedger.LIST_COST, BROADCAST_STATUS_SHARE, true);
+      }
+    }
+
+    return throttle(STATUS_POLL_IDLE, QuotaLedger.LIST_COST, BROADCAST_STATUS_SHARE, false);
+  }
+
+  Duration nextUpcomingAndLivePoll() {
+    LivePlayer lp = rp.getLivePlayer();
+    boolean isActive = rp.getStatus() != BroadcastStatus.ARCHIVE
+        || lp.getUpcomingShows().isEmpty() == false;
+
+    Duration wanted = isActive ? SEARCH_POLL_ACTIVE : SEARCH_POLL_IDLE;
+
+    return throttle(wanted, lastSearchCost, UPCOMING_AND_LIVE_SHARE, false);
+  }
+
+  /**
+   * Stretch a wanted interval so the job does not spend more than its share of the remaining
+   * quota. During a show only the reserve is protected so that transitions are not missed.
+   */
+  private Duration throttle(Duration wanted, long cost, double share, boolean isShowOn) {
+    if (ledger.getRemainingUnits() - cost < RESERVED_UNITS) {
+      Duration untilReset = ledger.getTimeUntilReset();
+      logger.warn("Quota is nearly gone, not polling until the reset in {}", untilReset);
+      return untilReset.plusSeconds(1);
+    }
+
+    if (isShowOn) {
+      return wanted;
+    }
+
+    double unitsPerSecond = share * ledger.getSustainableUnitsPerSecond(RESERVED_UNITS);
+    if (unitsPerSecond <= 0) {
+      return ledger.getTimeUntilReset().plusSeconds(1);
+    }
+
+    Duration affordable = Duration.ofMillis((long) (cost * 1000 / unitsPerSecond));
+    return affordable.compareTo(wanted) > 0 ? affordable : wanted;
+  }
+
+  private Date nextExecution(TriggerContext context, Duration delay) {
+    Date last = context.lastCompletionTime();
+    long from = last == null ? clock.millis() : last.getTime();
+    return new Date(from + delay.toMillis());
+  }
+}
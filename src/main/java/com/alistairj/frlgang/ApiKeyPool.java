@@ -0,0 +1,236 @@
+package com.alistairj.frlgang;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.youtube.YouTubeRequest;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The YouTube Data API keys to call YouTube with, each with a quota of its own.
+ *
+ * <p>
+ * Every call is made with whichever key has the most quota left today, and charged to it. When
+ * YouTube answers that a key's quota is exceeded, the key is retired until the daily reset and
+ * the call is made again with the next key, so more keys means more polling.
+ * </p>
+ *
+ * <p>
+ * The pool's ledger holds the quota of every key together, and is what the polling is paced by.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+final class ApiKeyPool {
+
+  private static final Logger logger = LoggerFactory.getLogger(ApiKeyPool.class);
+
+  /**
+   * Separates the keys when several are given.
+   */
+  static final String KEY_SEPARATOR = ";";
+
+  private final List<ApiKey> keys;
+
+  private final QuotaLedger quotaLedger;
+
+  /**
+   * A key and the quota it has spent.
+   */
+  static final class ApiKey {
+
+    private final int index;
+
+    private final String key;
+
+    private final QuotaLedger quotaLedger;
+
+    private ApiKey(int index, String key, QuotaLedger quotaLedger) {
+      this.index = index;
+      this.key = key;
+      this.quotaLedger = quotaLedger;
+    }
+
+    int getIndex() {
+      return index;
+    }
+
+    String getKey() {
+      return key;
+    }
+
+    QuotaLedger getQuotaLedger() {
+      return quotaLedger;
+    }
+  }
+
+  /**
+   * Build a new ApiKeyPool.
+   *
+   * @param keys             The keys, at least one
+   * @param dailyUnitsPerKey Quota each key has a day
+   * @param clock            Clock for the quota
+   */
+  ApiKeyPool(List<String> keys, long dailyUnitsPerKey, Clock clock) {
+    if (keys.isEmpty()) {
+      throw new IllegalArgumentException("No API keys");
+    }
+
+    List<ApiKey> apiKeys = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      apiKeys.add(new ApiKey(apiKeys.size(), key, new QuotaLedger(dailyUnitsPerKey, clock)));
+    }
+    this.keys = Collections.unmodifiableList(apiKeys);
+    this.quotaLedger = new QuotaLedger(dailyUnitsPerKey * keys.size(), clock);
+  }
+
+  /**
+   * Split the API_KEY argument into keys.
+   *
+   * @param keys One key, or several separated by semicolons
+   * @return the keys, without blanks
+   */
+  static List<String> parseKeys(String keys) {
+    List<String> parsed = new ArrayList<>();
+    for (String key : keys.split(KEY_SEPARATOR)) {
+      if (key.trim().isEmpty() == false) {
+        parsed.add(key.trim());
+      }
+    }
+    return parsed;
+  }
+
+  /**
+   * Run a request with the key with the most quota left, and charge it to that key. If that key's
+   * quota is exceeded it is retired, and the request is run again with the next key until none
+   * are left. Calls turned down for quota are not charged.
+   *
+   * @param request The request to run
+   * @param cost    Quota cost of the request
+   * @return the response
+   * @throws IOException Thrown if there is an issue with the YouTube API, or every key's quota is
+   *                     exceeded
+   */
+  <T> T execute(YouTubeRequest<T> request, long cost) throws IOException {
+    List<ApiKey> tried = new ArrayList<>(keys.size());
+
+    while (true) {
+      ApiKey key = choose(tried);
+
+      try {
+        T response = request.setKey(key.getKey()).execute();
+        charge(key, cost);
+        return response;
+      } catch (GoogleJsonResponseException e) {
+        if (isQuotaExceeded(e) == false) {
+          // YouTube charges for calls it turns down for other reasons
+          charge(key, cost);
+          throw e;
+        }
+
+        // turned down for quota, which costs nothing
+        retire(key);
+        tried.add(key);
+        if (tried.size() == keys.size()) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Pick the key with the most quota left today, the first one if several have the same.
+   *
+   * @param tried Keys not to pick
+   * @return the key
+   */
+  ApiKey choose(List<ApiKey> tried) {
+    ApiKey best = null;
+    long bestRemaining = -1;
+    for (ApiKey key : keys) {
+      if (tried.contains(key)) {
+        continue;
+      }
+
+      long remaining = key.getQuotaLedger().getRemainingUnits();
+      if (remaining > bestRemaining) {
+        best = key;
+        bestRemaining = remaining;
+      }
+    }
+    return best;
+  }
+
+  private void charge(ApiKey key, long units) {
+    key.getQuotaLedger().charge(units);
+    quotaLedger.charge(units);
+  }
+
+  /**
+   * Give up what is left of a key's quota until the reset, here and in the pool's ledger.
+   *
+   * @param key The key YouTube says is out of quota
+   */
+  void retire(ApiKey key) {
+    QuotaLedger ledger = key.getQuotaLedger();
+    long remaining = ledger.getRemainingUnits();
+    ledger.forfeit(remaining);
+    quotaLedger.forfeit(remaining);
+
+    logger.warn("Quota exceeded for API key {} of {}, retiring it until the reset in {}",
+        key.getIndex() + 1, keys.size(), ledger.getTimeUntilReset());
+  }
+
+  /**
+   * Does YouTube say the quota of the key the request was made with is used up.
+   *
+   * @param e What YouTube answered
+   * @return true for a 403 whose reason is quotaExceeded or dailyLimitExceeded
+   */
+  static boolean isQuotaExceeded(GoogleJsonResponseException e) {
+    if (e.getStatusCode() != 403 || e.getDetails() == null || e.getDetails().getErrors() == null) {
+      return false;
+    }
+
+    for (GoogleJsonError.ErrorInfo error : e.getDetails().getErrors()) {
+      if ("quotaExceeded".equals(error.getReason())
+          || "dailyLimitExceeded".equals(error.getReason())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Count the keys that have quota left today.
+   *
+   * @return keys not used up or retired
+   */
+  int getAvailableCount() {
+    int available = 0;
+    for (ApiKey key : keys) {
+      if (key.getQuotaLedger().getRemainingUnits() > 0) {
+        available++;
+      }
+    }
+    return available;
+  }
+
+  List<ApiKey> getKeys() {
+    return keys;
+  }
+
+  /**
+   * Get the ledger holding the quota of every key together.
+   *
+   * @return the pool's ledger
+   */
+  QuotaLedger getQuotaLedger() {
+    return quotaLedger;
+  }
+}
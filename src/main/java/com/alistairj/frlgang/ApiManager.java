@@ -5,15 +5,24 @@ import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.youtube.YouTube;
-import com.google.api.services.youtube.YouTubeRequestInitializer;
+import com.google.api.services.youtube.YouTubeRequest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.time.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Rotates API keys.
  *
+ * <p>
+ * Every call to YouTube goes through {@link #execute(YouTubeRequest, long)}, which makes it with
+ * the key from the {@link ApiKeyPool} with the most quota left.
+ * </p>
+ *
  * @author Alistair Jones (alistair@ohalo.co)
  */
 public class ApiManager {
@@ -34,7 +43,84 @@ public class ApiManager {
 
   private static String uploadPlaylistId;
 
-  private static int currentIndex = 0;
+  /**
+   * Where the YouTube Data API is, or null for Google's.
+   */
+  private static String rootUrl = null;
+
+  private static Clock clock = Clock.systemUTC();
+
+  /**
+   * The keys as given, to tell whether the pool has to be built again.
+   */
+  private static String apiKeys;
+
+  private static ApiKeyPool apiKeyPool;
+
+  /**
+   * The pool's ledger once there are keys, a ledger for one key until then.
+   */
+  private static QuotaLedger quotaLedger = new QuotaLedger(QuotaLedger.DEFAULT_DAILY_UNITS);
+
+  static {
+    FunctionCounter.builder("youtube.quota.spent", ApiManager.class,
+        c -> quotaLedger.getTotalSpent())
+        .description("YouTube Data API quota units spent")
+        .baseUnit("units")
+        .register(Metrics.globalRegistry);
+    Gauge.builder("youtube.quota.remaining", ApiManager.class,
+        c -> quotaLedger.getRemainingUnits())
+        .description("YouTube Data API quota units left until the daily reset")
+        .baseUnit("units")
+        .register(Metrics.globalRegistry);
+    Gauge.builder("youtube.api.keys.available", ApiManager.class,
+        c -> apiKeyPool == null ? 0 : apiKeyPool.getAvailableCount())
+        .description("YouTube Data API keys with quota left today")
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Talk to a stand-in for the YouTube Data API instead of Google, and keep time on the given
+   * clock, for replays.
+   *
+   * <p>
+   * MUST BE CALLED BEFORE {@link #initialize(String, String)}.
+   * </p>
+   *
+   * @param rootUrl Root URL of the stand-in, ending with a slash. The channel feed is read from
+   *                it too.
+   * @param clock   Clock for the quota and for how often the YouTube service looks for shows
+   */
+  static void useStandIn(String rootUrl, Clock clock) {
+    ApiManager.rootUrl = rootUrl;
+    ApiManager.clock = clock;
+    ApiManager.apiKeys = null;
+    ApiManager.apiKeyPool = null;
+    ApiManager.quotaLedger = new QuotaLedger(QuotaLedger.DEFAULT_DAILY_UNITS, clock);
+  }
+
+  /**
+   * Set the API keys to call YouTube with, each with the default daily quota. Nothing changes if
+   * they are the same keys as before.
+   *
+   * <p>
+   * Call before {@link #getQuotaLedger()} so the ledger holds the quota of every key.
+   * </p>
+   *
+   * @param keys One key, or several separated by semicolons
+   */
+  public static synchronized void useApiKeys(String keys) {
+    if (keys.equals(apiKeys)) {
+      return;
+    }
+
+    apiKeyPool = new ApiKeyPool(ApiKeyPool.parseKeys(keys), QuotaLedger.DEFAULT_DAILY_UNITS,
+        clock);
+    apiKeys = keys;
+    quotaLedger = apiKeyPool.getQuotaLedger();
+    logger.info("Using {} API key(s), {} quota units a day", apiKeyPool.getKeys().size(),
+        quotaLedger.getDailyUnits());
+  }
 
   /**
    * Initializes API Manager.
@@ -43,7 +129,7 @@ public class ApiManager {
    * MUST BE CALLED FIRST.
    * </p>
    *
-   * @param key API key for the YouTube key
+   * @param key API key for the YouTube key, or several separated by semicolons
    */
   public static void initialize(String key, String channelId, String archivePlaylistId)
       throws GeneralSecurityException, IOException {
@@ -64,7 +150,7 @@ public class ApiManager {
   /**
    * Initializes API Manager.
    *
-   * @param key API key for the YouTube key
+   * @param key API key for the YouTube key, or several separated by semicolons
    * @see #initialize(String, String, String)
    */
   public static void initialize(String key, String channelId)
@@ -74,14 +160,19 @@ public class ApiManager {
       throw new IllegalArgumentException();
     }
 
-    logger.debug("Initializing API service with key '{}' and channelId '{}'", key, channelId);
+    logger.debug("Initializing API service with channelId '{}'", channelId);
+
+    useApiKeys(key);
 
     final NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
 
-    youTubeAPI = new YouTube.Builder(httpTransport, JSON_FACTORY, null)
-        .setApplicationName(APPLICATION_NAME)
-        .setYouTubeRequestInitializer(new YouTubeRequestInitializer(key))
-        .build();
+    // the key is set on each request by the pool
+    YouTube.Builder builder = new YouTube.Builder(httpTransport, JSON_FACTORY, null)
+        .setApplicationName(APPLICATION_NAME);
+    if (rootUrl != null) {
+      builder.setRootUrl(rootUrl);
+    }
+    youTubeAPI = builder.build();
 
     ApiManager.channelId = channelId;
 
@@ -99,6 +190,38 @@ public class ApiManager {
     return youTubeAPI;
   }
 
+  /**
+   * Make a call with one of the keys and charge it against that key's quota. Every YouTube API
+   * call must be made through here.
+   *
+   * @param request The request to run
+   * @param units   Cost of the call
+   * @return the response
+   * @throws IOException Thrown if there is an issue with the YouTube API, or the quota of every
+   *                     key is exceeded
+   */
+  public static <T> T execute(YouTubeRequest<T> request, long units) throws IOException {
+    return apiKeyPool.execute(request, units);
+  }
+
+  /**
+   * Get the URL of the channel feed.
+   *
+   * @return URL with a %s where the channel id goes
+   */
+  public static String getChannelFeedUrl() {
+    return rootUrl == null ? ChannelFeed.DEFAULT_FEED_URL
+        : rootUrl + "feeds/videos.xml?channel_id=%s";
+  }
+
+  public static Clock getClock() {
+    return clock;
+  }
+
+  public static QuotaLedger getQuotaLedger() {
+    return quotaLedger;
+  }
+
   public static String getChannelId() {
     return channelId;
   }
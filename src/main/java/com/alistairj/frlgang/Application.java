@@ -1,32 +1,23 @@
 package com.alistairj.frlgang;
 
-import static org.springframework.web.bind.annotation.RequestMethod.POST;
-
-import com.alistairj.frlgang.player.FoundVideo;
+import com.alistairj.frlgang.player.LiveSnapshotCache;
 import com.alistairj.frlgang.player.RadioPlayer;
-import com.alistairj.frlgang.player.archive.ArchivePlayer;
-import com.alistairj.frlgang.utils.RadioPlayerUtils;
+import com.alistairj.frlgang.replication.Replication;
 import java.io.IOException;
-import java.net.URLDecoder;
 import java.security.GeneralSecurityException;
-import java.util.List;
-import java.util.Random;
-import javax.servlet.http.HttpServletResponse;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.web.bind.annotation.CrossOrigin;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 @SuppressWarnings("checkstyle:LineLength")
 @SpringBootApplication
-@RestController
-public class Application {
+public class Application implements SchedulingConfigurer {
 
   private static Logger logger = LoggerFactory.getLogger(Application.class);
 
@@ -35,97 +26,193 @@ public class Application {
   private static final String ARG_PARAM_2 = "CHANNEL_ID=";
   private static final String ARG_PARAM_3 = "ARCHIVE_PLAYLIST_ID=";
 
-  private static String frontendUrl = "";
-
-  private static List<String> cachedShows = null;
-  private static Random random = new Random();
-
-  private static String cachedliveShow = null;
+  private static final long INITIALIZE_RETRY_MILLIS = 30000L;
 
   private static RadioPlayer radioPlayer;
 
-  private static String getRandomCachedShow() {
-    if (cachedShows != null && cachedShows.isEmpty() == false) {
-      int chosenIndex = random.nextInt(cachedShows.size() - 1);
-      return cachedShows.get(chosenIndex);
-    } else {
-      return "";
-    }
-  }
-
-  @CrossOrigin
-  @RequestMapping("/live")
-  public RadioPlayer getLiveShow(HttpServletResponse response) {
-    return radioPlayer;
-  }
+  private static LiveSnapshotCache liveSnapshotCache;
 
-  @CrossOrigin
-  @RequestMapping("/queue")
-  public ArchivePlayer getArchiveQueue(HttpServletResponse response) {
-    return radioPlayer.getArchivePlayer();
-  }
+  private static AdaptivePollingScheduler pollingScheduler;
 
-  @CrossOrigin
-  @RequestMapping(value = "/track", method = POST)
-  @ResponseBody
-  public FoundVideo trackVideo(@RequestParam("video_id") String videoIdOrUrl) throws IOException {
+  /**
+   * Null unless several instances are sharing the polling.
+   */
+  private static Replication replication;
 
-    logger.info("Encoded video_id_or_url:{}", videoIdOrUrl);
+  /**
+   * Set once the radio player has started. Polls do nothing until then, or while another instance
+   * leads.
+   */
+  private static volatile boolean isStarted = false;
 
-    String videoIdOrUrlDecoded = URLDecoder.decode(videoIdOrUrl, "UTF-8");
+  private static boolean isApiInitialized = false;
 
-    String videoId = RadioPlayerUtils.parseVideoId(videoIdOrUrlDecoded);
+  private static long lastInitializeAttemptNanos;
 
-    logger.info("Checking video_id:{}", videoId);
-    if (videoId.isEmpty()) {
-      throw new IOException("I don't even understand this show id");
-    }
+  /**
+   * The radio player, for whichever controller is serving it.
+   */
+  @Bean
+  public RadioPlayer radioPlayer() {
+    return radioPlayer;
+  }
 
-    FoundVideo fv = radioPlayer.getLivePlayer().checkVideoId(videoId);
+  @Bean
+  public LiveSnapshotCache liveSnapshotCache() {
+    return liveSnapshotCache;
+  }
 
-    return fv;
+  /**
+   * Both YouTube polls are timed by the {@link AdaptivePollingScheduler} rather than fixed crons,
+   * so they follow the show schedule and the quota left.
+   */
+  @Override
+  public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+    taskRegistrar.addTriggerTask(this::fetchUpcomingAndLiveShowIds,
+        pollingScheduler.upcomingAndLiveTrigger());
+    taskRegistrar.addTriggerTask(this::fetchBroadcastStatusOfRelevantIds,
+        pollingScheduler.broadcastStatusTrigger());
   }
 
   /**
-   * Timed to help with upcoming.
+   * Search for upcoming and live shows, unless another instance is doing it for this one.
    */
-  @Scheduled(cron = "0 59 * ? * *")
   public void fetchUpcomingAndLiveShowIds() {
-    radioPlayer.getLivePlayer().fetchUpcomingAndLiveShowIds();
+    if (isPolling()) {
+      pollingScheduler.measureUpcomingAndLiveSearch(
+          () -> radioPlayer.getLivePlayer().fetchUpcomingAndLiveShowIds());
+    }
   }
 
-  @Scheduled(cron = "15,45 * * ? * *")
+  /**
+   * Fetch the broadcast status of the known shows, unless another instance is doing it for this
+   * one.
+   */
   public void fetchBroadcastStatusOfRelevantIds() {
-    radioPlayer.getLivePlayer().fetchBroadcastStatusOfRelevantIds();
+    if (isPolling()) {
+      radioPlayer.getLivePlayer().fetchBroadcastStatusOfRelevantIds();
+    }
+  }
+
+  private static boolean isPolling() {
+    return isStarted && (replication == null || replication.isLeader());
   }
 
   /**
    * Run the application.
    *
+   * <p>
+   * The web tier starts straight away. The YouTube API is initialized and the radio player
+   * started on a thread of their own, and until the radio player is ready /ready says so and
+   * /live serves a placeholder.
+   * </p>
+   *
+   * <p>
+   * When several instances share the polling they all start out following. The YouTube API is
+   * only initialized by the one that takes the lock, so followers are ready as soon as the leader
+   * sends them the live shows, and an instance that cannot reach YouTube never holds up another
+   * from leading.
+   * </p>
+   *
    * @param args YouTube API key
    */
-  public static void main(String[] args) throws GeneralSecurityException, IOException {
+  public static void main(String[] args) {
 
+    // FRONTEND_HOST is still expected second, so existing command lines keep working
     validateCommandLineParameters(args);
 
-    frontendUrl = args[1].substring(ARG_PARAM_1.length());
-
     String youtubeApiKey = args[0].substring(ARG_PARAM_0.length());
     String youtubeChannelId = args[2].substring(ARG_PARAM_2.length());
+    String archivePlaylistId = args.length == 4 ? args[3].substring(ARG_PARAM_3.length()) : null;
 
-    if (args.length == 4) {
-      String archivePlaylistId = args[3].substring(ARG_PARAM_3.length());
-      ApiManager.initialize(youtubeApiKey, youtubeChannelId, archivePlaylistId);
-    } else {
-      ApiManager.initialize(youtubeApiKey, youtubeChannelId);
-    }
+    // the polling is paced by the quota of every key together
+    ApiManager.useApiKeys(youtubeApiKey);
+
+    // only one instance asks YouTube when several run side by side, and it follows until it leads
+    replication = Replication.fromSystemProperties();
+
+    // create the radio player, which plays from the saved archive catalog until it has started
+    radioPlayer = new RadioPlayer(Clock.systemUTC(), replication != null);
+    liveSnapshotCache = new LiveSnapshotCache();
+    pollingScheduler = new AdaptivePollingScheduler(radioPlayer, ApiManager.getQuotaLedger());
 
-    // create the radio player
-    radioPlayer = new RadioPlayer();
+    Thread starter = new Thread(() -> start(youtubeApiKey, youtubeChannelId, archivePlaylistId),
+        "radio-startup");
+    starter.setDaemon(true);
+    starter.start();
 
     SpringApplication.run(Application.class, args);
   }
 
+  /**
+   * Start the radio player. On its own the instance initializes the YouTube API first, trying
+   * again until it works. Alongside others it follows straight away, and initializes the API if it
+   * ever takes the lock.
+   */
+  private static void start(String youtubeApiKey, String youtubeChannelId,
+      String archivePlaylistId) {
+    long start = System.nanoTime();
+
+    while (replication == null
+        && initializeApi(youtubeApiKey, youtubeChannelId, archivePlaylistId) == false) {
+      try {
+        Thread.sleep(INITIALIZE_RETRY_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    try {
+      radioPlayer.start();
+      if (replication != null) {
+        replication.start(radioPlayer,
+            () -> initializeApi(youtubeApiKey, youtubeChannelId, archivePlaylistId));
+      }
+      isStarted = true;
+    } catch (RuntimeException e) {
+      logger.error("Unable to start the radio player", e);
+      return;
+    }
+
+    logger.info("Radio player started in {} ms, {}",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        radioPlayer.isReady() ? "ready" : "waiting for the leader");
+  }
+
+  /**
+   * Initialize the YouTube API unless it already is, at most once every
+   * {@link #INITIALIZE_RETRY_MILLIS} so a failing API is not asked on every election.
+   *
+   * @return true once the YouTube API is initialized
+   */
+  private static synchronized boolean initializeApi(String youtubeApiKey, String youtubeChannelId,
+      String archivePlaylistId) {
+    if (isApiInitialized) {
+      return true;
+    }
+
+    long now = System.nanoTime();
+    long sinceLastAttempt = TimeUnit.NANOSECONDS.toMillis(now - lastInitializeAttemptNanos);
+    if (lastInitializeAttemptNanos != 0 && sinceLastAttempt < INITIALIZE_RETRY_MILLIS) {
+      return false;
+    }
+    lastInitializeAttemptNanos = now;
+
+    try {
+      if (archivePlaylistId != null) {
+        ApiManager.initialize(youtubeApiKey, youtubeChannelId, archivePlaylistId);
+      } else {
+        ApiManager.initialize(youtubeApiKey, youtubeChannelId);
+      }
+      isApiInitialized = true;
+    } catch (GeneralSecurityException | IOException e) {
+      logger.error("Unable to initialize the YouTube API, trying again in {} seconds",
+          TimeUnit.MILLISECONDS.toSeconds(INITIALIZE_RETRY_MILLIS), e);
+    }
+    return isApiInitialized;
+  }
+
   private static void validateCommandLineParameters(String[] args) {
     for (String s : args) {
       logger.info("Command line args are: {}", s);
@@ -149,7 +236,7 @@ public class Application {
       logger.info("Configuration is correct");
     } else {
       logger.error("Run with"
-          + "API_KEY=<YOUR_YOUTUBE_API_KEY>,"
+          + "API_KEY=<YOUR_YOUTUBE_API_KEY[;ANOTHER_KEY...]>,"
           + "FRONTEND_HOST=<URL OF FRONTEND>,"
           + "CHANNEL_ID=<YOUR_CHANNEL_ID>,"
           + "ARCHIVE_PLAYLIST_ID=<YOUR_CHANNEL_ID>'");
@@ -0,0 +1,108 @@
+package com.alistairj.frlgang;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the public Atom feed of a channel's latest videos.
+ *
+ * <p>
+ * The feed is not part of the YouTube Data API so it costs no quota. It only holds the newest
+ * uploads (live streams and premieres included), which is all that is needed to spot new shows.
+ * It is parsed as a stream and only the video ids are kept.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ChannelFeed {
+
+  public static final String DEFAULT_FEED_URL =
+      "https://www.youtube.com/feeds/videos.xml?channel_id=%s";
+
+  private static final String YT_NAMESPACE = "http://www.youtube.com/xml/schemas/2015";
+
+  private static final int TIMEOUT_MILLIS = 10000;
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+  static {
+    XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
+  private final String feedUrl;
+
+  /**
+   * Build a new ChannelFeed.
+   *
+   * @param feedUrl URL of the feed with a %s where the channel id goes
+   */
+  public ChannelFeed(String feedUrl) {
+    this.feedUrl = feedUrl;
+  }
+
+  /**
+   * Fetch the ids of the newest videos of a channel.
+   *
+   * @param channelId Channel to read the feed of
+   * @return video ids, newest first
+   * @throws IOException Thrown if the feed cannot be fetched or read
+   */
+  public List<String> fetchVideoIds(String channelId) throws IOException {
+    URL url = new URL(String.format(feedUrl, channelId));
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+
+    try {
+      int status = connection.getResponseCode();
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new IOException("Channel feed returned " + status + " for " + url);
+      }
+
+      try (InputStream in = connection.getInputStream()) {
+        return parseVideoIds(in);
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Pull the yt:videoId of every entry out of a feed.
+   *
+   * @param in The feed
+   * @return video ids in feed order
+   * @throws IOException Thrown if the feed is not valid XML
+   */
+  static List<String> parseVideoIds(InputStream in) throws IOException {
+    List<String> videoIds = new ArrayList<>();
+
+    try {
+      XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == XMLStreamConstants.START_ELEMENT
+              && "videoId".equals(reader.getLocalName())
+              && YT_NAMESPACE.equals(reader.getNamespaceURI())) {
+            videoIds.add(reader.getElementText().trim());
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Unable to read channel feed", e);
+    }
+
+    return videoIds;
+  }
+}
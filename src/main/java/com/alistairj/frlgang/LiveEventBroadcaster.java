@@ -0,0 +1,345 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.RadioPlayerListener;
+import com.alistairj.frlgang.player.RadioPlayerState;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes radio player changes to every listener connected to /live/stream.
+ *
+ * <p>
+ * Connections are async servlet requests, so an idle listener holds a socket and nothing else.
+ * Every event is built once and queued for each listener on the thread that reports the change.
+ * Each listener's queue is written out by a writer thread of its own while it has anything to
+ * write, so a slow listener only ever holds up itself. A listener that has more than
+ * {@value #MAX_PENDING_EVENTS} events waiting, or whose write has not finished within
+ * {@value #WRITE_TIMEOUT_MILLIS}ms when the next heartbeat is due, is dropped, and its browser
+ * reconnects.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LiveEventBroadcaster implements RadioPlayerListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(LiveEventBroadcaster.class);
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * Browsers reconnect on their own once a stream times out.
+   */
+  private static final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+  private static final long RECONNECT_MILLIS = 3000L;
+
+  static final int MAX_PENDING_EVENTS = 32;
+
+  static final long WRITE_TIMEOUT_MILLIS = 10000L;
+
+  private final RadioPlayer rp;
+
+  private final Set<Listener> listeners = ConcurrentHashMap.newKeySet();
+
+  private final ExecutorService writers = Executors.newCachedThreadPool(r -> {
+    Thread t = new Thread(r, "live-event-writer");
+    t.setDaemon(true);
+    return t;
+  });
+
+  /**
+   * Build a new LiveEventBroadcaster and start listening to the radio player.
+   *
+   * @param rp The radio player to report on
+   */
+  public LiveEventBroadcaster(RadioPlayer rp) {
+    this.rp = rp;
+    rp.addListener(this);
+
+    Gauge.builder("radio.stream.listeners", this, LiveEventBroadcaster::getListenerCount)
+        .description("Listeners connected to /live/stream")
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Open a new stream. The current status and track are sent first.
+   *
+   * @return the emitter to hand back to Spring
+   */
+  public SseEmitter subscribe() {
+    SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+    subscribe(emitter);
+    return emitter;
+  }
+
+  /**
+   * Add a stream to the listeners.
+   *
+   * <p>
+   * The current state is read and the stream joins the others under the lock that changes are
+   * broadcast under, so no change is missed between reading the current state and joining, and
+   * every event reaches it in order. A change made just as it joins can arrive twice, in the state
+   * sent first and again as an event.
+   * </p>
+   *
+   * @param emitter The stream to send events to
+   */
+  void subscribe(SseEmitter emitter) {
+    Listener listener = new Listener(emitter);
+
+    emitter.onCompletion(() -> listeners.remove(listener));
+    emitter.onTimeout(() -> listeners.remove(listener));
+    emitter.onError(e -> listeners.remove(listener));
+
+    synchronized (this) {
+      RadioPlayerState state = rp.getState();
+      listener.offer(new BuiltEvent(SseEmitter.event()
+          .reconnectTime(RECONNECT_MILLIS)
+          .name("status")
+          .data(statusJson(state.getStatus()), MediaType.APPLICATION_JSON)));
+      listener.offer(new BuiltEvent(SseEmitter.event()
+          .name("track")
+          .data(trackJson(state.getArchive().getCurrentVideo()), MediaType.APPLICATION_JSON)));
+      listeners.add(listener);
+    }
+
+    logger.debug("Listener subscribed to live stream, count:{}", listeners.size());
+  }
+
+  public int getListenerCount() {
+    return listeners.size();
+  }
+
+  @Override
+  public void onStatusChanged(BroadcastStatus status) {
+    broadcast("status", statusJson(status));
+  }
+
+  @Override
+  public void onTrackChanged(ArchivedVideo video) {
+    broadcast("track", trackJson(video));
+  }
+
+  /**
+   * Send a comment to every stream so that idle connections are not dropped by proxies, and so
+   * that connections to listeners that have gone away are noticed. Listeners whose last write is
+   * still going after {@value #WRITE_TIMEOUT_MILLIS}ms are dropped.
+   */
+  public void sendHeartbeat() {
+    long nowNanos = System.nanoTime();
+    BuiltEvent heartbeat = new BuiltEvent(SseEmitter.event().comment("heartbeat"));
+    for (Listener listener : listeners) {
+      if (listener.isWriteTimedOut(nowNanos)) {
+        listener.drop(new IOException("Write to listener timed out"));
+      } else {
+        listener.offer(heartbeat);
+      }
+    }
+  }
+
+  private synchronized void broadcast(String name, String json) {
+    logger.debug("Broadcasting {} event to {} listeners", name, listeners.size());
+    BuiltEvent event =
+        new BuiltEvent(SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON));
+    for (Listener listener : listeners) {
+      listener.offer(event);
+    }
+  }
+
+  /**
+   * An event that has been built once and can be sent to any number of emitters.
+   */
+  private static final class BuiltEvent implements SseEmitter.SseEventBuilder {
+
+    private final Set<DataWithMediaType> data;
+
+    BuiltEvent(SseEmitter.SseEventBuilder builder) {
+      this.data = Collections.unmodifiableSet(builder.build());
+    }
+
+    @Override
+    public Set<DataWithMediaType> build() {
+      return data;
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder id(String id) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder name(String eventName) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder reconnectTime(long reconnectTimeMillis) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder comment(String comment) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder data(Object object) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SseEmitter.SseEventBuilder data(Object object, MediaType mediaType) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * A connected stream and the events waiting to be written to it.
+   */
+  private final class Listener {
+
+    private final SseEmitter emitter;
+
+    private final Queue<BuiltEvent> pending = new ArrayDeque<>();
+
+    private boolean isWriting = false;
+
+    private Exception failure = null;
+
+    /**
+     * When the write in progress started, or zero between writes.
+     */
+    private volatile long writeStartedAtNanos = 0;
+
+    Listener(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    synchronized void offer(BuiltEvent event) {
+      if (failure != null) {
+        return;
+      }
+      if (pending.size() == MAX_PENDING_EVENTS) {
+        drop(new IOException("Listener fell " + MAX_PENDING_EVENTS + " events behind"));
+        return;
+      }
+      pending.add(event);
+      if (isWriting == false) {
+        isWriting = true;
+        writers.execute(this::write);
+      }
+    }
+
+    boolean isWriteTimedOut(long nowNanos) {
+      long startedAtNanos = writeStartedAtNanos;
+      return startedAtNanos != 0
+          && nowNanos - startedAtNanos > TimeUnit.MILLISECONDS.toNanos(WRITE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Stop sending to the listener and end its stream. The emitter is held for the whole of a
+     * write, so a stream that is being written to is ended by its writer once the write returns.
+     */
+    void drop(Exception e) {
+      listeners.remove(this);
+      synchronized (this) {
+        if (failure != null) {
+          return;
+        }
+        failure = e;
+        pending.clear();
+        if (isWriting) {
+          return;
+        }
+      }
+      logger.debug("Dropping live stream listener: {}", e.getMessage());
+      emitter.completeWithError(e);
+    }
+
+    private void write() {
+      while (true) {
+        BuiltEvent event;
+        synchronized (this) {
+          event = pending.poll();
+          if (event == null) {
+            isWriting = false;
+            if (failure == null) {
+              return;
+            }
+          }
+        }
+        if (event == null) {
+          // dropped while writing
+          emitter.completeWithError(failure);
+          return;
+        }
+
+        writeStartedAtNanos = System.nanoTime();
+        try {
+          emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+          listeners.remove(this);
+          synchronized (this) {
+            isWriting = false;
+            failure = e;
+            pending.clear();
+          }
+          emitter.completeWithError(e);
+          return;
+        } finally {
+          writeStartedAtNanos = 0;
+        }
+      }
+    }
+  }
+
+  static String statusJson(BroadcastStatus status) {
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator g = JSON_FACTORY.createGenerator(sw)) {
+      g.writeStartObject();
+      g.writeStringField("status", status.toString());
+      g.writeEndObject();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return sw.toString();
+  }
+
+  static String trackJson(ArchivedVideo video) {
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator g = JSON_FACTORY.createGenerator(sw)) {
+      if (video == null) {
+        g.writeNull();
+      } else {
+        g.writeStartObject();
+        g.writeStringField("id", video.getId());
+        g.writeStringField("title", video.getTitle());
+        g.writeNumberField("duration_in_seconds", video.getDurationInSeconds());
+        g.writeEndObject();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return sw.toString();
+  }
+}
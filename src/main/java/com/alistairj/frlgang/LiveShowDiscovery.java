@@ -0,0 +1,123 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.YouTubeService.VideoDetailsFetcher;
+import com.google.api.services.youtube.model.Video;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds live and upcoming shows of the channel.
+ *
+ * <p>
+ * New videos are spotted in the channel's Atom feed, which costs no quota, and only the ones not
+ * seen in the feed before are looked up (1 unit for up to 50). A video is a show if it has live
+ * streaming details and has not ended, which covers live streams, upcoming live streams and
+ * premieres. The search API (200 units) is only used as a fallback: on the first run, once a day,
+ * and whenever the feed cannot be read.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LiveShowDiscovery {
+
+  private static final Logger logger = LoggerFactory.getLogger(LiveShowDiscovery.class);
+
+  private static final Duration SEARCH_FALLBACK_INTERVAL = Duration.ofDays(1);
+
+  private static final int MAX_IDS_PER_CALL = 50;
+
+  /**
+   * Searches the API for live and upcoming shows.
+   */
+  @FunctionalInterface
+  interface ShowSearch {
+    Set<String> search() throws IOException;
+  }
+
+  private final ChannelFeed feed;
+
+  private final VideoDetailsFetcher fetcher;
+
+  private final ShowSearch search;
+
+  private final Clock clock;
+
+  private Set<String> seenFeedIds = new HashSet<>();
+
+  private Instant lastSearch = null;
+
+  LiveShowDiscovery(ChannelFeed feed, VideoDetailsFetcher fetcher, ShowSearch search,
+      Clock clock) {
+    this.feed = feed;
+    this.fetcher = fetcher;
+    this.search = search;
+    this.clock = clock;
+  }
+
+  /**
+   * Find live and upcoming shows that have appeared since the last time.
+   *
+   * @param channelId Channel to look at
+   * @return ids of new live and upcoming shows, plus everything the search found if it ran
+   * @throws IOException Thrown if neither the feed nor the search could be read
+   */
+  public synchronized Set<String> discover(String channelId) throws IOException {
+    Set<String> showIds = new HashSet<>();
+
+    boolean isSearchDue = lastSearch == null
+        || Duration.between(lastSearch, clock.instant()).compareTo(SEARCH_FALLBACK_INTERVAL) >= 0;
+
+    try {
+      showIds.addAll(discoverInFeed(channelId));
+    } catch (IOException e) {
+      logger.warn("Unable to read the channel feed, falling back to search", e);
+      isSearchDue = true;
+    }
+
+    if (isSearchDue) {
+      showIds.addAll(search.search());
+      lastSearch = clock.instant();
+    }
+
+    return showIds;
+  }
+
+  private Set<String> discoverInFeed(String channelId) throws IOException {
+    List<String> feedIds = feed.fetchVideoIds(channelId);
+
+    List<String> newIds = new ArrayList<>();
+    for (String id : feedIds) {
+      if (seenFeedIds.contains(id) == false) {
+        newIds.add(id);
+      }
+    }
+
+    Set<String> showIds = new HashSet<>();
+    for (int i = 0; i < newIds.size(); i += MAX_IDS_PER_CALL) {
+      List<String> batch = newIds.subList(i, Math.min(newIds.size(), i + MAX_IDS_PER_CALL));
+      for (Video v : fetcher.fetch(batch)) {
+        if (v.getLiveStreamingDetails() != null
+            && v.getLiveStreamingDetails().getActualEndTime() == null) {
+          logger.debug("Found show in channel feed: {}", v.getSnippet().getTitle());
+          showIds.add(v.getId());
+        }
+      }
+    }
+
+    // the feed only holds the newest videos, so there is no point remembering more than that
+    seenFeedIds = new HashSet<>(feedIds);
+
+    logger.info("Read {} videos from the channel feed, {} new, {} shows", feedIds.size(),
+        newIds.size(), showIds.size());
+
+    return showIds;
+  }
+}
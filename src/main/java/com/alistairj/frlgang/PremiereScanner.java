@@ -0,0 +1,147 @@
+package com.alistairj.frlgang;
+
+import static com.alistairj.frlgang.utils.RadioPlayerUtils.getDateTime;
+
+import com.alistairj.frlgang.YouTubeService.PlaylistPageConsumer;
+import com.alistairj.frlgang.YouTubeService.VideoDetailsFetcher;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.Video;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds upcoming premieres in the channel's uploads playlist without looking at every upload
+ * every time.
+ *
+ * <p>
+ * The uploads playlist lists the newest uploads first. The scanner remembers every upload it has
+ * already classified and stops paging at the first page that holds one of them. Details are only
+ * fetched for uploads it has never seen and for premieres that were still upcoming last time, so
+ * a scan costs a couple of units however big the channel gets. A premiere is scheduled when it is
+ * uploaded, so an upload that was not upcoming when it was first seen never becomes one later.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class PremiereScanner {
+
+  private static final Logger logger = LoggerFactory.getLogger(PremiereScanner.class);
+
+  private static final int MAX_IDS_PER_CALL = 50;
+
+  /**
+   * Pages through the uploads playlist.
+   */
+  @FunctionalInterface
+  interface UploadsPager {
+    int page(PlaylistPageConsumer consumer) throws IOException;
+  }
+
+  private final UploadsPager pager;
+
+  private final VideoDetailsFetcher fetcher;
+
+  private final Clock clock;
+
+  private final Set<String> classifiedIds = new HashSet<>();
+
+  private final Set<String> pendingPremiereIds = new LinkedHashSet<>();
+
+  PremiereScanner() {
+    this(consumer -> YouTubeService.pagePlaylist(ApiManager.getUploadPlaylistId(), consumer),
+        YouTubeService::getUpcomingShowDetails, ApiManager.getClock());
+  }
+
+  PremiereScanner(UploadsPager pager, VideoDetailsFetcher fetcher, Clock clock) {
+    this.pager = pager;
+    this.fetcher = fetcher;
+    this.clock = clock;
+  }
+
+  /**
+   * Look for new upcoming premieres.
+   *
+   * @return ids of every premiere that is scheduled in the future
+   * @throws IOException Thrown if there is an issue with the YouTube API
+   */
+  public synchronized List<String> scan() throws IOException {
+    Instant now = clock.instant();
+
+    List<String> newIds = new ArrayList<>();
+
+    int pageCount = pager.page(videoIds -> {
+      boolean isKnownTerritory = false;
+      for (String id : videoIds) {
+        if (classifiedIds.contains(id)) {
+          isKnownTerritory = true;
+        } else {
+          newIds.add(id);
+        }
+      }
+      return isKnownTerritory == false;
+    });
+
+    // new uploads first, then the premieres that have not started yet
+    Set<String> toCheck = new LinkedHashSet<>(newIds);
+    toCheck.addAll(pendingPremiereIds);
+
+    logger.info("Scanned {} pages of uploads, checking {} new and {} pending videos", pageCount,
+        newIds.size(), pendingPremiereIds.size());
+
+    ZonedDateTime zonedNow = ZonedDateTime.ofInstant(now, clock.getZone());
+
+    List<String> batch = new ArrayList<>();
+    for (String id : toCheck) {
+      batch.add(id);
+      if (batch.size() == MAX_IDS_PER_CALL) {
+        classify(batch, zonedNow);
+        batch = new ArrayList<>();
+      }
+    }
+    if (batch.isEmpty() == false) {
+      classify(batch, zonedNow);
+    }
+
+    // only remember uploads once their details have been looked at
+    classifiedIds.addAll(newIds);
+
+    return new ArrayList<>(pendingPremiereIds);
+  }
+
+  private void classify(List<String> batch, ZonedDateTime now) throws IOException {
+    // if the fetch fails the pending premieres are kept and checked again next scan
+    List<Video> found = fetcher.fetch(batch);
+
+    Set<String> upcomingIds = new HashSet<>();
+    for (Video v : found) {
+      if (v.getLiveStreamingDetails() == null) {
+        continue;
+      }
+
+      DateTime dt = v.getLiveStreamingDetails().getScheduledStartTime();
+
+      if (dt != null && now.isBefore(getDateTime(dt))) {
+        logger.debug("FOUND UPCOMING PREMIERE VIDEO: {} ", v.getSnippet().getTitle());
+        upcomingIds.add(v.getId());
+      }
+    }
+
+    // anything that is not returned any more has been deleted or made private
+    for (String id : batch) {
+      if (upcomingIds.contains(id)) {
+        pendingPremiereIds.add(id);
+      } else {
+        pendingPremiereIds.remove(id);
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.alistairj.frlgang;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Keeps count of the YouTube Data API quota spent today.
+ *
+ * <p>
+ * The bucket holds the daily quota and is topped back up in one go when the quota resets at
+ * midnight Pacific Time, which is when YouTube resets it. Every call is charged what the API
+ * charges for it (search = 100, any list call = 1).
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class QuotaLedger {
+
+  public static final long DEFAULT_DAILY_UNITS = 10000;
+
+  public static final int SEARCH_COST = 100;
+
+  public static final int LIST_COST = 1;
+
+  private static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+  private final long dailyUnits;
+
+  private final Clock clock;
+
+  private long spentToday = 0;
+
+  /**
+   * Units that will not be there today although they were not spent here, see
+   * {@link #forfeit(long)}.
+   */
+  private long forfeitedToday = 0;
+
+  private long totalSpent = 0;
+
+  /**
+   * Units charged by each thread, so one job can tell what it cost while others are running.
+   */
+  private final ThreadLocal<long[]> spentOnThread = ThreadLocal.withInitial(() -> new long[1]);
+
+  private Instant resetAt;
+
+  public QuotaLedger(long dailyUnits) {
+    this(dailyUnits, Clock.systemUTC());
+  }
+
+  QuotaLedger(long dailyUnits, Clock clock) {
+    this.dailyUnits = dailyUnits;
+    this.clock = clock;
+    this.resetAt = nextReset();
+  }
+
+  private Instant nextReset() {
+    return LocalDate.now(clock.withZone(QUOTA_ZONE)).plusDays(1).atStartOfDay(QUOTA_ZONE)
+        .toInstant();
+  }
+
+  private void rollOverIfReset() {
+    if (clock.instant().isBefore(resetAt) == false) {
+      spentToday = 0;
+      forfeitedToday = 0;
+      resetAt = nextReset();
+    }
+  }
+
+  /**
+   * Charge units against today's quota.
+   *
+   * @param units Cost of the call about to be made
+   */
+  public synchronized void charge(long units) {
+    rollOverIfReset();
+    spentToday += units;
+    totalSpent += units;
+    spentOnThread.get()[0] += units;
+  }
+
+  /**
+   * Give up units of today's quota without spending them, as when YouTube says a key has run out
+   * before this ledger thinks it has. They are back after the reset.
+   *
+   * @param units Units to give up
+   */
+  public synchronized void forfeit(long units) {
+    rollOverIfReset();
+    forfeitedToday += units;
+  }
+
+  public long getDailyUnits() {
+    return dailyUnits;
+  }
+
+  public synchronized long getSpentToday() {
+    rollOverIfReset();
+    return spentToday;
+  }
+
+  /**
+   * Get everything spent since this ledger was created, across resets. Useful for measuring what
+   * one job costs by looking before and after it.
+   *
+   * @return units spent in total
+   */
+  public synchronized long getTotalSpent() {
+    return totalSpent;
+  }
+
+  /**
+   * Get everything the calling thread has been charged since this ledger was created. Look
+   * before and after a job to tell what it cost, leaving out whatever other threads spent.
+   *
+   * @return units charged on this thread
+   */
+  public long getSpentOnThisThread() {
+    return spentOnThread.get()[0];
+  }
+
+  public synchronized long getRemainingUnits() {
+    rollOverIfReset();
+    return Math.max(0, dailyUnits - spentToday - forfeitedToday);
+  }
+
+  public synchronized Duration getTimeUntilReset() {
+    rollOverIfReset();
+    return Duration.between(clock.instant(), resetAt);
+  }
+
+  /**
+   * How fast the remaining quota can be spent so that it lasts until the reset.
+   *
+   * @param reservedUnits Units to keep back
+   * @return units per second
+   */
+  public synchronized double getSustainableUnitsPerSecond(long reservedUnits) {
+    rollOverIfReset();
+    long available = Math.max(0, dailyUnits - spentToday - forfeitedToday - reservedUnits);
+    double seconds = Math.max(1, Duration.between(clock.instant(), resetAt).getSeconds());
+    return available / seconds;
+  }
+}
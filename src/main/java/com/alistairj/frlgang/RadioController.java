@@ -0,0 +1,188 @@
+package com.alistairj.frlgang;
+
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+
+import com.alistairj.frlgang.player.FoundVideo;
+import com.alistairj.frlgang.player.LiveSnapshot;
+import com.alistairj.frlgang.player.LiveSnapshotCache;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.RadioPlayerState;
+import com.alistairj.frlgang.player.archive.ArchiveQueuePage;
+import com.alistairj.frlgang.utils.RadioPlayerUtils;
+import java.io.IOException;
+import java.net.URLDecoder;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * The radio endpoints when served by Spring MVC on Tomcat, which is the default.
+ *
+ * <p>
+ * See {@link ReactiveRadioController} for the same endpoints on WebFlux.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class RadioController {
+
+  private static final Logger logger = LoggerFactory.getLogger(RadioController.class);
+
+  private static final String READY = "{\"ready\":true}";
+
+  private static final String NOT_READY = "{\"ready\":false}";
+
+  private final RadioPlayer radioPlayer;
+
+  private final LiveSnapshotCache liveSnapshotCache;
+
+  private final LiveEventBroadcaster liveEventBroadcaster;
+
+  /**
+   * Build a new RadioController.
+   *
+   * @param radioPlayer       The radio player to serve
+   * @param liveSnapshotCache Cache of the encoded /live response
+   */
+  public RadioController(RadioPlayer radioPlayer, LiveSnapshotCache liveSnapshotCache) {
+    this.radioPlayer = radioPlayer;
+    this.liveSnapshotCache = liveSnapshotCache;
+    this.liveEventBroadcaster = new LiveEventBroadcaster(radioPlayer);
+  }
+
+  /**
+   * Serve the pre-encoded radio player status.
+   *
+   * <p>
+   * Only the playhead is written per request, and clients sending back the ETag they already
+   * have get a 304. Until the radio player is ready the status is STARTING and nothing is
+   * playing.
+   * </p>
+   */
+  @CrossOrigin
+  @RequestMapping("/live")
+  public void getLiveShow(
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+      HttpServletResponse response) throws IOException {
+
+    LiveSnapshot snapshot = LiveSnapshot.STARTING;
+    long playhead = 0;
+    if (radioPlayer.isReady()) {
+      // the playhead and the snapshot have to come from the same state
+      RadioPlayerState state = radioPlayer.getState();
+      playhead = state.getArchive().getPlayheadInSeconds(System.nanoTime());
+      snapshot = liveSnapshotCache.get(state);
+    }
+    String etag = snapshot.getETag(playhead);
+
+    response.setHeader("ETag", etag);
+    response.setHeader("Cache-Control", "no-cache");
+
+    if (LiveSnapshot.isNotModified(ifNoneMatch, etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    response.setContentType("application/json");
+    response.setContentLength(snapshot.getContentLength(playhead));
+    snapshot.writeTo(response.getOutputStream(), playhead);
+  }
+
+  /**
+   * Say whether the radio player is ready to be listened to: 200 once it is, 503 while it is
+   * still starting.
+   */
+  @RequestMapping("/ready")
+  public ResponseEntity<String> getReadiness() {
+    return getReadiness(radioPlayer);
+  }
+
+  /**
+   * Push a "status" event when the radio player switches between archive, upcoming and live, and
+   * a "track" event when the archive player moves to the next video.
+   */
+  @CrossOrigin
+  @RequestMapping("/live/stream")
+  public SseEmitter streamLiveShow() {
+    return liveEventBroadcaster.subscribe();
+  }
+
+  /**
+   * Serve a page of the archive queue.
+   *
+   * <p>
+   * Pages hold at most 500 videos. Pass the next_cursor of a page back as cursor to get the one
+   * after it.
+   * </p>
+   */
+  @CrossOrigin
+  @RequestMapping("/queue")
+  public ArchiveQueuePage getArchiveQueue(
+      @RequestParam(value = "limit", defaultValue = ArchiveQueuePage.DEFAULT_LIMIT_PARAM) int limit,
+      @RequestParam(value = "cursor", required = false) Long cursor) {
+
+    return getQueuePage(radioPlayer, limit, cursor);
+  }
+
+  @CrossOrigin
+  @RequestMapping(value = "/track", method = POST)
+  @ResponseBody
+  public FoundVideo trackVideo(@RequestParam("video_id") String videoIdOrUrl) throws IOException {
+    return radioPlayer.getLivePlayer().checkVideoId(decodeVideoId(videoIdOrUrl));
+  }
+
+  @Scheduled(fixedRate = 20000)
+  public void sendLiveStreamHeartbeat() {
+    liveEventBroadcaster.sendHeartbeat();
+  }
+
+  static ResponseEntity<String> getReadiness(RadioPlayer radioPlayer) {
+    boolean isReady = radioPlayer.isReady();
+    return ResponseEntity.status(isReady ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(isReady ? READY : NOT_READY);
+  }
+
+  static ArchiveQueuePage getQueuePage(RadioPlayer radioPlayer, int limit, Long cursor) {
+    int boundedLimit = Math.max(1, Math.min(limit, ArchiveQueuePage.MAX_LIMIT));
+    return radioPlayer.getArchivePlayer().getState()
+        .getQueuePage(cursor == null ? ArchiveQueuePage.NO_CURSOR : cursor, boundedLimit);
+  }
+
+  /**
+   * Get the video id out of the video_id parameter of /track.
+   *
+   * @param videoIdOrUrl URL encoded video id or YouTube URL
+   * @return the video id
+   * @throws IOException Thrown if there is no video id in it
+   */
+  static String decodeVideoId(String videoIdOrUrl) throws IOException {
+    logger.info("Encoded video_id_or_url:{}", videoIdOrUrl);
+
+    String videoIdOrUrlDecoded = URLDecoder.decode(videoIdOrUrl, "UTF-8");
+
+    String videoId = RadioPlayerUtils.parseVideoId(videoIdOrUrlDecoded);
+
+    logger.info("Checking video_id:{}", videoId);
+    if (videoId.isEmpty()) {
+      throw new IOException("I don't even understand this show id");
+    }
+
+    return videoId;
+  }
+}
@@ -0,0 +1,27 @@
+package com.alistairj.frlgang;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Used to serve on Netty when running reactive.
+ *
+ * <p>
+ * Tomcat is on the classpath for the default servlet mode, and Spring Boot would otherwise pick
+ * it for the reactive mode too.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveConfig {
+
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+}
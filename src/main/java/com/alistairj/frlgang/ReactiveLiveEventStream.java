@@ -0,0 +1,120 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.RadioPlayerListener;
+import com.alistairj.frlgang.player.RadioPlayerState;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Pushes radio player changes to every listener connected to /live/stream, when served by
+ * WebFlux.
+ *
+ * <p>
+ * The reactive counterpart of {@link LiveEventBroadcaster}. Every event is encoded once and
+ * handed to a hot stream that all listeners share. Each listener takes events off it on a
+ * worker thread, so the radio player is never held up writing to sockets. A listener that falls
+ * too far behind has its stream ended, and its browser reconnects.
+ * </p>
+ *
+ * <p>
+ * A new listener is sent the current status and track and starts listening for changes while
+ * holding the same lock that changes are published under, so nothing that happens while it joins
+ * is lost or sent ahead of the current state.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ReactiveLiveEventStream implements RadioPlayerListener {
+
+  private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+
+  private static final Duration RECONNECT = Duration.ofSeconds(3);
+
+  private static final Duration HEARTBEAT = Duration.ofSeconds(20);
+
+  private static final int MAX_PENDING_EVENTS = 32;
+
+  private final RadioPlayer rp;
+
+  private final DirectProcessor<ServerSentEvent<String>> events = DirectProcessor.create();
+
+  private final FluxSink<ServerSentEvent<String>> sink = events.sink();
+
+  private final AtomicInteger listenerCount = new AtomicInteger();
+
+  /**
+   * Build a new ReactiveLiveEventStream and start listening to the radio player.
+   *
+   * @param rp The radio player to report on
+   */
+  public ReactiveLiveEventStream(RadioPlayer rp) {
+    this.rp = rp;
+    rp.addListener(this);
+
+    Gauge.builder("radio.stream.listeners", listenerCount, AtomicInteger::get)
+        .description("Listeners connected to /live/stream")
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Open a new stream. The current status and track are sent first.
+   *
+   * @return the events to hand back to Spring
+   */
+  public Flux<ServerSentEvent<String>> subscribe() {
+    Flux<ServerSentEvent<String>> heartbeats = Flux.interval(HEARTBEAT)
+        .map(i -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+
+    Flux<ServerSentEvent<String>> changes = Flux.<ServerSentEvent<String>>create(listener -> {
+      synchronized (this) {
+        RadioPlayerState state = rp.getState();
+        listener.next(statusEvent(state.getStatus()));
+        listener.next(trackEvent(state.getArchive().getCurrentVideo()));
+        listener.onDispose(events.subscribe(listener::next, listener::error, listener::complete));
+      }
+    }, OverflowStrategy.ERROR).publishOn(Schedulers.parallel(), MAX_PENDING_EVENTS);
+
+    return Flux.merge(changes, heartbeats)
+        .take(STREAM_TIMEOUT)
+        .doOnSubscribe(s -> listenerCount.incrementAndGet())
+        .doFinally(s -> listenerCount.decrementAndGet());
+  }
+
+  public int getListenerCount() {
+    return listenerCount.get();
+  }
+
+  @Override
+  public synchronized void onStatusChanged(BroadcastStatus status) {
+    sink.next(ServerSentEvent.builder(LiveEventBroadcaster.statusJson(status))
+        .event("status")
+        .build());
+  }
+
+  @Override
+  public synchronized void onTrackChanged(ArchivedVideo video) {
+    sink.next(trackEvent(video));
+  }
+
+  private static ServerSentEvent<String> statusEvent(BroadcastStatus status) {
+    return ServerSentEvent.builder(LiveEventBroadcaster.statusJson(status))
+        .event("status")
+        .retry(RECONNECT)
+        .build();
+  }
+
+  private static ServerSentEvent<String> trackEvent(ArchivedVideo video) {
+    return ServerSentEvent.builder(LiveEventBroadcaster.trackJson(video)).event("track").build();
+  }
+}
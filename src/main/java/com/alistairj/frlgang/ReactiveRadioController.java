@@ -0,0 +1,165 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.FoundVideo;
+import com.alistairj.frlgang.player.LiveSnapshot;
+import com.alistairj.frlgang.player.LiveSnapshotCache;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.RadioPlayerState;
+import com.alistairj.frlgang.player.archive.ArchiveQueuePage;
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The radio endpoints when served by WebFlux on Netty.
+ *
+ * <p>
+ * Chosen with spring.main.web-application-type=reactive. Serves the same state and the same
+ * responses as {@link RadioController}, but no request holds a thread while it waits: /live and
+ * /queue are answered straight from the published state, /live/stream is a shared event stream,
+ * and the YouTube lookup behind /track runs on the bounded elastic scheduler.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveRadioController {
+
+  private static final String VIDEO_ID_PARAM = "video_id";
+
+  private final RadioPlayer radioPlayer;
+
+  private final LiveSnapshotCache liveSnapshotCache;
+
+  private final ReactiveLiveEventStream liveEventStream;
+
+  /**
+   * Build a new ReactiveRadioController.
+   *
+   * @param radioPlayer       The radio player to serve
+   * @param liveSnapshotCache Cache of the encoded /live response
+   */
+  public ReactiveRadioController(RadioPlayer radioPlayer, LiveSnapshotCache liveSnapshotCache) {
+    this.radioPlayer = radioPlayer;
+    this.liveSnapshotCache = liveSnapshotCache;
+    this.liveEventStream = new ReactiveLiveEventStream(radioPlayer);
+  }
+
+  /**
+   * Serve the pre-encoded radio player status, as {@link RadioController#getLiveShow} does.
+   */
+  @CrossOrigin
+  @RequestMapping("/live")
+  public Mono<Void> getLiveShow(
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+      ServerHttpResponse response) throws IOException {
+
+    LiveSnapshot snapshot = LiveSnapshot.STARTING;
+    long playhead = 0;
+    if (radioPlayer.isReady()) {
+      // the playhead and the snapshot have to come from the same state
+      RadioPlayerState state = radioPlayer.getState();
+      playhead = state.getArchive().getPlayheadInSeconds(System.nanoTime());
+      snapshot = liveSnapshotCache.get(state);
+    }
+    String etag = snapshot.getETag(playhead);
+
+    response.getHeaders().setETag(etag);
+    response.getHeaders().setCacheControl("no-cache");
+
+    if (LiveSnapshot.isNotModified(ifNoneMatch, etag)) {
+      response.setStatusCode(HttpStatus.NOT_MODIFIED);
+      return response.setComplete();
+    }
+
+    int contentLength = snapshot.getContentLength(playhead);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    response.getHeaders().setContentLength(contentLength);
+
+    DataBuffer body = response.bufferFactory().allocateBuffer(contentLength);
+    try {
+      snapshot.writeTo(body.asOutputStream(), playhead);
+    } catch (IOException e) {
+      DataBufferUtils.release(body);
+      throw e;
+    }
+    return response.writeWith(Mono.just(body));
+  }
+
+  /**
+   * Say whether the radio player is ready, as {@link RadioController#getReadiness()} does.
+   */
+  @RequestMapping("/ready")
+  public ResponseEntity<String> getReadiness() {
+    return RadioController.getReadiness(radioPlayer);
+  }
+
+  /**
+   * Push a "status" event when the radio player switches between archive, upcoming and live, and
+   * a "track" event when the archive player moves to the next video.
+   */
+  @CrossOrigin
+  @GetMapping(value = "/live/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<String>> streamLiveShow() {
+    return liveEventStream.subscribe();
+  }
+
+  /**
+   * Serve a page of the archive queue, as {@link RadioController#getArchiveQueue} does.
+   */
+  @CrossOrigin
+  @RequestMapping("/queue")
+  public ArchiveQueuePage getArchiveQueue(
+      @RequestParam(value = "limit", defaultValue = ArchiveQueuePage.DEFAULT_LIMIT_PARAM) int limit,
+      @RequestParam(value = "cursor", required = false) Long cursor) {
+
+    return RadioController.getQueuePage(radioPlayer, limit, cursor);
+  }
+
+  /**
+   * Track a video, as {@link RadioController#trackVideo} does.
+   *
+   * <p>
+   * WebFlux does not mix form fields into request parameters, so video_id is read from either.
+   * </p>
+   */
+  @CrossOrigin
+  @PostMapping("/track")
+  public Mono<FoundVideo> trackVideo(ServerWebExchange exchange) {
+    return exchange.getFormData()
+        .flatMap(form -> {
+          String videoIdOrUrl = form.getFirst(VIDEO_ID_PARAM);
+          if (videoIdOrUrl == null) {
+            videoIdOrUrl = exchange.getRequest().getQueryParams().getFirst(VIDEO_ID_PARAM);
+          }
+          if (videoIdOrUrl == null) {
+            return Mono.error(new ServerWebInputException("Missing video_id"));
+          }
+
+          String param = videoIdOrUrl;
+          return Mono.fromCallable(() -> radioPlayer.getLivePlayer()
+              .checkVideoId(RadioController.decodeVideoId(param)))
+              .subscribeOn(Schedulers.boundedElastic());
+        });
+  }
+}
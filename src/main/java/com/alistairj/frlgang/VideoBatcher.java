@@ -0,0 +1,204 @@
+package com.alistairj.frlgang;
+
+import com.google.api.services.youtube.model.Video;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Packs the videos.list calls of every caller into as few requests as possible.
+ *
+ * <p>
+ * The schedulers, /track, the premiere scanner and archive rebuilds all want video details, often
+ * a handful of ids at a time. Ids asked for with the same parts are held for a few milliseconds
+ * and then fetched together, so callers that turn up at the same moment share one quota unit. A
+ * request goes out as soon as it has 50 ids, the most YouTube takes in one call, and bigger sets
+ * are split over several requests instead of being cut short.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class VideoBatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(VideoBatcher.class);
+
+  static final int MAX_IDS_PER_CALL = 50;
+
+  static final long LINGER_MILLIS = 5;
+
+  private static final DistributionSummary batchSize =
+      DistributionSummary.builder("youtube.videos.batch.size")
+          .description("Video ids fetched per videos.list call")
+          .baseUnit("ids")
+          .register(Metrics.globalRegistry);
+
+  /**
+   * Makes a single videos.list call.
+   */
+  @FunctionalInterface
+  interface VideoListFetcher {
+
+    /**
+     * Fetch up to 50 videos.
+     *
+     * @param parts    Comma separated parts to fetch
+     * @param videoIds Ids of the videos
+     * @return the videos that were found
+     * @throws IOException Thrown if there is an issue with the YouTube API
+     */
+    List<Video> fetch(String parts, List<String> videoIds) throws IOException;
+  }
+
+  private final AtomicInteger threadCount = new AtomicInteger();
+
+  private final ScheduledExecutorService executor;
+
+  private final VideoListFetcher fetcher;
+
+  private final long lingerMillis;
+
+  /**
+   * Ids waiting to be fetched by part set, in the order they were asked for.
+   */
+  private final Map<String, Map<String, CompletableFuture<Video>>> waiting = new HashMap<>();
+
+  /**
+   * Part sets with a flush already scheduled.
+   */
+  private final Set<String> flushScheduled = new HashSet<>();
+
+  /**
+   * Build a new VideoBatcher.
+   *
+   * @param fetcher      Makes the actual calls
+   * @param lingerMillis How long ids wait for others to join them
+   * @param parallelism  How many calls can be in flight at once
+   */
+  VideoBatcher(VideoListFetcher fetcher, long lingerMillis, int parallelism) {
+    this.fetcher = fetcher;
+    this.lingerMillis = lingerMillis;
+    this.executor = Executors.newScheduledThreadPool(parallelism, r -> {
+      Thread t = new Thread(r, "youtube-videos-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Fetch videos, sharing the calls with anyone else asking for the same parts.
+   *
+   * @param parts    Comma separated parts to fetch
+   * @param videoIds Ids of the videos, any number of them
+   * @return the videos that were found, in the order they were asked for
+   * @throws IOException Thrown if there is an issue with the YouTube API
+   */
+  public List<Video> fetch(String parts, Collection<String> videoIds) throws IOException {
+    if (videoIds == null || videoIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    List<CompletableFuture<Video>> videos = new ArrayList<>();
+
+    synchronized (this) {
+      Map<String, CompletableFuture<Video>> batch =
+          waiting.computeIfAbsent(parts, p -> new LinkedHashMap<>());
+
+      for (String id : new LinkedHashSet<>(videoIds)) {
+        CompletableFuture<Video> video = batch.get(id);
+        if (video == null) {
+          video = new CompletableFuture<>();
+          batch.put(id, video);
+        }
+        videos.add(video);
+
+        if (batch.size() >= MAX_IDS_PER_CALL) {
+          Map<String, CompletableFuture<Video>> full = new LinkedHashMap<>(batch);
+          batch.clear();
+          executor.execute(() -> call(parts, full));
+        }
+      }
+
+      if (batch.isEmpty() == false && flushScheduled.add(parts)) {
+        executor.schedule(() -> flush(parts), lingerMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    List<Video> found = new ArrayList<>(videos.size());
+    for (CompletableFuture<Video> video : videos) {
+      Video v = await(video);
+      if (v != null) {
+        found.add(v);
+      }
+    }
+    return found;
+  }
+
+  private void flush(String parts) {
+    Map<String, CompletableFuture<Video>> batch;
+
+    synchronized (this) {
+      flushScheduled.remove(parts);
+      batch = waiting.remove(parts);
+    }
+
+    if (batch != null && batch.isEmpty() == false) {
+      call(parts, batch);
+    }
+  }
+
+  private void call(String parts, Map<String, CompletableFuture<Video>> batch) {
+    batchSize.record(batch.size());
+    logger.trace("Fetching {} for {} videos", parts, batch.size());
+
+    try {
+      for (Video v : fetcher.fetch(parts, new ArrayList<>(batch.keySet()))) {
+        CompletableFuture<Video> video = batch.get(v.getId());
+        if (video != null) {
+          video.complete(v);
+        }
+      }
+
+      // whatever YouTube left out does not exist, or is private
+      batch.values().forEach(video -> video.complete(null));
+
+    } catch (IOException | RuntimeException e) {
+      batch.values().forEach(video -> video.completeExceptionally(e));
+    }
+  }
+
+  private static Video await(CompletableFuture<Video> video) throws IOException {
+    try {
+      return video.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while fetching videos");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+}
@@ -7,6 +7,7 @@ import com.alistairj.frlgang.player.archive.ArchivedVideo;
 import com.alistairj.frlgang.utils.RadioPlayerUtils;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.youtube.YouTube;
+import com.google.api.services.youtube.YouTubeRequest;
 import com.google.api.services.youtube.model.Channel;
 import com.google.api.services.youtube.model.ChannelListResponse;
 import com.google.api.services.youtube.model.PlaylistItem;
@@ -15,22 +16,32 @@ import com.google.api.services.youtube.model.SearchListResponse;
 import com.google.api.services.youtube.model.SearchResult;
 import com.google.api.services.youtube.model.Video;
 import com.google.api.services.youtube.model.VideoListResponse;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Fetch information from YouTube.
  * <p>
- * Note the default quota is 10,000 per day.
+ * Note the default quota is 10,000 per day for each API key.
  * </p>
  *
  * @author Alistair Jones (alistair@ohalo.co)
@@ -41,6 +52,53 @@ public class YouTubeService {
 
   private static final List<String> blacklistVideoIds = new ArrayList<>();
 
+  /**
+   * How many videos.list calls can be in flight at once while a playlist is being paged.
+   */
+  private static final int DETAIL_FETCH_PARALLELISM = 4;
+
+  private static final AtomicInteger detailFetcherCount = new AtomicInteger();
+
+  private static final ExecutorService detailFetcher =
+      Executors.newFixedThreadPool(DETAIL_FETCH_PARALLELISM, r -> {
+        Thread t = new Thread(r, "youtube-details-" + detailFetcherCount.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      });
+
+  private static final VideoBatcher videoBatcher = new VideoBatcher(YouTubeService::listVideos,
+      VideoBatcher.LINGER_MILLIS, DETAIL_FETCH_PARALLELISM);
+
+  private static final PremiereScanner premiereScanner = new PremiereScanner();
+
+  private static final LiveShowDiscovery liveShowDiscovery = new LiveShowDiscovery(
+      new ChannelFeed(ApiManager.getChannelFeedUrl()), YouTubeService::getUpcomingShowDetails,
+      YouTubeService::searchCurrentAndUpcomingLiveShowIds, ApiManager.getClock());
+
+  /**
+   * Fetches the details of one page of video ids.
+   */
+  @FunctionalInterface
+  interface VideoDetailsFetcher {
+    List<Video> fetch(List<String> videoIds) throws IOException;
+  }
+
+  /**
+   * Gets the video ids of a playlist one page at a time.
+   */
+  @FunctionalInterface
+  interface PlaylistPageConsumer {
+
+    /**
+     * Take a page of video ids.
+     *
+     * @param videoIds The ids on the page, in playlist order
+     * @return true to carry on to the next page, false to stop
+     * @throws IOException Thrown if the page cannot be handled
+     */
+    boolean accept(List<String> videoIds) throws IOException;
+  }
+
   static {
     blacklistVideoIds.add("h8BmJYyeziM"); // Alistair reads you a bedtime story, ep 1
     blacklistVideoIds.add("w6JKc2M41IE"); // Alistair reads you a bedtime story, ep 2
@@ -54,25 +112,71 @@ public class YouTubeService {
   }
 
   /**
-   * Fetch all upcoming and live show ids.
+   * Charge a request against the quota, run it and time it.
+   *
+   * @param method  Name of the YouTubeService method making the call, used to tag the timings
+   * @param cost    Quota cost of the call
+   * @param request The request to run
+   * @return the response
+   * @throws IOException Thrown if there is an issue with the YouTube API
+   */
+  private static <T> T execute(String method, long cost, YouTubeRequest<T> request)
+      throws IOException {
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      T response = ApiManager.execute(request, cost);
+      outcome = "success";
+      return response;
+    } finally {
+      Timer.builder("youtube.api.requests")
+          .description("Calls made to the YouTube Data API")
+          .tag("method", method)
+          .tag("outcome", outcome)
+          .register(Metrics.globalRegistry)
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Fetch new upcoming and live show ids.
    *
    * <p>
-   * EXECUTED: once an hour
-   * COST: 100 x 2
+   * EXECUTED: every 15 minutes while the channel is active, less when idle (see
+   * AdaptivePollingScheduler)
+   * COST: 0-1 from the channel feed, 100 x 2 once a day or if the feed is down
    * </p>
+   *
+   * @see LiveShowDiscovery
    */
   public static Set<String> getCurrentAndUpcomingLiveShowIds() throws IOException {
+    Set<String> videoIds = liveShowDiscovery.discover(ApiManager.getChannelId());
+
+    // get all upcoming premiere videos
+    videoIds.addAll(getUpcomingPremieres());
+
+    return videoIds;
+  }
+
+  /**
+   * Search for all upcoming and live show ids.
+   *
+   * <p>
+   * COST: 100 x 2
+   * </p>
+   */
+  private static Set<String> searchCurrentAndUpcomingLiveShowIds() throws IOException {
     YouTube youtubeService = getYouTubeApi();
 
     // get all live videos
     YouTube.Search.List request = youtubeService.search()
         .list("id");
-    SearchListResponse response = request
-        .setMaxResults(50L)
-        .setChannelId(ApiManager.getChannelId())
-        .setType("video")
-        .setEventType("live")
-        .execute();
+    SearchListResponse response = execute("searchCurrentAndUpcomingLiveShowIds",
+        QuotaLedger.SEARCH_COST, request
+            .setMaxResults(50L)
+            .setChannelId(ApiManager.getChannelId())
+            .setType("video")
+            .setEventType("live"));
 
     Set<String> videoIds = new HashSet<>();
 
@@ -83,19 +187,17 @@ public class YouTubeService {
     // get all upcoming livestreamVideos videos
     request = youtubeService.search()
         .list("id");
-    response = request
+    response = execute("searchCurrentAndUpcomingLiveShowIds", QuotaLedger.SEARCH_COST, request
         .setMaxResults(50L)
         .setChannelId(ApiManager.getChannelId())
         .setType("video")
-        .setEventType("upcoming")
-        .execute();
+        .setEventType("upcoming"));
 
     for (SearchResult result : response.getItems()) {
       videoIds.add(result.getId().getVideoId());
     }
 
-    // get all upcoming premiere videos
-    videoIds.addAll(getUpcomingPremieres());
+    logger.info("Searched for live and upcoming shows, count:{}", videoIds.size());
 
     return videoIds;
   }
@@ -105,12 +207,12 @@ public class YouTubeService {
    *
    * <p>
    * EXECUTED: once an hour
-   * COST: 1
+   * COST: 1 per 50 ids
    * -- and --
    * EXECUTED: 37 times an hour (ideally as much as possible)
-   * COST: 1
+   * COST: 1 per 50 ids
    * -- and --
-   * EXECUTED: 1-2 times on track id call (if
+   * EXECUTED: once on track id call, shared with anyone else fetching at the same moment
    * COST: 1
    * TOTAL COST 38-40 an hour.
    * </p>
@@ -118,42 +220,17 @@ public class YouTubeService {
    * @param videoIds Collection of video ids to fetch more information about
    * @return List of Video object containing the goods.
    * @throws IOException Thrown if there is an issue with the YouTube API
+   * @see VideoBatcher
    */
   public static List<Video> getUpcomingShowDetails(Collection<String> videoIds)
       throws IOException {
 
-    if (videoIds == null || videoIds.size() == 0) {
-      return new ArrayList<>();
-    }
-
-    if (videoIds.size() > 50) {
-      logger.warn("Video content list is too big to fetch in one call, trimming video id list...");
-      Collection<String> trimmedVideoIds = new ArrayList<>();
+    List<Video> videos =
+        videoBatcher.fetch("liveStreamingDetails,contentDetails,snippet", videoIds);
 
-      for (String id : videoIds) {
-        trimmedVideoIds.add(id);
-
-        if (trimmedVideoIds.size() >= 50) {
-          break;
-        }
-      }
-
-      videoIds = trimmedVideoIds;
-    }
+    logger.trace("Fetched details about multiple videos, count:{}", videos.size());
 
-    YouTube youtubeService = getYouTubeApi();
-    // Define and execute the API request
-
-    YouTube.Videos.List request = youtubeService.videos()
-        .list("liveStreamingDetails,contentDetails,snippet");
-
-    VideoListResponse response = request
-        .setId(String.join(",", videoIds))
-        .execute();
-
-    logger.trace("Fetched details about multiple videos, count:{}", videoIds.size());
-
-    return response.getItems();
+    return videos;
   }
 
   /**
@@ -163,55 +240,43 @@ public class YouTubeService {
    * Useful for archived videos because it fetches the duration.
    * </p>
    *
-   * <p>
-   * A known limitation is that it will only work on 50 ids at a time, but a channel will rarely
-   * have 50 live and upcoming livestreams registered so that's never an issue.
-   * </p>
-   *
    * @param videoIds Collection of video ids to fetch more information about
    * @return List of Video object containing content details.
    * @throws IOException Thrown if there is an issue with the YouTube API
+   * @see VideoBatcher
    */
   public static List<Video> getVideoContentDetails(Collection<String> videoIds)
       throws IOException {
 
-    if (videoIds == null || videoIds.size() == 0) {
-      return new ArrayList<>();
-    }
-
-    if (videoIds.size() > 50) {
-      logger.warn("Video content list is too big to fetch in one call, trimming video id list...");
-      Collection<String> trimmedVideoIds = new ArrayList<>();
+    List<Video> videos = videoBatcher.fetch("contentDetails,snippet", videoIds);
 
-      for (String id : videoIds) {
-        trimmedVideoIds.add(id);
-
-        if (trimmedVideoIds.size() >= 50) {
-          break;
-        }
-      }
+    logger.info("Fetched details about multiple videos, count:{}", videos.size());
 
-      videoIds = trimmedVideoIds;
-    }
+    return videos;
+  }
 
+  /**
+   * Make one videos.list call, for {@link VideoBatcher}.
+   *
+   * <p>
+   * COST: 1
+   * </p>
+   */
+  private static List<Video> listVideos(String parts, List<String> videoIds) throws IOException {
     YouTube youtubeService = getYouTubeApi();
-    // Define and execute the API request
 
     YouTube.Videos.List request = youtubeService.videos()
-        .list("contentDetails,snippet");
+        .list(parts);
 
-    VideoListResponse response = request
-        .setId(String.join(",", videoIds))
-        .execute();
-
-    logger.info("Fetched details about multiple videos, count:{}", videoIds.size());
+    VideoListResponse response = execute("listVideos", QuotaLedger.LIST_COST,
+        request.setId(String.join(",", videoIds)));
 
     return response.getItems();
   }
 
 
   /**
-   * Fetch completed show and randomize.
+   * Fetch completed shows. The archive player picks the order they are played in.
    */
   public static List<ArchivedVideo> getCompletedShows()
       throws IOException {
@@ -234,7 +299,8 @@ public class YouTubeService {
 
     YouTube.Channels.List request = youtubeService.channels()
         .list("contentDetails");
-    ChannelListResponse response = request.setId(ApiManager.getChannelId()).execute();
+    ChannelListResponse response = execute("getUploadPlaylistId", QuotaLedger.LIST_COST,
+        request.setId(ApiManager.getChannelId()));
     List<Channel> channelList = response.getItems();
 
     if (channelList.size() > 0) {
@@ -244,73 +310,130 @@ public class YouTubeService {
     }
   }
 
+  /**
+   * Find upload videos that are premieres scheduled in the future.
+   *
+   * <p>
+   * Only uploads that have not been seen before and premieres that were still pending last time
+   * are looked at (see {@link PremiereScanner}).
+   * </p>
+   *
+   * @return ids of the upcoming premieres
+   * @throws IOException Thrown if there is an issue with the YouTube API
+   */
   public static List<String> getUpcomingPremieres() throws IOException {
+    return premiereScanner.scan();
+  }
 
-    List<List<String>> videoIdBatches = new ArrayList<>();
+  /**
+   * Page through a playlist.
+   *
+   * @param playlistId Playlist to page through
+   * @param consumer   Gets the video ids of every page until it asks to stop
+   * @return the number of pages fetched
+   * @throws IOException Thrown if there is an issue with the YouTube API
+   */
+  static int pagePlaylist(String playlistId, PlaylistPageConsumer consumer)
+      throws IOException {
 
     YouTube youtubeService = getYouTubeApi();
 
     YouTube.PlaylistItems.List request = youtubeService.playlistItems()
         .list("contentDetails,snippet");
 
-    boolean moreArchiveRemaining = true;
+    int pageCount = 0;
+    boolean morePagesRemaining = true;
 
     do {
-      PlaylistItemListResponse response =
+      PlaylistItemListResponse response = execute("pagePlaylist", QuotaLedger.LIST_COST,
           request
               .setMaxResults(50L)
-              .setPlaylistId(ApiManager.getUploadPlaylistId())
-              .execute();
+              .setPlaylistId(playlistId));
+      pageCount++;
 
       List<String> videoIds = new ArrayList<>();
       for (PlaylistItem item : response.getItems()) {
         videoIds.add(item.getContentDetails().getVideoId());
-        logger.debug("id: {} title: {}", item.getId(), item.getSnippet().getTitle());
+        logger.trace("id: {} title: {}", item.getId(), item.getSnippet().getTitle());
       }
 
-      videoIdBatches.add(videoIds);
+      boolean wantsMore = consumer.accept(videoIds);
 
-      if (response.getNextPageToken() != null) {
+      if (wantsMore && response.getNextPageToken() != null) {
         request.setPageToken(response.getNextPageToken());
       } else {
-        moreArchiveRemaining = false;
+        morePagesRemaining = false;
       }
 
-    } while (moreArchiveRemaining);
-
-    logger.info("Fetched {} batches of upcoming premiere shows", videoIdBatches.size());
+    } while (morePagesRemaining);
 
-    List<String> upcomingPremiereIds = new ArrayList<>();
+    return pageCount;
+  }
 
-    for (List<String> batch : videoIdBatches) {
+  /**
+   * Page through a playlist and fetch the details of every video in it.
+   *
+   * <p>
+   * Pages have to be fetched one after the other because each needs the token from the one
+   * before, but the details of a page are fetched on the detail fetcher as soon as the page
+   * arrives, while the next page is being fetched. Details are handed to the consumer on the
+   * calling thread, in playlist order, as soon as they are in.
+   * </p>
+   *
+   * @param playlistId Playlist to page through
+   * @param fetcher    How to fetch the details of one page of ids
+   * @param consumer   Gets every video, in playlist order
+   * @return the number of pages in the playlist
+   * @throws IOException Thrown if there is an issue with the YouTube API
+   */
+  private static int fetchPlaylistVideos(String playlistId, VideoDetailsFetcher fetcher,
+      Consumer<Video> consumer) throws IOException {
 
-      List<Video> videoDetails = YouTubeService.getUpcomingShowDetails(batch);
+    Deque<Future<List<Video>>> inFlight = new ArrayDeque<>();
+    int pageCount;
 
-      for (Video v : videoDetails) {
+    try {
+      pageCount = pagePlaylist(playlistId, videoIds -> {
+        inFlight.add(detailFetcher.submit(() -> fetcher.fetch(videoIds)));
 
-        if (v.getLiveStreamingDetails() != null) {
+        // hand over whatever has already arrived without waiting for the rest
+        while (inFlight.isEmpty() == false && inFlight.peek().isDone()) {
+          consumeDetails(playlistId, inFlight.poll(), consumer);
+        }
 
-          DateTime dt = v.getLiveStreamingDetails().getScheduledStartTime();
+        return true;
+      });
 
-          if (dt != null) {
-            ZonedDateTime now = ZonedDateTime.now();
-            ZonedDateTime scheduled = getDateTime(dt);
+      while (inFlight.isEmpty() == false) {
+        consumeDetails(playlistId, inFlight.poll(), consumer);
+      }
 
-            if (now.isBefore(scheduled)) {
-              logger.debug("FOUND UPCOMING PREMIERE VIDEO: {} ", v.getSnippet().getTitle());
-              upcomingPremiereIds.add(v.getId());
-            }
-          }
-        }
+    } finally {
+      for (Future<List<Video>> f : inFlight) {
+        f.cancel(true);
       }
     }
 
-    return upcomingPremiereIds;
+    return pageCount;
+  }
 
+  private static void consumeDetails(String playlistId, Future<List<Video>> details,
+      Consumer<Video> consumer) throws IOException {
+    try {
+      details.get().forEach(consumer);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Unable to fetch video details of playlist " + playlistId, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while fetching playlist " + playlistId, e);
+    }
   }
 
   /**
-   * Fetch completed show and randomize.
+   * Fetch completed shows. The archive player picks the order they are played in.
    *
    * <p>
    * Note that the playlistItem's contentDetails does not include duration so I have to get that
@@ -322,70 +445,25 @@ public class YouTubeService {
   public static List<ArchivedVideo> getCompletedShowsUsingArchivePlaylist()
       throws IOException {
 
-    List<List<String>> videoIdBatches = new ArrayList<>();
-
-    YouTube youtubeService = getYouTubeApi();
-
-    YouTube.PlaylistItems.List request = youtubeService.playlistItems()
-        .list("contentDetails,snippet");
-
-    boolean moreArchiveRemaining = true;
-
-    do {
-      PlaylistItemListResponse response =
-          request
-              .setMaxResults(50L)
-              .setPlaylistId(ApiManager.getArchivePlaylistId())
-              .execute();
-
-      List<String> videoIds = new ArrayList<>();
-      for (PlaylistItem item : response.getItems()) {
-        videoIds.add(item.getContentDetails().getVideoId());
-      }
-
-      videoIdBatches.add(videoIds);
-
-      if (response.getNextPageToken() != null) {
-        request.setPageToken(response.getNextPageToken());
-      } else {
-        moreArchiveRemaining = false;
-      }
-
-    } while (moreArchiveRemaining);
-
-    logger.info("Fetched {} batches of past shows", videoIdBatches.size());
-
     List<ArchivedVideo> archivedVideos = new ArrayList<>();
 
-    long pastStreamedShowsDuration = 0;
-    long pastStreamedShowsCount = 0;
-    long archivePlayerDuration = 0;
-    long archivePlayerCount = 0;
-    for (List<String> batch : videoIdBatches) {
-
-      List<Video> videoDetails = YouTubeService.getVideoContentDetails(batch);
-
-      for (Video v : videoDetails) {
-        long duration = Duration.parse(v.getContentDetails().getDuration()).getSeconds();
-        pastStreamedShowsDuration += duration;
-        pastStreamedShowsCount++;
+    int pageCount = fetchPlaylistVideos(ApiManager.getArchivePlaylistId(),
+        YouTubeService::getVideoContentDetails, v -> {
+          long duration = Duration.parse(v.getContentDetails().getDuration()).getSeconds();
+          archivedVideos.add(new ArchivedVideo(v.getId(), v.getSnippet().getTitle(), duration,
+              v.getSnippet().getThumbnails().getStandard()));
+        });
 
-        archivePlayerDuration += duration;
-        archivePlayerCount++;
-        archivedVideos.add(new ArchivedVideo(v.getId(), v.getSnippet().getTitle(), duration,
-            v.getSnippet().getThumbnails().getStandard()));
+    logger.info("Fetched {} batches of past shows", pageCount);
 
-      }
+    long pastStreamedShowsDuration = 0;
+    for (ArchivedVideo av : archivedVideos) {
+      pastStreamedShowsDuration += av.getDurationInSeconds();
     }
 
-    logger.info("Total count of Efferalgang past streamed shows: {} shows", pastStreamedShowsCount);
-    logger.info("Total count of shows in the archive player:     {} shows", archivePlayerCount);
+    logger.info("Total count of Efferalgang past streamed shows: {} shows", archivedVideos.size());
     logger.info("Total duration of Efferalgang past streamed shows: {} hours",
         RadioPlayerUtils.printDurationInHours(pastStreamedShowsDuration));
-    logger.info("Total duration of shows in the archive player:     {} hours",
-        RadioPlayerUtils.printDurationInHours(archivePlayerDuration));
-
-    Collections.shuffle(archivedVideos);
 
     return archivedVideos;
   }
@@ -416,7 +494,8 @@ public class YouTubeService {
     boolean moreArchiveRemaining = true;
 
     do {
-      SearchListResponse response = request.execute();
+      SearchListResponse response =
+          execute("getCompletedShowsUsingChannelSearch", QuotaLedger.SEARCH_COST, request);
 
       List<String> videoIds = new ArrayList<>();
       for (SearchResult item : response.getItems()) {
@@ -466,8 +545,6 @@ public class YouTubeService {
     logger.info("Total duration of shows in the archive player:     {} hours",
         RadioPlayerUtils.printDurationInHours(archivePlayerDuration));
 
-    Collections.shuffle(archivedVideos);
-
     return archivedVideos;
   }
 
@@ -485,13 +562,12 @@ public class YouTubeService {
 
     YouTube.Search.List request = youtubeService.search()
         .list("id");
-    SearchListResponse response = request
+    SearchListResponse response = execute("getUpcomingShowIds", QuotaLedger.SEARCH_COST, request
         .setMaxResults(5L)
         .setOrder("date")
         .setChannelId(ApiManager.getChannelId())
         .setType("video")
-        .setEventType("upcoming")
-        .execute();
+        .setEventType("upcoming"));
 
     List<String> videoIds = new ArrayList<>();
 
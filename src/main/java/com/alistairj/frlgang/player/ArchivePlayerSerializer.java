@@ -1,17 +1,19 @@
 package com.alistairj.frlgang.player;
 
 import com.alistairj.frlgang.player.archive.ArchivePlayer;
-import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.alistairj.frlgang.player.archive.ArchiveQueuePage;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
-import com.google.api.services.youtube.model.Video;
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Serialize radio player status into JSON.
  *
+ * <p>
+ * Only the first page of the queue is written, see {@link ArchiveQueuePageSerializer}.
+ * </p>
+ *
  * @author Alistair Jones (alistair@ohalo.co)
  */
 public class ArchivePlayerSerializer extends StdSerializer<ArchivePlayer> {
@@ -27,19 +29,8 @@ public class ArchivePlayerSerializer extends StdSerializer<ArchivePlayer> {
   @Override
   public void serialize(ArchivePlayer rp, JsonGenerator g, SerializerProvider provider)
       throws IOException {
-    g.writeStartObject();
-
-    ArchivedVideo av = rp.getCurrentVideo();
-    g.writeObjectFieldStart("current");
-    g.writeNumberField("playhead", rp.getCurrentPlayheadInSeconds());
-    g.writeStringField("id", av.getId());
-    g.writeStringField("title", av.getTitle());
-    g.writeNumberField("duration_in_seconds", av.getDurationInSeconds());
-    g.writeEndObject();
-
-    rp.generateQueueJson(g);
-
-    g.writeEndObject();
+    ArchiveQueuePageSerializer.writeArchiveQueuePage(
+        rp.getState().getQueuePage(ArchiveQueuePage.NO_CURSOR, ArchiveQueuePage.DEFAULT_LIMIT), g);
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.player.archive.ArchiveQueuePage;
+import com.alistairj.frlgang.player.archive.ArchiveState;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * Serialize a page of the archive queue into JSON.
+ *
+ * <p>
+ * queued_count is the length of the whole queue when the page was taken. It is kept as the queue
+ * changes, so it costs nothing to write, but it can be out by a video or two by the time the
+ * next page is asked for.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ArchiveQueuePageSerializer extends StdSerializer<ArchiveQueuePage> {
+
+  public ArchiveQueuePageSerializer() {
+    super(null, true);
+  }
+
+  public ArchiveQueuePageSerializer(Class<ArchiveQueuePage> t) {
+    super(t);
+  }
+
+  @Override
+  public void serialize(ArchiveQueuePage page, JsonGenerator g, SerializerProvider provider)
+      throws IOException {
+    writeArchiveQueuePage(page, g);
+  }
+
+  static void writeArchiveQueuePage(ArchiveQueuePage page, JsonGenerator g) throws IOException {
+    ArchiveState state = page.getState();
+
+    g.writeStartObject();
+
+    g.writeObjectFieldStart("current");
+    g.writeNumberField("playhead", state.getPlayheadInSeconds(System.nanoTime()));
+    RadioPlayerSerializer.writeArchivedVideoFields(g, state.getCurrentVideo());
+    g.writeEndObject();
+
+    g.writeNumberField("buffered_ahead_in_seconds", state.getBufferedAheadInSeconds());
+    g.writeNumberField("queued_count", state.getQueuedCount());
+
+    g.writeArrayFieldStart("archive_queue");
+    for (ArchivedVideo v : page.getVideos()) {
+      g.writeStartObject();
+      g.writeStringField("id", v.getId());
+      g.writeStringField("title", v.getTitle());
+      g.writeEndObject();
+    }
+    g.writeEndArray();
+
+    if (page.getNextCursor() == ArchiveQueuePage.NO_CURSOR) {
+      g.writeNullField("next_cursor");
+    } else {
+      g.writeStringField("next_cursor", Long.toString(page.getNextCursor()));
+    }
+
+    g.writeEndObject();
+  }
+}
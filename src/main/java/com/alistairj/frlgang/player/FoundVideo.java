@@ -1,7 +1,5 @@
 package com.alistairj.frlgang.player;
 
-import com.google.api.services.youtube.model.Video;
-
 /**
  * A found video is either one that is returned after a API look up, and either the LivePlayer
  * already new about it or not.
@@ -12,9 +10,9 @@ public class FoundVideo {
 
   private boolean isNew;
 
-  private Video video;
+  private LiveShow video;
 
-  public FoundVideo(Video video, boolean isNew) {
+  public FoundVideo(LiveShow video, boolean isNew) {
     this.video = video;
     this.isNew = isNew;
   }
@@ -23,7 +21,7 @@ public class FoundVideo {
     return isNew;
   }
 
-  public Video getVideo() {
+  public LiveShow getVideo() {
     return video;
   }
 }
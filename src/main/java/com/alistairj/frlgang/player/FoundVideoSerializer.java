@@ -1,6 +1,6 @@
 package com.alistairj.frlgang.player;
 
-import static com.alistairj.frlgang.utils.RadioPlayerUtils.writeVideoInfo;
+import static com.alistairj.frlgang.utils.RadioPlayerUtils.writeShowInfo;
 
 import com.alistairj.frlgang.player.archive.ArchivePlayer;
 import com.alistairj.frlgang.player.archive.ArchivedVideo;
@@ -30,7 +30,7 @@ public class FoundVideoSerializer extends StdSerializer<FoundVideo> {
     g.writeStartObject();
 
     g.writeObjectFieldStart("video");
-    writeVideoInfo(g, rp.getVideo());
+    writeShowInfo(g, rp.getVideo());
     g.writeBooleanField("is_new", rp.isNew());
     g.writeEndObject();
 
@@ -1,29 +1,41 @@
 package com.alistairj.frlgang.player;
 
-import static com.alistairj.frlgang.utils.RadioPlayerUtils.hasLiveVideoEnded;
-import static com.alistairj.frlgang.utils.RadioPlayerUtils.isFirstVideoScheduledAfterSecond;
-import static com.alistairj.frlgang.utils.RadioPlayerUtils.isUpcomingVideoPending;
-import static com.alistairj.frlgang.utils.RadioPlayerUtils.isVideoLive;
 import static com.alistairj.frlgang.utils.RadioPlayerUtils.printUpcomingShows;
 
 import com.alistairj.frlgang.ApiManager;
 import com.alistairj.frlgang.YouTubeService;
-import com.google.api.client.util.DateTime;
 import com.google.api.services.youtube.model.Video;
 import java.io.IOException;
-import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * On initialization, getUpcomingShows should always be called be called before getLiveShows.
+ * Keeps track of the channel's live streams and premieres, and tells the radio player what is on
+ * air.
+ *
+ * <p>
+ * Only one thread ever changes the live player. Polls, shows tracked through /track and timeline
+ * wakeups are queued as commands, and the live player thread takes every command waiting at once.
+ * However many polls have piled up, they cost one videos.list call for the union of their ids.
+ * What the live player finds is published to the radio player as part of its
+ * {@link RadioPlayerState}, which is all the getters here read.
+ * </p>
  *
  * @author Alistair Jones (alistair@ohalo.co)
  */
@@ -31,263 +43,525 @@ public class LivePlayer {
 
   private static final Logger logger = LoggerFactory.getLogger(LivePlayer.class);
 
-  private Video currentLiveVideo;
+  private static final Comparator<LiveShow> BY_SCHEDULED_START =
+      Comparator.comparingLong(LiveShow::getScheduledStartMillis);
+
+  /**
+   * Fetches the details of the shows being kept an eye on.
+   */
+  @FunctionalInterface
+  interface ShowDetailsFetcher {
+    List<Video> fetch(Collection<String> videoIds) throws IOException;
+  }
 
   /**
-   * These get add constantly. They only way they will get mo
+   * Something for the live player thread to do.
+   */
+  private static final class Command {
+
+    /**
+     * Ids to fetch along with the relevant ids, or null if nothing needs fetching.
+     */
+    private final Set<String> idsToFetch;
+
+    /**
+     * Show to start tracking, or null.
+     */
+    private final LiveShow showToTrack;
+
+    /**
+     * Completed once the command has been applied, with whether a tracked show was new.
+     */
+    private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+    private boolean isNew = false;
+
+    private Command(Set<String> idsToFetch, LiveShow showToTrack) {
+      this.idsToFetch = idsToFetch;
+      this.showToTrack = showToTrack;
+    }
+  }
+
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "live-player");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<>();
+
+  // only the live player thread touches these three
+
+  private LiveShow currentLiveShow;
+
+  /**
+   * Every show being kept an eye on. Ids are only dropped once their show has ended.
    */
   private Set<String> relevantVideoIds = new HashSet<>();
 
-  private List<Video> upcomingVideos = new ArrayList<>();
+  private List<LiveShow> upcomingShows = Collections.emptyList();
+
+  private final ShowTimeline timeline = new ShowTimeline(this::refreshStatus);
+
+  private final ShowLookup showLookup;
+
+  private final ShowDetailsFetcher detailsFetcher;
+
+  /**
+   * Whether the radio player has been told anything yet. Only the live player thread touches it,
+   * apart from the constructor for benchmarks.
+   */
+  private boolean isPublished = false;
 
   private final RadioPlayer rp;
 
+  private final Clock clock;
+
+  /**
+   * Where shows sent to /track go while another instance is leading, or null to track them here.
+   */
+  private volatile Consumer<LiveShow> trackForwarder;
+
+  /**
+   * Build a new LivePlayer that keeps time on the given clock, without asking the YouTube API
+   * anything yet.
+   *
+   * @param rp    The radio player this belongs to
+   * @param clock Clock to tell whether shows are on air by
+   */
+  LivePlayer(RadioPlayer rp, Clock clock) {
+    this(rp, clock, YouTubeService::getUpcomingShowDetails);
+  }
+
   /**
-   * Build a new LivePlayer.
+   * Build a new LivePlayer that fetches show details with the given fetcher, for tests.
    *
-   * @param rp The LivePlayer needs a reference to his daddy because he will tell it about the
-   *           latest news from the Youtube API.
+   * @param rp             The radio player this belongs to
+   * @param clock          Clock to tell whether shows are on air by
+   * @param detailsFetcher Fetches the details of the relevant ids
    */
-  public LivePlayer(RadioPlayer rp) {
+  LivePlayer(RadioPlayer rp, Clock clock, ShowDetailsFetcher detailsFetcher) {
     this.rp = rp;
+    this.clock = clock;
+    this.detailsFetcher = detailsFetcher;
+    this.showLookup = new ShowLookup(LivePlayer::fetchShow, clock);
+  }
 
-    // init
-    fetchUpcomingAndLiveShowIds();
+  /**
+   * Build a LivePlayer that starts from known videos instead of asking the YouTube API, for
+   * benchmarks and tests.
+   *
+   * @param rp              The radio player this belongs to
+   * @param currentLiveShow The live show or null if nothing is live
+   * @param upcomingShows   Upcoming shows sorted by scheduled time
+   */
+  LivePlayer(RadioPlayer rp, LiveShow currentLiveShow, List<LiveShow> upcomingShows) {
+    this.rp = rp;
+    this.clock = Clock.systemUTC();
+    this.detailsFetcher = YouTubeService::getUpcomingShowDetails;
+    this.showLookup = new ShowLookup(LivePlayer::fetchShow, clock);
+    this.currentLiveShow = currentLiveShow;
+    this.upcomingShows = Collections.unmodifiableList(new ArrayList<>(upcomingShows));
+    publish(clock.millis());
   }
 
   /**
    * LivePlayer will update the list of relevant ids.
    */
   public void fetchUpcomingAndLiveShowIds() {
+    fetchUpcomingAndLiveShowIds(Collections.emptySet());
+  }
+
+  /**
+   * Take over from the instance that was leading. The shows it last sent are fetched along with
+   * the search, so shows it was tracking are not lost.
+   */
+  public void takeOver() {
+    RadioPlayerState s = rp.getState();
+    Set<String> knownIds = new HashSet<>();
+    if (s.getCurrentLiveShow() != null) {
+      knownIds.add(s.getCurrentLiveShow().getId());
+    }
+    for (LiveShow show : s.getUpcomingShows()) {
+      knownIds.add(show.getId());
+    }
+
+    trackForwarder = null;
+    fetchUpcomingAndLiveShowIds(knownIds);
+  }
+
+  private void fetchUpcomingAndLiveShowIds(Set<String> knownIds) {
+    Set<String> unverifiedVideoIds = new HashSet<>(knownIds);
     try {
       logger.trace("Getting information about relevant ids");
-      Set<String> unverifiedVideoIds = YouTubeService.getCurrentAndUpcomingLiveShowIds();
-      fetchBroadcastStatusOfRelevantIds(unverifiedVideoIds);
+      unverifiedVideoIds.addAll(YouTubeService.getCurrentAndUpcomingLiveShowIds());
     } catch (IOException e) {
       logger.error("Unable to get search for upcoming and live shows!", e);
     }
 
-    printUpcomingShows(upcomingVideos);
+    fetchShows(unverifiedVideoIds).join();
+
+    printUpcomingShows(getUpcomingShows());
   }
 
-  // this needs to be done once every minute (except when fetchUpcomingAndLiveShowIds fires)
+  /**
+   * Fetch some shows along with every relevant id.
+   *
+   * @param videoIds Ids to start keeping an eye on if they are shows, left as they are
+   * @return completes once the shows have been applied
+   */
+  CompletableFuture<Boolean> fetchShows(Set<String> videoIds) {
+    return submit(new Command(new HashSet<>(videoIds), null));
+  }
+
+  /**
+   * Fetch the broadcast status of every relevant id, and wait for it to be applied.
+   */
   public void fetchBroadcastStatusOfRelevantIds() {
-    fetchBroadcastStatusOfRelevantIds(new HashSet<>());
+    submit(new Command(Collections.emptySet(), null)).join();
+  }
+
+  /**
+   * Work out what is on air from the shows already known, without asking the YouTube API.
+   *
+   * <p>
+   * Called by the show timeline at the exact moment a show's state can change. Premieres start
+   * and end here on time, live streams only move on once a poll has seen them start or end.
+   * </p>
+   *
+   * @return completes once the status has been worked out, without having to be waited for
+   */
+  public CompletableFuture<Boolean> refreshStatus() {
+    return submit(new Command(null, null));
+  }
+
+  private CompletableFuture<Boolean> submit(Command command) {
+    commands.add(command);
+    writer.execute(this::runCommands);
+    return command.done;
+  }
+
+  /**
+   * Count the commands waiting for the live player thread.
+   *
+   * @return commands not taken yet
+   */
+  int getQueuedCommandCount() {
+    return commands.size();
   }
 
-  private void fetchBroadcastStatusOfRelevantIds(Set<String> unverifiedVideoIds) {
+  /**
+   * Apply every command waiting, all in one go. Runs on the live player thread only.
+   */
+  private void runCommands() {
+    List<Command> batch = new ArrayList<>();
+    for (Command c = commands.poll(); c != null; c = commands.poll()) {
+      batch.add(c);
+    }
 
-    unverifiedVideoIds.addAll(relevantVideoIds);
+    if (batch.isEmpty()) {
+      // an earlier run already took these commands
+      return;
+    }
 
     try {
-      logger.info("Getting information for {} ids: {}", unverifiedVideoIds.size(),
-          String.join(",", unverifiedVideoIds));
+      applyCommands(batch);
+    } catch (RuntimeException e) {
+      logger.error("Unable to apply live player commands", e);
+    } finally {
+      for (Command c : batch) {
+        c.done.complete(c.isNew);
+      }
+    }
+  }
+
+  private void applyCommands(List<Command> batch) {
+    Map<String, LiveShow> shows = new LinkedHashMap<>();
+    for (LiveShow show : upcomingShows) {
+      shows.put(show.getId(), show);
+    }
+    if (currentLiveShow != null) {
+      shows.put(currentLiveShow.getId(), currentLiveShow);
+    }
 
-      List<Video> videos = YouTubeService.getUpcomingShowDetails(unverifiedVideoIds);
+    Set<String> relevantIds = new HashSet<>(relevantVideoIds);
+    boolean isFetchWanted = false;
 
-      Video current = null;
-      List<Video> upcomers = new ArrayList<>();
-      for (Video v : videos) {
+    for (Command c : batch) {
+      if (c.idsToFetch != null) {
+        isFetchWanted = true;
+        relevantIds.addAll(c.idsToFetch);
+      }
 
-        if (hasLiveVideoEnded(v)) {
+      if (c.showToTrack != null && shows.containsKey(c.showToTrack.getId()) == false) {
+        // the details were only just fetched, no need to ask again
+        shows.put(c.showToTrack.getId(), c.showToTrack);
+        relevantIds.add(c.showToTrack.getId());
+        c.isNew = true;
+      }
+    }
 
-          // it ended! It's no longer live, and we don't have to monitor it
-          unverifiedVideoIds.remove(v.getId());
+    if (isFetchWanted) {
+      logger.info("Getting information for {} ids, {} commands: {}", relevantIds.size(),
+          batch.size(), String.join(",", relevantIds));
 
-        } else if (isVideoLive(v)) {
-          // here it has a start time and no end time - It's live!
-          if (current != null) {
-            if (isFirstVideoScheduledAfterSecond(v, current)) {
-              current = v;
-            }
-          } else {
-            current = v;
-          }
-        } else {
-          upcomers.add(v);
+      try {
+        List<LiveShow> fetched = toLiveShows(detailsFetcher.fetch(relevantIds));
+        shows.clear();
+        for (LiveShow show : fetched) {
+          shows.put(show.getId(), show);
         }
+      } catch (IOException e) {
+        // carry on with what is already known so that status changes still happen on time
+        logger.error("Unable to get search for upcoming and live shows!", e);
       }
+    }
+
+    applyShows(relevantIds, new ArrayList<>(shows.values()));
+  }
 
-      upcomers.sort((o1, o2) -> {
-        DateTime d1 = o1.getLiveStreamingDetails().getScheduledStartTime();
-        DateTime d2 = o2.getLiveStreamingDetails().getScheduledStartTime();
-        return (int) (d1.getValue() - d2.getValue());
-      });
+  private void applyShows(Set<String> relevantIds, List<LiveShow> shows) {
+    long now = clock.millis();
 
-      relevantVideoIds = unverifiedVideoIds;
+    LiveShow current = null;
+    List<LiveShow> upcomers = new ArrayList<>();
+    for (LiveShow show : shows) {
 
-      currentLiveVideo = current;
-      upcomingVideos = upcomers;
+      if (show.hasEnded(now)) {
 
-    } catch (IOException e) {
-      logger.error("Unable to get search for upcoming and live shows!", e);
-    }
+        // it ended! It's no longer live, and we don't have to monitor it
+        relevantIds.remove(show.getId());
 
-    if (currentLiveVideo == null) {
-      logger.debug("Testing if first video is upcoming imminently...");
-      Video upcoming = isUpcomingVideoPending(upcomingVideos);
-      if (upcoming == null) {
-        rp.setStatusArchivedPlay();
+      } else if (show.isLive(now)) {
+        // here it has a start time and no end time - It's live!
+        if (current != null) {
+          if (show.isScheduledAfter(current)) {
+            current = show;
+          }
+        } else {
+          current = show;
+        }
       } else {
-        logger.debug("Video is upcoming");
-        rp.setStatusUpcoming();
+        upcomers.add(show);
       }
-    } else {
-      rp.setStatusLive();
     }
-  }
 
-  /**
-   * Get list of live shows.
-   */
-  @Deprecated
-  public void fetchLiveShowStatus() {
-    Set<String> currentLiveIds;
-    try {
-      currentLiveIds = YouTubeService.getCurrentAndUpcomingLiveShowIds();
-    } catch (IOException e) {
-      logger.error("Unable to get current live shows!", e);
-      return;
+    upcomers.sort(BY_SCHEDULED_START);
+
+    relevantVideoIds = relevantIds;
+
+    // shows are fetched afresh on every poll, keep the published ones unless something changed
+    if (Objects.equals(current, currentLiveShow) == false) {
+      currentLiveShow = current;
+    }
+    if (upcomers.equals(upcomingShows) == false) {
+      upcomingShows = Collections.unmodifiableList(upcomers);
     }
 
-    if (currentLiveIds.size() == 0) {
-      // nothing is live, so check to see if something is pending or just play from the archive
-      currentLiveVideo = null;
+    publish(now);
 
+    timeline.rearm(shows, now);
+  }
+
+  /**
+   * Tell the radio player what is on air, or about to be.
+   */
+  private void publish(long nowMillis) {
+    BroadcastStatus status;
+    if (currentLiveShow == null) {
       logger.debug("Testing if first video is upcoming imminently...");
-      Video upcoming = isUpcomingVideoPending(upcomingVideos);
+      LiveShow upcoming = findPendingShow(upcomingShows, nowMillis);
       if (upcoming == null) {
-        rp.setStatusArchivedPlay();
+        status = BroadcastStatus.ARCHIVE;
       } else {
         logger.debug("Video is upcoming");
-        rp.setStatusUpcoming();
+        status = BroadcastStatus.UPCOMING;
       }
     } else {
-      // something is live!
-      Video currentLive;
-
-      try {
-        if (currentLiveIds.size() > 1) {
-          // oh god, more than one this is live! Figure out which one should be the canonical live
-
-          List<Video> currentLives;
-          currentLives = YouTubeService.getUpcomingShowDetails(currentLiveIds);
-
-          Video mostRecentlyScheduledLive = null;
-          ZonedDateTime now = ZonedDateTime.now();
-          ZonedDateTime mostRecentlyScheduledTime = ZonedDateTime.now().minusYears(10);
-          for (Video v : currentLives) {
-            ZonedDateTime scheduled =
-                ZonedDateTime.ofInstant(Instant.ofEpochSecond(
-                    v.getLiveStreamingDetails().getScheduledStartTime().getValue()),
-                    ZoneOffset.UTC);
-
-            if (now.isAfter(scheduled)) { // i
-              if (scheduled.isAfter(mostRecentlyScheduledTime)) {
-                mostRecentlyScheduledLive = v;
-                mostRecentlyScheduledTime = scheduled;
-              }
-            }
-          }
+      status = BroadcastStatus.LIVE;
+    }
 
-          if (mostRecentlyScheduledLive == null) {
-            logger.warn("There are two different videos that have started before their scheduled "
-                + "time... the DJs must be whipped. Just pick a current live at random.");
-            currentLive = currentLives.get(0);
-          } else {
-            currentLive = mostRecentlyScheduledLive;
-          }
+    RadioPlayerState s = rp.getState();
+    if (isPublished && s.getStatus() == status && s.getCurrentLiveShow() == currentLiveShow
+        && s.getUpcomingShows() == upcomingShows) {
+      // nothing changed, the radio player and everyone listening to it can be left alone
+      return;
+    }
 
-        } else {
-          currentLive = YouTubeService.getUpcomingShowDetails(currentLiveIds).get(0);
-        }
-      } catch (IOException e) {
-        logger.error("Unable to get information about current live shows!", e);
-        currentLive = null;
-      }
+    isPublished = true;
+    rp.setLiveShows(status, currentLiveShow, upcomingShows);
+  }
 
-      if (currentLive != null
-          && (currentLiveVideo == null
-          || currentLiveVideo.getId().equals(currentLive.getId()) == false)) {
-        currentLiveVideo = currentLive;
+  /**
+   * Is a live stream on air. Only YouTube can say when it ends, so it has to be polled for.
+   *
+   * @return true if the current live show is a live stream rather than a premiere
+   */
+  public boolean isLiveStreamOn() {
+    LiveShow current = getCurrentLiveShow();
+    return current != null && current.isPremiere() == false;
+  }
 
-        // remove from upcoming as this information will always be the most recent.
-        upcomingVideos.removeIf(v -> v.getId().equals(currentLiveVideo.getId()));
+  /**
+   * Is a live stream about to start. Only YouTube can say when it does, so it has to be polled
+   * for.
+   *
+   * @param nowMillis Current time in epoch milliseconds
+   * @return true if an upcoming live stream is pending
+   */
+  public boolean isLiveStreamPending(long nowMillis) {
+    for (LiveShow show : getUpcomingShows()) {
+      if (show.isPremiere() == false && show.isPending(nowMillis)) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-        rp.setStatusLive();
+  /**
+   * Get when the next upcoming live stream starts being pending.
+   *
+   * @param nowMillis Current time in epoch milliseconds
+   * @return epoch milliseconds, or {@link LiveShow#NOT_SET} if no live stream is coming up
+   */
+  public long getNextLiveStreamPendingMillis(long nowMillis) {
+    long next = LiveShow.NOT_SET;
+    for (LiveShow show : getUpcomingShows()) {
+      long from = show.getPendingFromMillis();
+      if (show.isPremiere() == false && from != LiveShow.NOT_SET && from >= nowMillis
+          && (next == LiveShow.NOT_SET || from < next)) {
+        next = from;
       }
     }
+    return next;
   }
 
-  private Video fetchVideo(String videoId) throws IOException {
+  /**
+   * Get when the show timeline next wakes the live player up.
+   *
+   * @return epoch milliseconds, or {@link LiveShow#NOT_SET} if no show transition is ahead
+   */
+  public long getNextTransitionMillis() {
+    return timeline.getArmedForMillis();
+  }
+
+  private static LiveShow fetchShow(String videoId) throws IOException {
 
     List<Video> videos = YouTubeService.getUpcomingShowDetails(Collections.singletonList(videoId));
 
     if (videos.isEmpty()) {
-      throw new IOException("I can't find " + videoId);
+      return null;
     }
 
-    Video v = videos.get(0);
+    LiveShow show = LiveShow.fromVideo(videos.get(0));
 
-    if (v.getSnippet().getChannelId().equals(ApiManager.getChannelId()) == false) {
-      throw new IOException("I can't find " + videoId);
+    if (ApiManager.getChannelId().equals(show.getChannelId()) == false) {
+      return null;
     }
 
-    return v;
+    return show;
   }
 
+  /**
+   * Check a video someone wants to track, and start keeping an eye on it if it is new.
+   *
+   * <p>
+   * Lookups go through {@link ShowLookup}, so a burst of requests for the same id costs a single
+   * API call. A new show is tracked with the details just fetched rather than asking again.
+   * </p>
+   *
+   * @param videoId Id of the video
+   * @return the video and whether it was new to the player
+   * @throws IOException Thrown if the video is not a show of the channel, or if there is an issue
+   *                     with the YouTube API
+   */
   public FoundVideo checkVideoId(String videoId) throws IOException {
+    LiveShow v = showLookup.lookup(videoId);
 
-    Video v = fetchVideo(videoId);
-
-    boolean foundInUpcoming = upcomingVideos.stream().anyMatch(x -> x.getId().equals(v.getId()));
-    boolean foundAsLive = currentLiveVideo != null && currentLiveVideo.getId().equals(v.getId());
-
-    // already known to the player
-    FoundVideo fv;
-    if (foundInUpcoming || foundAsLive) {
-      fv = new FoundVideo(v, false);
-    } else {
-      fv = new FoundVideo(v, true);
-
-      Set<String> show = new HashSet<>();
-      show.add(v.getId());
-      fetchBroadcastStatusOfRelevantIds(show);
+    Consumer<LiveShow> forwarder = trackForwarder;
+    if (forwarder != null) {
+      boolean isNew = isKnown(v.getId()) == false;
+      forwarder.accept(v);
+      return new FoundVideo(v, isNew);
     }
 
-    return fv;
+    return new FoundVideo(v, track(v));
   }
 
   /**
-   * Get list of upcoming shows.
+   * Start keeping an eye on a show that has already been fetched, such as one sent to /track on
+   * an instance that is following this one.
+   *
+   * @param show The show
+   * @return true if it was new to the player
    */
-  @Deprecated
-  public void fetchUpcomingShowStatus() {
-    List<Video> fetchedVideos = new ArrayList<>();
+  public boolean track(LiveShow show) {
+    return submit(new Command(null, show)).join();
+  }
 
-    try {
-      List<String> currentUpcomingIds = YouTubeService.getUpcomingShowIds();
-      fetchedVideos = YouTubeService.getUpcomingShowDetails(currentUpcomingIds);
-    } catch (IOException e) {
-      logger.error("Unable to get upcoming live shows!", e);
-    }
+  /**
+   * Send the shows sent to /track somewhere else rather than tracking them here, while another
+   * instance is leading.
+   *
+   * @param trackForwarder Where to send them, or null to track them here again
+   */
+  public void setTrackForwarder(Consumer<LiveShow> trackForwarder) {
+    this.trackForwarder = trackForwarder;
+  }
 
-    fetchedVideos.sort((o1, o2) -> {
-      DateTime d1 = o1.getLiveStreamingDetails().getScheduledStartTime();
-      DateTime d2 = o2.getLiveStreamingDetails().getScheduledStartTime();
-      return (int) (d1.getValue() - d2.getValue());
-    });
+  private boolean isKnown(String videoId) {
+    RadioPlayerState s = rp.getState();
+    if (s.getCurrentLiveShow() != null && s.getCurrentLiveShow().getId().equals(videoId)) {
+      return true;
+    }
+    for (LiveShow show : s.getUpcomingShows()) {
+      if (show.getId().equals(videoId)) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-    // assign to global member only after sorting
-    upcomingVideos = fetchedVideos;
+  /**
+   * Get the live show on air, as last published.
+   *
+   * @return the show, or null if nothing is live
+   */
+  public LiveShow getCurrentLiveShow() {
+    return rp.getState().getCurrentLiveShow();
   }
 
-  public Video getCurrentLiveVideo() {
-    return currentLiveVideo;
+  /**
+   * Get the upcoming shows, as last published.
+   *
+   * @return unmodifiable list of shows sorted by scheduled time
+   */
+  public List<LiveShow> getUpcomingShows() {
+    return rp.getState().getUpcomingShows();
   }
 
-  public List<Video> getUpcomingVideos() {
-    return upcomingVideos;
+  private static List<LiveShow> toLiveShows(List<Video> videos) {
+    List<LiveShow> shows = new ArrayList<>(videos.size());
+    for (Video v : videos) {
+      shows.add(LiveShow.fromVideo(v));
+    }
+    return shows;
   }
 
+  /**
+   * Examines the scheduled times to see if there is a show that is starting imminently.
+   *
+   * @param upcoming  Shows sorted by scheduled time
+   * @param nowMillis Current time in epoch milliseconds
+   * @return the pending show, or null if there is none
+   */
+  private static LiveShow findPendingShow(List<LiveShow> upcoming, long nowMillis) {
+    for (LiveShow show : upcoming) {
+      if (show.isPending(nowMillis)) {
+        return show;
+      }
+    }
+
+    return null;
+  }
 }
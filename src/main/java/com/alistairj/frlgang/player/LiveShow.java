@@ -0,0 +1,378 @@
+package com.alistairj.frlgang.player;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.Thumbnail;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoContentDetails;
+import com.google.api.services.youtube.model.VideoLiveStreamingDetails;
+import com.google.api.services.youtube.model.VideoSnippet;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A live stream or premiere the live player is keeping an eye on.
+ *
+ * <p>
+ * Built once from a YouTube {@link Video} when it is fetched, with every time turned into epoch
+ * milliseconds and the duration and thumbnail worked out up front. Checking whether a show is
+ * live, pending or over is then just comparing longs, however often the broadcast status is
+ * polled.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public final class LiveShow {
+
+  /**
+   * Used for any time YouTube did not give.
+   */
+  public static final long NOT_SET = Long.MIN_VALUE;
+
+  private static final String DEFAULT_THUMBNAIL_URL =
+      "https://img.discogs.com/oAOHL8Zan84rK6JiRUs60breU68=/fit-in/600x601/filters:strip_icc():format(jpeg):mode_rgb():quality(90)/discogs-images/R-3471433-1331680516.jpeg.jpg";
+
+  private static final int DEFAULT_THUMBNAIL_SIZE = 600;
+
+  private static final String LIVE_STREAM_DURATION = "P0D";
+
+  private static final long PENDING_FROM_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+  private static final long PENDING_UNTIL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  /**
+   * Premieres play YouTube's countdown before the video itself.
+   */
+  private static final long PREMIERE_COUNTDOWN_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+  private final String id;
+
+  private final String title;
+
+  private final String channelId;
+
+  private final long scheduledStartMillis;
+
+  private final String scheduledStartRfc3339;
+
+  private final long actualStartMillis;
+
+  private final long actualEndMillis;
+
+  private final long durationInSeconds;
+
+  private final boolean isPremiere;
+
+  private final String thumbnailUrl;
+
+  private final int thumbnailWidth;
+
+  private final int thumbnailHeight;
+
+  private LiveShow(String id, String title, String channelId, DateTime scheduledStart,
+      DateTime actualStart, DateTime actualEnd, long durationInSeconds, boolean isPremiere,
+      String thumbnailUrl, int thumbnailWidth, int thumbnailHeight) {
+    this(id, title, channelId,
+        scheduledStart == null ? NOT_SET : scheduledStart.getValue(),
+        scheduledStart == null ? null : scheduledStart.toStringRfc3339(),
+        actualStart == null ? NOT_SET : actualStart.getValue(),
+        actualEnd == null ? NOT_SET : actualEnd.getValue(),
+        durationInSeconds, isPremiere, thumbnailUrl, thumbnailWidth, thumbnailHeight);
+  }
+
+  private LiveShow(String id, String title, String channelId, long scheduledStartMillis,
+      String scheduledStartRfc3339, long actualStartMillis, long actualEndMillis,
+      long durationInSeconds, boolean isPremiere, String thumbnailUrl, int thumbnailWidth,
+      int thumbnailHeight) {
+    this.id = id;
+    this.title = title;
+    this.channelId = channelId;
+    this.scheduledStartMillis = scheduledStartMillis;
+    this.scheduledStartRfc3339 = scheduledStartRfc3339;
+    this.actualStartMillis = actualStartMillis;
+    this.actualEndMillis = actualEndMillis;
+    this.durationInSeconds = durationInSeconds;
+    this.isPremiere = isPremiere;
+    this.thumbnailUrl = thumbnailUrl;
+    this.thumbnailWidth = thumbnailWidth;
+    this.thumbnailHeight = thumbnailHeight;
+  }
+
+  /**
+   * Build a LiveShow from a video. It should have at least the "snippet", "liveStreamingDetails"
+   * and "contentDetails" parts.
+   *
+   * @param v Video to build from
+   * @return the show
+   */
+  public static LiveShow fromVideo(Video v) {
+    VideoSnippet snippet = v.getSnippet();
+    VideoLiveStreamingDetails details = v.getLiveStreamingDetails();
+    VideoContentDetails contentDetails = v.getContentDetails();
+
+    // live streams have no duration until they are over, premieres are uploaded videos
+    String isoDuration = contentDetails == null ? null : contentDetails.getDuration();
+    boolean isPremiere = isoDuration != null && LIVE_STREAM_DURATION.equals(isoDuration) == false;
+
+    String thumbnailUrl = DEFAULT_THUMBNAIL_URL;
+    int thumbnailWidth = DEFAULT_THUMBNAIL_SIZE;
+    int thumbnailHeight = DEFAULT_THUMBNAIL_SIZE;
+    Thumbnail t = snippet == null || snippet.getThumbnails() == null ? null
+        : snippet.getThumbnails().getStandard();
+    if (t != null && t.getUrl() != null && t.getWidth() != null && t.getHeight() != null) {
+      thumbnailUrl = t.getUrl();
+      thumbnailWidth = t.getWidth().intValue();
+      thumbnailHeight = t.getHeight().intValue();
+    }
+
+    return new LiveShow(v.getId(),
+        snippet == null ? null : snippet.getTitle(),
+        snippet == null ? null : snippet.getChannelId(),
+        details == null ? null : details.getScheduledStartTime(),
+        details == null ? null : details.getActualStartTime(),
+        details == null ? null : details.getActualEndTime(),
+        parseDurationInSeconds(isoDuration), isPremiere,
+        thumbnailUrl, thumbnailWidth, thumbnailHeight);
+  }
+
+  /**
+   * Write the show out, to be read back by {@link #readFrom(DataInput)} on another instance.
+   *
+   * @param out Where to write it
+   * @throws IOException Thrown if it cannot be written
+   */
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeUTF(id);
+    writeNullableUtf(out, title);
+    writeNullableUtf(out, channelId);
+    out.writeLong(scheduledStartMillis);
+    writeNullableUtf(out, scheduledStartRfc3339);
+    out.writeLong(actualStartMillis);
+    out.writeLong(actualEndMillis);
+    out.writeLong(durationInSeconds);
+    out.writeBoolean(isPremiere);
+    out.writeUTF(thumbnailUrl);
+    out.writeInt(thumbnailWidth);
+    out.writeInt(thumbnailHeight);
+  }
+
+  /**
+   * Read a show written by {@link #writeTo(DataOutput)}.
+   *
+   * @param in Where to read it from
+   * @return the show
+   * @throws IOException Thrown if it cannot be read
+   */
+  public static LiveShow readFrom(DataInput in) throws IOException {
+    return new LiveShow(in.readUTF(), readNullableUtf(in), readNullableUtf(in), in.readLong(),
+        readNullableUtf(in), in.readLong(), in.readLong(), in.readLong(), in.readBoolean(),
+        in.readUTF(), in.readInt(), in.readInt());
+  }
+
+  private static void writeNullableUtf(DataOutput out, String s) throws IOException {
+    out.writeBoolean(s != null);
+    if (s != null) {
+      out.writeUTF(s);
+    }
+  }
+
+  private static String readNullableUtf(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static long parseDurationInSeconds(String isoDuration) {
+    if (isoDuration == null) {
+      return 0;
+    }
+
+    try {
+      return Duration.parse(isoDuration).getSeconds();
+    } catch (DateTimeParseException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Has the show ended.
+   *
+   * @param nowMillis Current time in epoch milliseconds
+   * @return true if it has ended
+   */
+  public boolean hasEnded(long nowMillis) {
+    if (actualEndMillis != NOT_SET) {
+      return true;
+    }
+
+    // premieres, and the odd live stream that YouTube gives a duration, end on their own
+    long scheduledEndMillis = getScheduledEndMillis();
+    return scheduledEndMillis != NOT_SET && nowMillis > scheduledEndMillis;
+  }
+
+  /**
+   * Is the show on right now. Does not check if it has ended.
+   *
+   * @param nowMillis Current time in epoch milliseconds
+   * @return true if it has started
+   */
+  public boolean isLive(long nowMillis) {
+    if (isPremiere) {
+      return scheduledStartMillis != NOT_SET && nowMillis > scheduledStartMillis;
+    }
+
+    return actualStartMillis != NOT_SET;
+  }
+
+  /**
+   * Is the show about to start, or late to start.
+   *
+   * @param nowMillis Current time in epoch milliseconds
+   * @return true if now is just before or a little after the scheduled start
+   */
+  public boolean isPending(long nowMillis) {
+    return scheduledStartMillis != NOT_SET
+        && nowMillis > getPendingFromMillis()
+        && nowMillis < getPendingUntilMillis();
+  }
+
+  /**
+   * Get when the show starts being pending.
+   *
+   * @return epoch milliseconds, or {@link #NOT_SET} if the show is not scheduled
+   */
+  public long getPendingFromMillis() {
+    return scheduledStartMillis == NOT_SET ? NOT_SET : scheduledStartMillis - PENDING_FROM_MILLIS;
+  }
+
+  /**
+   * Get when the show stops being pending if it has not started by then.
+   *
+   * @return epoch milliseconds, or {@link #NOT_SET} if the show is not scheduled
+   */
+  public long getPendingUntilMillis() {
+    return scheduledStartMillis == NOT_SET ? NOT_SET : scheduledStartMillis + PENDING_UNTIL_MILLIS;
+  }
+
+  /**
+   * Get when a premiere finishes playing. Live streams only end when YouTube says so.
+   *
+   * @return epoch milliseconds, or {@link #NOT_SET} if this is not a scheduled premiere
+   */
+  public long getScheduledEndMillis() {
+    if (isPremiere == false || scheduledStartMillis == NOT_SET) {
+      return NOT_SET;
+    }
+
+    return scheduledStartMillis + PREMIERE_COUNTDOWN_MILLIS
+        + TimeUnit.SECONDS.toMillis(durationInSeconds);
+  }
+
+  /**
+   * Is this show scheduled after the other one. A show with no scheduled time is never after one,
+   * and always after one without a scheduled time.
+   *
+   * @param other Show to compare to
+   * @return true if this one is scheduled later
+   */
+  public boolean isScheduledAfter(LiveShow other) {
+    if (scheduledStartMillis == NOT_SET) {
+      return false;
+    }
+
+    if (other.scheduledStartMillis == NOT_SET) {
+      return true;
+    }
+
+    return scheduledStartMillis > other.scheduledStartMillis;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getChannelId() {
+    return channelId;
+  }
+
+  public long getScheduledStartMillis() {
+    return scheduledStartMillis;
+  }
+
+  /**
+   * Get the scheduled start as YouTube gave it.
+   *
+   * @return RFC 3339 date time, or null if the show is not scheduled
+   */
+  public String getScheduledStartRfc3339() {
+    return scheduledStartRfc3339;
+  }
+
+  public long getActualStartMillis() {
+    return actualStartMillis;
+  }
+
+  public long getActualEndMillis() {
+    return actualEndMillis;
+  }
+
+  public long getDurationInSeconds() {
+    return durationInSeconds;
+  }
+
+  public boolean isPremiere() {
+    return isPremiere;
+  }
+
+  public String getThumbnailUrl() {
+    return thumbnailUrl;
+  }
+
+  public int getThumbnailWidth() {
+    return thumbnailWidth;
+  }
+
+  public int getThumbnailHeight() {
+    return thumbnailHeight;
+  }
+
+  /**
+   * Shows are equal when everything YouTube said about them is, so a poll that finds nothing new
+   * can be told apart from one that does.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    LiveShow other = (LiveShow) o;
+    return scheduledStartMillis == other.scheduledStartMillis
+        && actualStartMillis == other.actualStartMillis
+        && actualEndMillis == other.actualEndMillis
+        && durationInSeconds == other.durationInSeconds
+        && isPremiere == other.isPremiere
+        && thumbnailWidth == other.thumbnailWidth
+        && thumbnailHeight == other.thumbnailHeight
+        && Objects.equals(id, other.id)
+        && Objects.equals(title, other.title)
+        && Objects.equals(channelId, other.channelId)
+        && Objects.equals(scheduledStartRfc3339, other.scheduledStartRfc3339)
+        && Objects.equals(thumbnailUrl, other.thumbnailUrl);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, title, channelId, scheduledStartMillis, actualStartMillis,
+        actualEndMillis, durationInSeconds, isPremiere, thumbnailUrl);
+  }
+}
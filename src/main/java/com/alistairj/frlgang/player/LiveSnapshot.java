@@ -0,0 +1,157 @@
+package com.alistairj.frlgang.player;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The encoded /live response with a hole where the archive playhead goes.
+ *
+ * <p>
+ * Everything apart from the playhead is encoded once when the radio player state changes. On
+ * every request the current playhead is written between the head and the tail, so serving the
+ * response costs the same whatever the number of upcoming videos.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public final class LiveSnapshot {
+
+  /**
+   * Served until the radio player has found out what to play. Laid out like every other response
+   * so clients can rely on the fields being there, with a STARTING status.
+   */
+  public static final LiveSnapshot STARTING = new LiveSnapshot(-1,
+      ("{\"status\":\"STARTING\",\"archive_player\":{\"current\":{\"playhead\":")
+          .getBytes(StandardCharsets.UTF_8),
+      (",\"id\":null,\"title\":null,\"duration_in_seconds\":0},\"next\":null},"
+          + "\"live_player\":{\"current\":null,\"upcoming\":[]}}")
+          .getBytes(StandardCharsets.UTF_8),
+      "starting");
+
+  private final long stateVersion;
+
+  private final byte[] head;
+
+  private final byte[] tail;
+
+  private final String contentTag;
+
+  /**
+   * Build a new LiveSnapshot.
+   *
+   * @param stateVersion Radio player state version the snapshot was built from
+   * @param head         Encoded response up to the playhead value
+   * @param tail         Encoded response after the playhead value
+   * @param contentTag   Tag that only changes when the head or tail change
+   */
+  public LiveSnapshot(long stateVersion, byte[] head, byte[] tail, String contentTag) {
+    this.stateVersion = stateVersion;
+    this.head = head;
+    this.tail = tail;
+    this.contentTag = contentTag;
+  }
+
+  /**
+   * Same content, newer state version. Used when a rebuild produced identical bytes.
+   */
+  LiveSnapshot withStateVersion(long newStateVersion) {
+    return new LiveSnapshot(newStateVersion, head, tail, contentTag);
+  }
+
+  public long getStateVersion() {
+    return stateVersion;
+  }
+
+  public String getContentTag() {
+    return contentTag;
+  }
+
+  /**
+   * Strong ETag of the response for the given playhead.
+   *
+   * @param playhead Archive playhead in seconds
+   * @return quoted ETag
+   */
+  public String getETag(long playhead) {
+    return "\"" + contentTag + "-" + playhead + "\"";
+  }
+
+  public int getContentLength(long playhead) {
+    return head.length + digitCount(playhead) + tail.length;
+  }
+
+  /**
+   * Write the full response with the given playhead patched in.
+   *
+   * @param os       Stream to write to
+   * @param playhead Archive playhead in seconds
+   * @throws IOException Thrown if the stream cannot be written to
+   */
+  public void writeTo(OutputStream os, long playhead) throws IOException {
+    os.write(head);
+    writeDigits(os, playhead);
+    os.write(tail);
+  }
+
+  /**
+   * Check an If-None-Match header against an ETag.
+   *
+   * @param ifNoneMatch Value of the If-None-Match request header, can be null
+   * @param etag        Current quoted ETag
+   * @return true if the client already has this response
+   */
+  public static boolean isNotModified(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+      return false;
+    }
+
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.equals("*")) {
+        return true;
+      }
+
+      // If-None-Match uses the weak comparison
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+
+      if (candidate.equals(etag)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static int digitCount(long value) {
+    if (value < 0) {
+      return 1 + digitCount(-value);
+    }
+
+    int count = 1;
+    while (value >= 10) {
+      value /= 10;
+      count++;
+    }
+    return count;
+  }
+
+  private static void writeDigits(OutputStream os, long value) throws IOException {
+    if (value < 0) {
+      os.write('-');
+      value = -value;
+    }
+
+    long divisor = 1;
+    while (value / divisor >= 10) {
+      divisor *= 10;
+    }
+
+    while (divisor > 0) {
+      os.write((int) ('0' + (value / divisor) % 10));
+      divisor /= 10;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.alistairj.frlgang.player;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the encoded /live response for the radio player and only re-encodes it when the radio
+ * player state version changes.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LiveSnapshotCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(LiveSnapshotCache.class);
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private volatile LiveSnapshot snapshot;
+
+  /**
+   * Get the snapshot for a radio player state, rebuilding it if the state is newer.
+   *
+   * @param state Radio player state the caller read
+   * @return a snapshot of exactly that state
+   * @throws IOException Thrown if there is no snapshot yet and one cannot be built
+   */
+  public LiveSnapshot get(RadioPlayerState state) throws IOException {
+    LiveSnapshot current = snapshot;
+
+    if (current != null && current.getStateVersion() == state.getVersion()) {
+      return current;
+    }
+
+    return rebuild(state);
+  }
+
+  private synchronized LiveSnapshot rebuild(RadioPlayerState state) throws IOException {
+    long stateVersion = state.getVersion();
+    LiveSnapshot current = snapshot;
+
+    // someone else rebuilt it while we were waiting
+    if (current != null && current.getStateVersion() == stateVersion) {
+      return current;
+    }
+
+    // the state moved on since the caller read it, don't go back to an older snapshot
+    if (current != null && current.getStateVersion() > stateVersion) {
+      return encode(state);
+    }
+
+    LiveSnapshot built;
+    try {
+      built = encode(state);
+    } catch (Exception e) {
+      if (current == null) {
+        throw new IOException("Unable to build the live snapshot", e);
+      }
+      logger.error("Unable to rebuild the live snapshot, serving the previous one", e);
+      return current;
+    }
+
+    if (current != null && current.getContentTag().equals(built.getContentTag())) {
+      // the version moved but nothing that is served changed, keep the same ETag
+      built = current.withStateVersion(stateVersion);
+    } else {
+      logger.debug("Rebuilt live snapshot for state version {}", stateVersion);
+    }
+
+    snapshot = built;
+    return built;
+  }
+
+  private LiveSnapshot encode(RadioPlayerState state) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+    PlayheadHole hole = new PlayheadHole(out);
+
+    try (JsonGenerator g = JSON_FACTORY.createGenerator(out)) {
+      RadioPlayerSerializer.writeRadioPlayer(state, g, hole);
+    }
+
+    byte[] bytes = out.toByteArray();
+    byte[] head = Arrays.copyOfRange(bytes, 0, hole.offset);
+    byte[] tail = Arrays.copyOfRange(bytes, hole.offset, bytes.length);
+
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, bytes.length);
+    String contentTag = Long.toHexString(crc.getValue()) + Integer.toHexString(bytes.length);
+
+    return new LiveSnapshot(state.getVersion(), head, tail, contentTag);
+  }
+
+  /**
+   * Writes nothing where the playhead value belongs, and remembers how far into the output that
+   * is.
+   */
+  private static class PlayheadHole implements RadioPlayerSerializer.PlayheadWriter {
+
+    private final ByteArrayOutputStream out;
+
+    private int offset = -1;
+
+    PlayheadHole(ByteArrayOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void writePlayhead(JsonGenerator g, long playheadInSeconds) throws IOException {
+      // an empty value still writes the separator, then everything before the hole is flushed
+      g.writeRawValue("");
+      g.flush();
+      offset = out.size();
+    }
+  }
+}
@@ -1,7 +1,15 @@
 package com.alistairj.frlgang.player;
 
 import com.alistairj.frlgang.player.archive.ArchivePlayer;
+import com.alistairj.frlgang.player.archive.ArchiveState;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Radio player consists of an archive player and a live player. It controls the two and switches
@@ -16,7 +24,20 @@ public class RadioPlayer {
 
   private final LivePlayer livePlayer;
 
-  private BroadcastStatus status = BroadcastStatus.ARCHIVE;
+  /**
+   * Replaced whole on every change and read without locking.
+   */
+  private final AtomicReference<RadioPlayerState> state =
+      new AtomicReference<>(RadioPlayerState.INITIAL);
+
+  private final List<RadioPlayerListener> listeners = new CopyOnWriteArrayList<>();
+
+  private final boolean isFollowing;
+
+  /**
+   * Set once the live shows have been published, whether found here or sent by the leader.
+   */
+  private volatile boolean isLiveShowsKnown = false;
 
   /**
    * Constructor for RadioPlayer.
@@ -26,28 +47,152 @@ public class RadioPlayer {
    * </p>
    */
   public RadioPlayer() {
-    archivePlayer = new ArchivePlayer();
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Build a RadioPlayer whose live player keeps time on the given clock, for replays.
+   *
+   * @param clock Clock to tell whether shows are on air by
+   */
+  public RadioPlayer(Clock clock) {
+    this(clock, false);
+    start();
+  }
+
+  /**
+   * Build a RadioPlayer without asking the YouTube API anything, so it can be served straight
+   * away. It plays from the saved archive catalog, if there is one, until it is started.
+   *
+   * @param clock       Clock to tell whether shows are on air by
+   * @param isFollowing True to wait for live shows and the archive catalog from the instance
+   *                    that is leading, rather than asking the YouTube API
+   */
+  public RadioPlayer(Clock clock, boolean isFollowing) {
+    this.isFollowing = isFollowing;
+    archivePlayer = new ArchivePlayer(isFollowing);
+    archivePlayer.setStateListener(this::onArchiveState);
     archivePlayer.play();
-    livePlayer = new LivePlayer(this);
+    livePlayer = new LivePlayer(this, clock);
   }
 
-  public synchronized BroadcastStatus getStatus() {
-    return status;
+  /**
+   * Build a RadioPlayer around an existing archive player and known live shows instead of asking
+   * the YouTube API, for benchmarks and tests.
+   *
+   * @param archivePlayer   The archive player to play from
+   * @param currentLiveShow The live show or null if nothing is live
+   * @param upcomingShows   Upcoming shows sorted by scheduled time
+   */
+  RadioPlayer(ArchivePlayer archivePlayer, LiveShow currentLiveShow, List<LiveShow> upcomingShows) {
+    this.isFollowing = false;
+    this.archivePlayer = archivePlayer;
+    archivePlayer.setStateListener(this::onArchiveState);
+    onArchiveState(archivePlayer.getState());
+    livePlayer = new LivePlayer(this, currentLiveShow, upcomingShows);
   }
 
-  synchronized void setStatusLive() {
-    status = BroadcastStatus.LIVE;
-    archivePlayer.stop();
+  /**
+   * Fetch the archive, unless there was a saved catalog to play from, and the live shows, unless
+   * another instance sends them. Blocks until both are known.
+   *
+   * <p>
+   * MUST BE CALLED AFTER {@link com.alistairj.frlgang.ApiManager} IS INITIALIZED, unless following,
+   * when nothing is asked of YouTube.
+   * </p>
+   */
+  public void start() {
+    archivePlayer.start();
+    if (isFollowing == false) {
+      livePlayer.fetchUpcomingAndLiveShowIds();
+    }
   }
 
-  synchronized void setStatusUpcoming() {
-    status = BroadcastStatus.UPCOMING;
-    archivePlayer.stop();
+  /**
+   * Has the radio player found out what to play: the live shows have been published at least once
+   * and the archive has a video.
+   *
+   * @return true once there is something worth serving
+   */
+  public boolean isReady() {
+    return isLiveShowsKnown && state.get().getArchive().getCurrentVideo() != null;
   }
 
-  synchronized void setStatusArchivedPlay() {
-    status = BroadcastStatus.ARCHIVE;
-    archivePlayer.play();
+  /**
+   * Get everything the radio player serves, without locking anything.
+   *
+   * @return the latest state
+   */
+  public RadioPlayerState getState() {
+    return state.get();
+  }
+
+  public BroadcastStatus getStatus() {
+    return state.get().getStatus();
+  }
+
+  /**
+   * Publish what the live player found, or what the leading instance sent, and play or stop the
+   * archive to match.
+   *
+   * @param newStatus       Status to switch to
+   * @param currentLiveShow The live show or null if nothing is live
+   * @param upcomingShows   Unmodifiable list of upcoming shows sorted by scheduled time
+   */
+  public synchronized void setLiveShows(BroadcastStatus newStatus, LiveShow currentLiveShow,
+      List<LiveShow> upcomingShows) {
+    isLiveShowsKnown = true;
+    RadioPlayerState previous = state.get();
+
+    if (previous.getStatus() != newStatus
+        || previous.getCurrentLiveShow() != currentLiveShow
+        || previous.getUpcomingShows() != upcomingShows) {
+      previous = state.getAndUpdate(s -> s.withLive(newStatus, currentLiveShow, upcomingShows));
+
+      RadioPlayerState changed = state.get();
+      for (RadioPlayerListener listener : listeners) {
+        listener.onLiveShowsChanged(changed);
+      }
+    }
+
+    if (newStatus == BroadcastStatus.ARCHIVE) {
+      archivePlayer.play();
+    } else {
+      archivePlayer.stop();
+    }
+
+    BroadcastStatus oldStatus = previous.getStatus();
+    if (oldStatus != newStatus) {
+      Counter.builder("radio.status.transitions")
+          .description("Switches between archive, upcoming and live")
+          .tag("from", oldStatus.toString())
+          .tag("to", newStatus.toString())
+          .register(Metrics.globalRegistry)
+          .increment();
+
+      for (RadioPlayerListener listener : listeners) {
+        listener.onStatusChanged(newStatus);
+      }
+    }
+  }
+
+  private void onArchiveState(ArchiveState archive) {
+    RadioPlayerState previous = state.getAndUpdate(s -> s.withArchive(archive));
+
+    ArchivedVideo video = archive.getCurrentVideo();
+    if (video != previous.getArchive().getCurrentVideo()) {
+      for (RadioPlayerListener listener : listeners) {
+        listener.onTrackChanged(video);
+      }
+    }
+  }
+
+  public void addListener(RadioPlayerListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(RadioPlayerListener listener) {
+    listeners.remove(listener);
   }
 
   public ArchivePlayer getArchivePlayer() {
@@ -0,0 +1,37 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+
+/**
+ * Gets told about changes in the radio player as they happen.
+ *
+ * <p>
+ * Listeners are called on the thread making the change, so they should hand off anything slow.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public interface RadioPlayerListener {
+
+  /**
+   * The radio player switched between archive, upcoming and live.
+   *
+   * @param status The new status
+   */
+  void onStatusChanged(BroadcastStatus status);
+
+  /**
+   * The archive player moved on to the next video.
+   *
+   * @param video The video now playing, can be null if the archive queue ran dry
+   */
+  void onTrackChanged(ArchivedVideo video);
+
+  /**
+   * The status, the live show on air or the upcoming shows changed.
+   *
+   * @param state The state with the change in
+   */
+  default void onLiveShowsChanged(RadioPlayerState state) {
+  }
+}
@@ -1,27 +1,46 @@
 package com.alistairj.frlgang.player;
 
-import static com.alistairj.frlgang.utils.RadioPlayerUtils.writeVideoInfo;
+import static com.alistairj.frlgang.utils.RadioPlayerUtils.writeShowInfo;
 
-import com.alistairj.frlgang.player.archive.ArchivePlayer;
+import com.alistairj.frlgang.player.archive.ArchiveState;
 import com.alistairj.frlgang.player.archive.ArchivedVideo;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
-import com.google.api.services.youtube.model.Video;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Serialize radio player status into JSON.
  *
+ * <p>
+ * Everything is written from a single {@link RadioPlayerState}, so the response never mixes up
+ * state from before and after a change.
+ * </p>
+ *
  * @author Alistair Jones (alistair@ohalo.co)
  */
 public class RadioPlayerSerializer extends StdSerializer<RadioPlayer> {
 
   private static final Logger logger = LoggerFactory.getLogger(RadioPlayerSerializer.class);
 
+  private static final Timer serializeTimer = Timer.builder("radio.serialize")
+      .description("Time spent writing the radio player status")
+      .register(Metrics.globalRegistry);
+
+  /**
+   * Writes the value of the archive playhead.
+   */
+  @FunctionalInterface
+  interface PlayheadWriter {
+    void writePlayhead(JsonGenerator g, long playheadInSeconds) throws IOException;
+  }
+
   public RadioPlayerSerializer() {
     super(null, true);
   }
@@ -35,54 +54,97 @@ public class RadioPlayerSerializer extends StdSerializer<RadioPlayer> {
       throws IOException {
 
     try {
-      g.writeStartObject();
-      g.writeStringField("status", rp.getStatus().toString());
+      writeRadioPlayer(rp.getState(), g, JsonGenerator::writeNumber);
+    } catch (Exception e) {
+      logger.error("Exception when writing JSON: ", e);
+    }
+  }
 
-      ArchivePlayer ap = rp.getArchivePlayer();
-      g.writeObjectFieldStart("archive_player");
+  /**
+   * Write the radio player status.
+   *
+   * <p>
+   * The playhead value is left to the caller, so {@link LiveSnapshotCache} can leave a hole for it
+   * and patch it in later.
+   * </p>
+   *
+   * @param state    Radio player state to write
+   * @param g        Generator to write to
+   * @param playhead Writes the playhead value, given the playhead as of now
+   * @throws IOException Thrown if the generator cannot be written to
+   */
+  static void writeRadioPlayer(RadioPlayerState state, JsonGenerator g, PlayheadWriter playhead)
+      throws IOException {
+    long start = System.nanoTime();
+    try {
+      writeRadioPlayerFields(state, g, playhead, start);
+    } finally {
+      serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
 
-      ArchivedVideo av = ap.getCurrentVideo();
-      g.writeObjectFieldStart("current");
-      g.writeNumberField("playhead", ap.getCurrentPlayheadInSeconds());
-      g.writeStringField("id", av.getId());
-      g.writeStringField("title", av.getTitle());
-      g.writeNumberField("duration_in_seconds", av.getDurationInSeconds());
+  private static void writeRadioPlayerFields(RadioPlayerState state, JsonGenerator g,
+      PlayheadWriter playhead, long nowNanos) throws IOException {
+    g.writeStartObject();
+    g.writeStringField("status", state.getStatus().toString());
+
+    ArchiveState archive = state.getArchive();
+    g.writeObjectFieldStart("archive_player");
+
+    ArchivedVideo av = archive.getCurrentVideo();
+    g.writeObjectFieldStart("current");
+    g.writeFieldName("playhead");
+    playhead.writePlayhead(g, archive.getPlayheadInSeconds(nowNanos));
+    writeArchivedVideoFields(g, av);
+    g.writeEndObject();
+
+    av = archive.getNextVideo();
+    if (av == null) {
+      g.writeNullField("next");
+    } else {
+      g.writeObjectFieldStart("next");
+      writeArchivedVideoFields(g, av);
       g.writeEndObject();
+    }
 
-      av = ap.peekNextVideo();
-      g.writeObjectFieldStart("next");
-      g.writeStringField("id", av.getId());
-      g.writeStringField("title", av.getTitle());
-      g.writeNumberField("duration_in_seconds", av.getDurationInSeconds());
+    g.writeEndObject(); // end archive_player
+
+    g.writeObjectFieldStart("live_player");
+
+    LiveShow s = state.getCurrentLiveShow();
+    if (s == null) {
+      g.writeNullField("current");
+    } else {
+      g.writeObjectFieldStart("current");
+      writeShowInfo(g, s);
       g.writeEndObject();
+    } // end live_player current
 
-      g.writeEndObject(); // end archive_player
-
-      LivePlayer lp = rp.getLivePlayer();
-      g.writeObjectFieldStart("live_player");
-
-      Video v = lp.getCurrentLiveVideo();
-      if (v == null) {
-        g.writeNullField("current");
-      } else {
-        g.writeObjectFieldStart("current");
-        writeVideoInfo(g, v);
-        g.writeEndObject();
-      } // end live_player current
-
-      List<Video> vs = lp.getUpcomingVideos();
-      g.writeArrayFieldStart("upcoming");
-      for (Video video : vs) {
-        g.writeStartObject();
-        writeVideoInfo(g, video);
-        g.writeEndObject();
-      }
-      g.writeEndArray(); // end live_player upcoming
-      g.writeEndObject(); // end live_player
+    List<LiveShow> ss = state.getUpcomingShows();
+    g.writeArrayFieldStart("upcoming");
+    for (LiveShow show : ss) {
+      g.writeStartObject();
+      writeShowInfo(g, show);
       g.writeEndObject();
+    }
+    g.writeEndArray(); // end live_player upcoming
+    g.writeEndObject(); // end live_player
+    g.writeEndObject();
+  }
 
-    } catch (Exception e) {
-      logger.error("Exception when writing JSON: ", e);
+  /**
+   * Write the fields of an archived video. The archive queue can run dry, in which case the fields
+   * are still written so that clients can rely on them being there.
+   */
+  static void writeArchivedVideoFields(JsonGenerator g, ArchivedVideo av) throws IOException {
+    if (av == null) {
+      g.writeNullField("id");
+      g.writeNullField("title");
+      g.writeNumberField("duration_in_seconds", 0);
+    } else {
+      g.writeStringField("id", av.getId());
+      g.writeStringField("title", av.getTitle());
+      g.writeNumberField("duration_in_seconds", av.getDurationInSeconds());
     }
   }
-}
\ No newline at end of file
+}
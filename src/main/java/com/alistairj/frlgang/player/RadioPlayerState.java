@@ -0,0 +1,86 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.player.archive.ArchiveState;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything the radio player serves, as one consistent picture.
+ *
+ * <p>
+ * Never changed once built. The radio player swaps in a new one whenever the status, the archive
+ * player or the live shows change, so a request that reads the state once sees a status, an
+ * archive video and live shows that were all true at the same moment.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public final class RadioPlayerState {
+
+  static final RadioPlayerState INITIAL = new RadioPlayerState(0, BroadcastStatus.ARCHIVE,
+      ArchiveState.EMPTY, null, Collections.emptyList());
+
+  private final long version;
+
+  private final BroadcastStatus status;
+
+  private final ArchiveState archive;
+
+  private final LiveShow currentLiveShow;
+
+  private final List<LiveShow> upcomingShows;
+
+  private RadioPlayerState(long version, BroadcastStatus status, ArchiveState archive,
+      LiveShow currentLiveShow, List<LiveShow> upcomingShows) {
+    this.version = version;
+    this.status = status;
+    this.archive = archive;
+    this.currentLiveShow = currentLiveShow;
+    this.upcomingShows = upcomingShows;
+  }
+
+  RadioPlayerState withArchive(ArchiveState newArchive) {
+    return new RadioPlayerState(version + 1, status, newArchive, currentLiveShow, upcomingShows);
+  }
+
+  RadioPlayerState withLive(BroadcastStatus newStatus, LiveShow newCurrentLiveShow,
+      List<LiveShow> newUpcomingShows) {
+    return new RadioPlayerState(version + 1, newStatus, archive, newCurrentLiveShow,
+        newUpcomingShows);
+  }
+
+  /**
+   * Get the version of the state.
+   *
+   * @return a number that goes up every time a new state is swapped in
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  public BroadcastStatus getStatus() {
+    return status;
+  }
+
+  public ArchiveState getArchive() {
+    return archive;
+  }
+
+  /**
+   * Get the live show on air.
+   *
+   * @return the show, or null if nothing is live
+   */
+  public LiveShow getCurrentLiveShow() {
+    return currentLiveShow;
+  }
+
+  /**
+   * Get the upcoming shows.
+   *
+   * @return unmodifiable list of shows sorted by scheduled time
+   */
+  public List<LiveShow> getUpcomingShows() {
+    return upcomingShows;
+  }
+}
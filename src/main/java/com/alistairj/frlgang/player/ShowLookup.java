@@ -0,0 +1,155 @@
+package com.alistairj.frlgang.player;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Looks up the shows sent to /track without asking YouTube more than once for the same id.
+ *
+ * <p>
+ * When a DJ shares a link, lots of listeners track the same id at the same moment. Lookups of an
+ * id that is already being fetched wait for that fetch instead of starting their own, and the
+ * result is kept for a short while after. Ids that are not found, or belong to another channel,
+ * are remembered for longer. Failures are not kept, so the next lookup tries again.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ShowLookup {
+
+  private static final Logger logger = LoggerFactory.getLogger(ShowLookup.class);
+
+  static final long FOUND_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  static final long NOT_FOUND_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  /**
+   * Expired entries are swept out once there are this many.
+   */
+  private static final int SWEEP_ABOVE_SIZE = 1000;
+
+  /**
+   * Fetches a show from YouTube.
+   */
+  @FunctionalInterface
+  interface ShowLoader {
+
+    /**
+     * Fetch a show.
+     *
+     * @param videoId Id of the video
+     * @return the show, or null if there is no such video on the channel
+     * @throws IOException Thrown if there is an issue with the YouTube API
+     */
+    LiveShow load(String videoId) throws IOException;
+  }
+
+  private static final class Entry {
+
+    private final CompletableFuture<LiveShow> show = new CompletableFuture<>();
+
+    private volatile long expiresAtMillis = Long.MAX_VALUE;
+
+    boolean isFresh(long nowMillis) {
+      return show.isDone() == false || nowMillis < expiresAtMillis;
+    }
+  }
+
+  private final ShowLoader loader;
+
+  private final Clock clock;
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  ShowLookup(ShowLoader loader, Clock clock) {
+    this.loader = loader;
+    this.clock = clock;
+  }
+
+  /**
+   * Look up a show.
+   *
+   * @param videoId Id of the video
+   * @return the show
+   * @throws IOException Thrown if the video is not a show of the channel, or if there is an issue
+   *                     with the YouTube API
+   */
+  public LiveShow lookup(String videoId) throws IOException {
+    long now = clock.millis();
+
+    Entry[] created = new Entry[1];
+    Entry entry = entries.compute(videoId, (id, existing) -> {
+      if (existing != null && existing.isFresh(now)) {
+        return existing;
+      }
+      created[0] = new Entry();
+      return created[0];
+    });
+
+    if (entry == created[0]) {
+      countLookup("loaded");
+      load(videoId, entry);
+    } else {
+      countLookup(entry.show.isDone() ? "cached" : "coalesced");
+    }
+
+    LiveShow show = await(entry);
+    if (show == null) {
+      throw new IOException("I can't find " + videoId);
+    }
+    return show;
+  }
+
+  private void load(String videoId, Entry entry) {
+    try {
+      LiveShow show = loader.load(videoId);
+      entry.expiresAtMillis = clock.millis() + (show == null ? NOT_FOUND_TTL_MILLIS
+          : FOUND_TTL_MILLIS);
+      entry.show.complete(show);
+    } catch (IOException | RuntimeException e) {
+      entries.remove(videoId, entry);
+      entry.show.completeExceptionally(e);
+    }
+
+    if (entries.size() > SWEEP_ABOVE_SIZE) {
+      long now = clock.millis();
+      entries.values().removeIf(e -> e.isFresh(now) == false);
+      logger.debug("Swept show lookups, {} left", entries.size());
+    }
+  }
+
+  private static LiveShow await(Entry entry) throws IOException {
+    try {
+      return entry.show.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while looking up a show");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  private static void countLookup(String result) {
+    Counter.builder("track.lookups")
+        .description("Show look ups for /track")
+        .tag("result", result)
+        .register(Metrics.globalRegistry)
+        .increment();
+  }
+}
@@ -0,0 +1,127 @@
+package com.alistairj.frlgang.player;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wakes the live player up at the exact moments a tracked show can change what is on air.
+ *
+ * <p>
+ * Every scheduled show has a few instants where its state flips: the start and the end of its
+ * pending window, and for premieres the scheduled start and the computed end. A single wakeup is
+ * armed for whichever comes next, so transitions happen on time without polling for them.
+ * Premieres need nothing else as their whole run is known in advance. Live streams still need
+ * YouTube to say when they actually start and end, which is polled for separately.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ShowTimeline {
+
+  private static final Logger logger = LoggerFactory.getLogger(ShowTimeline.class);
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "show-timeline");
+        t.setDaemon(true);
+        return t;
+      });
+
+  private final Runnable onTransition;
+
+  private ScheduledFuture<?> wakeup;
+
+  private long armedForMillis = LiveShow.NOT_SET;
+
+  /**
+   * Build a new ShowTimeline.
+   *
+   * @param onTransition Called on the timeline thread whenever a transition is due
+   */
+  ShowTimeline(Runnable onTransition) {
+    this.onTransition = onTransition;
+  }
+
+  /**
+   * Arm the wakeup for the next transition of the given shows, replacing any armed before.
+   *
+   * @param shows     Every show being tracked
+   * @param nowMillis Current time in epoch milliseconds
+   */
+  synchronized void rearm(List<LiveShow> shows, long nowMillis) {
+    long next = nextTransition(shows, nowMillis);
+
+    if (wakeup != null && next == armedForMillis) {
+      return;
+    }
+
+    if (wakeup != null) {
+      wakeup.cancel(false);
+      wakeup = null;
+    }
+
+    armedForMillis = next;
+    if (next == LiveShow.NOT_SET) {
+      logger.trace("No show transitions ahead");
+      return;
+    }
+
+    // every check is strictly after the instant, so wake up just past it
+    long delayInMillis = next - nowMillis + 1;
+    logger.debug("Next show transition in {} ms", delayInMillis);
+    wakeup = scheduler.schedule(this::onWakeup, delayInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  synchronized long getArmedForMillis() {
+    return armedForMillis;
+  }
+
+  private void onWakeup() {
+    synchronized (this) {
+      wakeup = null;
+      armedForMillis = LiveShow.NOT_SET;
+    }
+
+    try {
+      onTransition.run();
+    } catch (RuntimeException e) {
+      logger.error("Unable to apply show transition", e);
+    }
+  }
+
+  /**
+   * Find the next instant at which any of the shows changes state.
+   *
+   * @param shows     Shows to look at
+   * @param nowMillis Current time in epoch milliseconds
+   * @return epoch milliseconds of the next transition at or after now, or {@link LiveShow#NOT_SET}
+   *     if there is none
+   */
+  static long nextTransition(List<LiveShow> shows, long nowMillis) {
+    long next = LiveShow.NOT_SET;
+
+    for (LiveShow show : shows) {
+      next = earliest(next, show.getPendingFromMillis(), nowMillis);
+      next = earliest(next, show.getPendingUntilMillis(), nowMillis);
+      if (show.isPremiere()) {
+        next = earliest(next, show.getScheduledStartMillis(), nowMillis);
+        next = earliest(next, show.getScheduledEndMillis(), nowMillis);
+      }
+    }
+
+    return next;
+  }
+
+  private static long earliest(long next, long candidate, long nowMillis) {
+    if (candidate == LiveShow.NOT_SET || candidate < nowMillis) {
+      return next;
+    }
+
+    return next == LiveShow.NOT_SET || candidate < next ? candidate : next;
+  }
+}
@@ -0,0 +1,200 @@
+package com.alistairj.frlgang.player.archive;
+
+import com.google.api.services.youtube.model.Thumbnail;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary copy of the archive kept on disk so that a restart can start playing without
+ * waiting for the whole archive playlist to be paged.
+ *
+ * <p>
+ * The file is a magic number and format version, a count, and then for every video its id,
+ * title, duration and thumbnail. Strings are written as an unsigned short byte length followed by
+ * UTF-8 bytes. It is written to a temporary file and moved into place so a crash half way through
+ * never leaves a broken catalog behind, and it is memory mapped when read. The file's last
+ * modified time is set to when the catalog was fetched, so every instance reading it works out
+ * the same changeover.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ArchiveCatalog {
+
+  private static final int MAGIC = 0x46524c43; // FRLC
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String CATALOG_PATH_PROPERTY = "archive.catalog.path";
+
+  private static final String DEFAULT_CATALOG_FILE_NAME = "efferalgang-archive.catalog";
+
+  private static final String PREVIOUS_SUFFIX = ".previous";
+
+  private ArchiveCatalog() {
+    // private constructor
+  }
+
+  /**
+   * Where the catalog lives. Can be set with the archive.catalog.path system property, otherwise
+   * it goes in the temporary directory.
+   *
+   * @return path to the catalog file
+   */
+  public static Path getDefaultPath() {
+    String path = System.getProperty(CATALOG_PATH_PROPERTY);
+    if (path != null && path.isEmpty() == false) {
+      return Paths.get(path);
+    }
+    return Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_CATALOG_FILE_NAME);
+  }
+
+  /**
+   * Where the catalog that stays on air until a newer one takes over is kept, next to the
+   * catalog.
+   *
+   * @param path Path to the catalog file
+   * @return path to the previous catalog file
+   */
+  public static Path getPreviousPath(Path path) {
+    return path.resolveSibling(path.getFileName() + PREVIOUS_SUFFIX);
+  }
+
+  /**
+   * Write the catalog, replacing any previous one.
+   *
+   * @param path   Where to write it
+   * @param videos The archive
+   * @throws IOException Thrown if the catalog cannot be written
+   */
+  public static void write(Path path, List<ArchivedVideo> videos) throws IOException {
+    write(path, videos, System.currentTimeMillis());
+  }
+
+  /**
+   * Write the catalog, replacing any previous one, as fetched at a given time.
+   *
+   * @param path            Where to write it
+   * @param videos          The archive
+   * @param fetchedAtMillis Wall-clock time the archive was fetched, saved as the last modified time
+   * @throws IOException Thrown if the catalog cannot be written
+   */
+  public static void write(Path path, List<ArchivedVideo> videos, long fetchedAtMillis)
+      throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(videos.size());
+
+        for (ArchivedVideo v : videos) {
+          writeString(out, v.getId());
+          writeString(out, v.getTitle());
+          out.writeLong(v.getDurationInSeconds());
+
+          Thumbnail t = v.getThumbnail();
+          if (t == null || t.getUrl() == null) {
+            out.writeBoolean(false);
+          } else {
+            out.writeBoolean(true);
+            writeString(out, t.getUrl());
+            out.writeLong(t.getWidth() == null ? 0 : t.getWidth());
+            out.writeLong(t.getHeight() == null ? 0 : t.getHeight());
+          }
+        }
+      }
+
+      // set before the move, so the catalog is never seen with the wrong time
+      Files.setLastModifiedTime(tmp, FileTime.fromMillis(fetchedAtMillis));
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Read the catalog.
+   *
+   * @param path Where to read it from
+   * @return The archive in the order it was written, empty if there is no catalog yet
+   * @throws IOException Thrown if the catalog exists but cannot be read
+   */
+  public static List<ArchivedVideo> read(Path path) throws IOException {
+    if (Files.exists(path) == false) {
+      return new ArrayList<>();
+    }
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("Not an archive catalog: " + path);
+      }
+
+      int formatVersion = buffer.getInt();
+      if (formatVersion != FORMAT_VERSION) {
+        throw new IOException("Unknown archive catalog version " + formatVersion + ": " + path);
+      }
+
+      int count = buffer.getInt();
+      List<ArchivedVideo> videos = new ArrayList<>(count);
+
+      for (int i = 0; i < count; i++) {
+        String id = readString(buffer);
+        String title = readString(buffer);
+        long duration = buffer.getLong();
+
+        Thumbnail thumbnail = null;
+        if (buffer.get() != 0) {
+          thumbnail = new Thumbnail()
+              .setUrl(readString(buffer))
+              .setWidth(buffer.getLong())
+              .setHeight(buffer.getLong());
+        }
+
+        videos.add(new ArchivedVideo(id, title, duration, thumbnail));
+      }
+
+      return videos;
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Archive catalog is truncated: " + path, e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFFFF) {
+      throw new IOException("String is too long for the archive catalog");
+    }
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getShort() & 0xFFFF;
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
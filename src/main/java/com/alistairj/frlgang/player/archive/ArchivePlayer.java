@@ -2,13 +2,25 @@ package com.alistairj.frlgang.player.archive;
 
 import com.alistairj.frlgang.YouTubeService;
 import com.alistairj.frlgang.player.ArchivePlayerSerializer;
-import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.ReentrantLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +28,43 @@ import org.slf4j.LoggerFactory;
  * Archive player manages a queue of archived videos and tracks a playhead so that all web
  * players will start at the same time.
  *
+ * <p>
+ * What plays when is set by an {@link ArchiveSchedule}, so every instance with the same catalog
+ * plays the same video at the same moment, and any number of them can serve listeners behind a
+ * load balancer without talking to each other. The schedule keeps running while a live show is
+ * on, and the archive picks up wherever the schedule has got to when it is played again. The
+ * seed, the epoch and the recency window of the schedule can be set with the
+ * archive.rotation.seed, archive.schedule.epoch and archive.rotation.window system properties,
+ * and have to match on every instance.
+ * </p>
+ *
+ * <p>
+ * The playhead is not counted up, it is worked out from the monotonic clock and the instant the
+ * current video started. Moving on to the next video happens lazily when the playhead is read,
+ * or from a single wakeup scheduled for the exact end of the current video. Only a short
+ * look-ahead of the schedule is queued.
+ * </p>
+ *
+ * <p>
+ * The catalog is fetched again on its own refill thread an hour before every day of the schedule
+ * starts, so moving on to the next video never waits on the YouTube API. A changed catalog takes
+ * over once the video playing as the new day starts has finished, which is when every other
+ * instance changes over too. A catalog fetched at any other time, such as just after starting,
+ * waits for the day after unless there is nothing to play yet. An instance following another one
+ * on the same host reads the catalog the leader saves instead, every few minutes, and changes
+ * over as if it had fetched it when the leader did.
+ * </p>
+ *
+ * <p>
+ * Until a changed catalog takes over, the catalog on air is saved next to it, so an instance
+ * started in between plays the same catalog as the others and changes over with them.
+ * </p>
+ *
+ * <p>
+ * Every change is published as an immutable {@link ArchiveState}, so reading what is playing never
+ * waits for the lock.
+ * </p>
+ *
  * @author Alistair Jones (alistair@ohalo.co)
  */
 @JsonSerialize(using = ArchivePlayerSerializer.class)
@@ -23,70 +72,497 @@ public class ArchivePlayer {
 
   private static final Logger logger = LoggerFactory.getLogger(ArchivePlayer.class);
 
+  /**
+   * How long to wait before trying again when the queue is empty.
+   */
+  private static final long EMPTY_QUEUE_RETRY_MILLIS = 5000L;
+
+  /**
+   * How many videos are picked ahead of the current one.
+   */
+  private static final int LOOKAHEAD_COUNT = 20;
+
+  private static final int DEFAULT_RECENCY_WINDOW = 50;
+
+  private static final long DEFAULT_SEED = 0L;
+
+  /**
+   * Midnight in Los Angeles in winter. Days of the schedule are a fixed 24 hours from it, so
+   * while daylight saving time is on there they start at 1am.
+   */
+  private static final Instant DEFAULT_EPOCH = Instant.parse("2020-01-01T08:00:00Z");
+
+  private static final String RECENCY_WINDOW_PROPERTY = "archive.rotation.window";
+
+  private static final String SEED_PROPERTY = "archive.rotation.seed";
+
+  private static final String EPOCH_PROPERTY = "archive.schedule.epoch";
+
+  /**
+   * How long before the start of a day the catalog is fetched again, to pick up new uploads to
+   * the archive playlist in time for it.
+   */
+  private static final long REFRESH_LEAD_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  /**
+   * How often the catalog saved by the leading instance is read again while following it.
+   */
+  private static final long FOLLOWING_REFRESH_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  private static final Counter refillSkipped = Counter.builder("archive.refill.skipped")
+      .description("Refills not started because one was already on its way")
+      .register(Metrics.globalRegistry);
+
   private ArchivedVideo currentVideo = null;
 
-  private long currentPlayheadInSeconds = 0;
+  /**
+   * Monotonic time the current video started at on the schedule. The schedule keeps running while
+   * the player is stopped, so stopping does not move it.
+   */
+  private long currentVideoStartedAtNanos = 0;
+
+  /**
+   * Playhead frozen at the moment the player was stopped.
+   */
+  private long pausedPlayheadInMillis = 0;
 
   private boolean isPlaying = false;
 
-  private Timer playCounter;
+  private ScheduledFuture<?> endOfVideoWakeup;
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "archive-player");
+        t.setDaemon(true);
+        return t;
+      });
+
+  private final ExecutorService refiller = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "archive-refill");
+    t.setDaemon(true);
+    return t;
+  });
+
+  /**
+   * The queue being played from. Only ever replaced whole, so readers see either the old or the
+   * new queue and never one half way through a refill.
+   */
+  private volatile ArchiveQueue queue = ArchiveQueue.EMPTY;
+
+  private volatile long queuedSeconds = 0;
+
+  private final long seed;
+
+  private final long epochMillis;
+
+  private final int window;
+
+  private ArchiveSchedule schedule;
+
+  /**
+   * Picks the videos after the last one queued. Null until there is a schedule.
+   */
+  private ArchiveRotation rotation;
+
+  /**
+   * A changed catalog, waiting for the video playing as the next day starts to finish.
+   */
+  private ArchiveSchedule pendingSchedule;
+
+  private long pendingFromMillis;
+
+  /**
+   * Wall-clock time the catalog is next due to be fetched. Zero until it has been fetched once, so
+   * a saved catalog is checked against YouTube straight away.
+   */
+  private long refreshDueAtMillis = 0;
+
+  private ScheduledFuture<?> refreshWakeup;
+
+  /**
+   * Whether the catalog is read from the file another instance saves, rather than fetched.
+   */
+  private volatile boolean isFollowing;
+
+  /**
+   * Nothing is fetched until the player is started, the YouTube API may not be ready before.
+   */
+  private volatile boolean isStarted = false;
+
+  private final AtomicBoolean isRefillInFlight = new AtomicBoolean(false);
+
+  private final Path catalogPath = ArchiveCatalog.getDefaultPath();
+
+  private final Path previousCatalogPath = ArchiveCatalog.getPreviousPath(catalogPath);
+
+  /**
+   * Published after every change to the current video, the next video or the playing state.
+   */
+  private volatile ArchiveState state = ArchiveState.EMPTY;
+
+  private volatile Consumer<ArchiveState> stateListener;
+
+  /**
+   * Build a new ArchivePlayer.
+   *
+   * <p>
+   * If an archive catalog was saved by a previous run it is played from straight away and the
+   * archive is refreshed from YouTube on the refill thread. Otherwise the catalog is fetched on
+   * the calling thread so there is something to play.
+   * </p>
+   */
+  public ArchivePlayer() {
+    this(false);
+    start();
+  }
+
+  /**
+   * Build a new ArchivePlayer that may be following another instance on the same host, without
+   * fetching anything until it is started. It plays from the saved archive catalog, if there is
+   * one.
+   *
+   * @param isFollowing True to read the archive catalog the leading instance saves instead of
+   *                    fetching it from YouTube
+   */
+  public ArchivePlayer(boolean isFollowing) {
+    this.isFollowing = isFollowing;
+    seed = Long.getLong(SEED_PROPERTY, DEFAULT_SEED);
+    epochMillis = readEpoch();
+    window = Integer.getInteger(RECENCY_WINDOW_PROPERTY, DEFAULT_RECENCY_WINDOW);
+    logger.info("Archive schedule seed: {}, epoch: {}, recency window: {} videos", seed,
+        Instant.ofEpochMilli(epochMillis), window);
+
+    Gauge.builder("archive.queue.size", this, ArchivePlayer::getQueuedCount)
+        .description("Videos queued after the current one")
+        .register(Metrics.globalRegistry);
+    Gauge.builder("archive.queue.buffered", this, ArchivePlayer::getBufferedAheadInSeconds)
+        .description("Total duration of the videos queued after the current one")
+        .baseUnit("seconds")
+        .register(Metrics.globalRegistry);
+
+    readSavedCatalog();
+  }
+
+  /**
+   * Start fetching the archive catalog. If a saved catalog is playing, it is checked against
+   * YouTube on the refill thread. Otherwise the catalog is fetched on the calling thread so there
+   * is something to play.
+   */
+  public void start() {
+    isStarted = true;
+    if (state.getCurrentVideo() != null) {
+      requestRefill();
+    } else if (isRefillInFlight.compareAndSet(false, true)) {
+      refill();
+    }
+  }
+
+  private static long readEpoch() {
+    String epoch = System.getProperty(EPOCH_PROPERTY);
+    if (epoch == null || epoch.isEmpty()) {
+      return DEFAULT_EPOCH.toEpochMilli();
+    }
+
+    try {
+      return Instant.parse(epoch).toEpochMilli();
+    } catch (DateTimeParseException e) {
+      logger.error("Archive schedule epoch {} is not an ISO-8601 instant, using {}", epoch,
+          DEFAULT_EPOCH, e);
+      return DEFAULT_EPOCH.toEpochMilli();
+    }
+  }
 
-  private final ConcurrentLinkedQueue<ArchivedVideo> queue = new ConcurrentLinkedQueue<>();
+  /**
+   * Play the saved catalog that is on air now. If the saved catalog has not taken over yet, the
+   * previous one saved next to it is played until it does.
+   */
+  private void readSavedCatalog() {
+    List<ArchivedVideo> catalog = readCatalog(catalogPath);
+    if (catalog.isEmpty()) {
+      return;
+    }
 
-  private final ReentrantLock lock = new ReentrantLock();
+    long fetchedAtMillis;
+    try {
+      fetchedAtMillis = Files.getLastModifiedTime(catalogPath).toMillis();
+    } catch (IOException e) {
+      fetchedAtMillis = System.currentTimeMillis();
+    }
 
-  private TimerTask getNewTimerTask() {
-    return new TimerTask() {
-      @Override
-      public void run() {
-        // step playhead forward 1 second
-        currentPlayheadInSeconds++;
+    if (Files.exists(previousCatalogPath)) {
+      List<ArchivedVideo> previous = readCatalog(previousCatalogPath);
+      ArchiveSchedule onAir = new ArchiveSchedule(previous, seed, epochMillis, window);
+      if (onAir.isEmpty() == false
+          && System.currentTimeMillis() < onAir.changeoverAfter(fetchedAtMillis)) {
+        onCatalogReady(previous, fetchedAtMillis);
+      }
+    }
 
-        // check if video is over
-        if (currentVideo == null
-            || currentPlayheadInSeconds > currentVideo.getDurationInSeconds()) {
+    onCatalogReady(catalog, fetchedAtMillis);
+  }
 
-          // if so start a new video from the queue
-          ArchivedVideo video = queue.poll();
+  private List<ArchivedVideo> readCatalog(Path path) {
+    try {
+      List<ArchivedVideo> catalog = ArchiveCatalog.read(path);
+      logger.info("Read {} videos from the archive catalog at {}", catalog.size(), path);
+      return catalog;
+    } catch (IOException e) {
+      logger.warn("Unable to read the archive catalog at {}, fetching from YouTube", path, e);
+      return new ArrayList<>();
+    }
+  }
 
-          if (video == null) {
-            logger.error("ARCHIVE VIDEO QUEUE IS EMPTY");
-          }
+  /**
+   * Save a fetched catalog for following instances and restarts. While it is waiting to take
+   * over, the catalog on air is saved next to it.
+   */
+  private void saveCatalog(List<ArchivedVideo> catalog, long fetchedAtMillis) {
+    ArchiveSchedule next = new ArchiveSchedule(catalog, seed, epochMillis, window);
+    ArchiveSchedule onAir;
+    synchronized (this) {
+      if (pendingSchedule != null && pendingSchedule.getVersion().equals(next.getVersion())) {
+        // already saved, keep the time it was first fetched so the changeover stays put
+        return;
+      }
+      onAir = schedule == null || schedule.getVersion().equals(next.getVersion()) ? null
+          : schedule;
+    }
+
+    try {
+      if (onAir == null) {
+        Files.deleteIfExists(previousCatalogPath);
+      } else {
+        ArchiveCatalog.write(previousCatalogPath, onAir.getCatalog());
+      }
+      ArchiveCatalog.write(catalogPath, catalog, fetchedAtMillis);
+      logger.debug("Wrote {} videos to the archive catalog at {}", catalog.size(), catalogPath);
+    } catch (IOException e) {
+      logger.warn("Unable to write the archive catalog at {}", catalogPath, e);
+    }
+  }
+
+  /**
+   * Fetch the catalog on the refill thread unless it is already on its way.
+   */
+  private void requestRefill() {
+    if (isStarted == false) {
+      return;
+    }
 
-          if (queue.size() < 2) {
-            rebuildQueue();
-          }
+    if (isRefillInFlight.compareAndSet(false, true)) {
+      refiller.execute(this::refill);
+    } else {
+      refillSkipped.increment();
+      logger.trace("Archive catalog is already being fetched");
+    }
+  }
 
-          currentVideo = video;
-          currentPlayheadInSeconds = 0;
+  private void refill() {
+    long start = System.nanoTime();
+    long fetchedAtMillis = System.currentTimeMillis();
+    String outcome = "error";
+    try {
+      List<ArchivedVideo> catalog;
+      if (isFollowing) {
+        catalog = ArchiveCatalog.read(catalogPath);
+        // saved as the leader fetched it, so this changes over when the leader does
+        fetchedAtMillis = Files.getLastModifiedTime(catalogPath).toMillis();
+        logger.debug("Read {} videos from the archive catalog saved by the leader",
+            catalog.size());
+      } else {
+        logger.debug("Fetching video archive catalog...");
+        catalog = YouTubeService.getCompletedShows();
+        logger.debug("Fetching video archive catalog complete. (Video count: {})",
+            catalog.size());
+        if (catalog.isEmpty() == false) {
+          saveCatalog(catalog, fetchedAtMillis);
         }
       }
-    };
+      scheduleRefresh();
+      onCatalogReady(catalog, fetchedAtMillis);
+      outcome = "success";
+    } catch (IOException e) {
+      logger.error("Archived play is unavailable.", e);
+    } finally {
+      isRefillInFlight.set(false);
+      Timer.builder("archive.refill")
+          .description("Time taken to fetch the archive catalog")
+          .tag("outcome", outcome)
+          .register(Metrics.globalRegistry)
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
   }
 
-  public ArchivePlayer() {
-    rebuildQueue();
+  /**
+   * Fetch the catalog again at exactly the time it is next due, an hour before the next day of
+   * the schedule starts, or in a few minutes while following.
+   */
+  private synchronized void scheduleRefresh() {
+    long nowMillis = System.currentTimeMillis();
+    refreshDueAtMillis = isFollowing ? nowMillis + FOLLOWING_REFRESH_MILLIS
+        : ArchiveSchedule.nextDayAfter(epochMillis, nowMillis + REFRESH_LEAD_MILLIS)
+            - REFRESH_LEAD_MILLIS;
+
+    if (refreshWakeup != null) {
+      refreshWakeup.cancel(false);
+    }
+    refreshWakeup = scheduler.schedule(this::requestRefill, refreshDueAtMillis - nowMillis,
+        TimeUnit.MILLISECONDS);
   }
 
-  private void rebuildQueue() {
+  /**
+   * Play from a catalog, straight away if nothing is loaded yet. Otherwise a changed catalog takes
+   * over at {@link ArchiveSchedule#changeoverAfter(long)}, which is the same moment on every
+   * instance that fetched it on the same day.
+   *
+   * @param catalog         Every video in the archive
+   * @param fetchedAtMillis When it was fetched from YouTube, by this instance or the leader
+   */
+  private synchronized void onCatalogReady(List<ArchivedVideo> catalog, long fetchedAtMillis) {
+    ArchiveSchedule next = new ArchiveSchedule(catalog, seed, epochMillis, window);
+    if (next.isEmpty()) {
+      return;
+    }
 
-    if (lock.tryLock()) {
-      try {
-        logger.debug("Rebuilding video archive queue...");
-        queue.addAll(YouTubeService.getCompletedShows());
-        logger.debug("Rebuilding video archive queue complete. (Video count: {})", queue.size());
-      } catch (IOException e) {
-        logger.error("Archived play is unavailable.", e);
-      } finally {
-        lock.unlock();
+    if (schedule != null && schedule.getVersion().equals(next.getVersion())) {
+      if (pendingSchedule != null) {
+        logger.info("Archive catalog is back to {}, staying on it", schedule.getVersion());
+        pendingSchedule = null;
       }
+      return;
+    }
+
+    if (schedule == null) {
+      adopt(next, System.currentTimeMillis());
+    } else if (pendingSchedule != null
+        && pendingSchedule.getVersion().equals(next.getVersion())) {
+      // already waiting for it, fetching it again does not put it off
+      return;
     } else {
-      logger.debug("Queue is already being rebuilt");
+      pendingSchedule = next;
+      pendingFromMillis = schedule.changeoverAfter(fetchedAtMillis);
+      logger.info("Archive catalog {} will be played from {}", next.getVersion(),
+          Instant.ofEpochMilli(pendingFromMillis));
+      if (isPlaying) {
+        scheduleWakeup();
+      }
+    }
+
+    publish();
+  }
+
+  /**
+   * Start playing whatever the schedule has on now.
+   */
+  private void adopt(ArchiveSchedule next, long nowMillis) {
+    ArchiveSchedule.Slot slot = next.at(nowMillis);
+
+    schedule = next;
+    pendingSchedule = null;
+    rotation = slot.getRotation();
+    queue = ArchiveQueue.startingAt(slot.getPosition() + 1);
+    queuedSeconds = 0;
+
+    currentVideo = slot.getVideo();
+    currentVideoStartedAtNanos =
+        System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(nowMillis - slot.getStartedAtMillis());
+    pausedPlayheadInMillis = Math.max(0, elapsedMillis(System.nanoTime()));
+
+    topUpQueue();
+
+    logger.info("Playing archive catalog {}. (Video count: {}, position: {})",
+        next.getVersion(), next.size(), slot.getPosition());
+
+    if (isPlaying) {
+      scheduleWakeup();
+    }
+  }
+
+  /**
+   * Pick videos until the look-ahead is full, and fetch the catalog again if it is due.
+   */
+  private void topUpQueue() {
+    if (rotation == null) {
+      return;
+    }
+
+    List<ArchivedVideo> picked = new ArrayList<>();
+    long seconds = queuedSeconds;
+
+    while (queue.size() + picked.size() < LOOKAHEAD_COUNT) {
+      ArchivedVideo v = rotation.next();
+      if (v == null) {
+        break;
+      }
+      picked.add(v);
+      seconds += v.getDurationInSeconds();
+    }
+
+    if (picked.isEmpty() == false) {
+      queue = queue.withBatch(picked);
+      queuedSeconds = seconds;
+    }
+
+    if (System.currentTimeMillis() >= refreshDueAtMillis) {
+      requestRefill();
+    }
+  }
+
+  /**
+   * Start or stop following another instance. Once this one leads, the catalog is next fetched
+   * from YouTube when it is due, or straight away if there is nothing to play.
+   *
+   * @param isFollowing True to read the archive catalog the leading instance saves
+   */
+  public void setFollowing(boolean isFollowing) {
+    this.isFollowing = isFollowing;
+    if (isFollowing == false) {
+      refillIfEmpty();
+    }
+  }
+
+  /**
+   * Fetch the catalog on the refill thread if there is nothing to play, such as when it was read
+   * before the leading instance had saved one.
+   */
+  public void refillIfEmpty() {
+    if (state.getCurrentVideo() == null) {
+      requestRefill();
+    }
+  }
+
+  /**
+   * Set who gets told when a new state is published.
+   *
+   * @param stateListener Called with the new state on whichever thread made the change, while the
+   *                      archive player is locked
+   */
+  public void setStateListener(Consumer<ArchiveState> stateListener) {
+    this.stateListener = stateListener;
+  }
+
+  /**
+   * Get what the archive player is playing, without locking it.
+   *
+   * @return the latest published state
+   */
+  public ArchiveState getState() {
+    return state;
+  }
+
+  private void publish() {
+    ArchiveState published = new ArchiveState(currentVideo, queue, queuedSeconds, isPlaying,
+        currentVideoStartedAtNanos, pausedPlayheadInMillis);
+    state = published;
+
+    Consumer<ArchiveState> listener = stateListener;
+    if (listener != null) {
+      listener.accept(published);
     }
   }
 
   /**
-   * Start advancing the playhead of the archive player.
+   * Start advancing the playhead of the archive player, from wherever the schedule has got to.
    *
    * <p>
    * If it's already playing it won't change anything to call it multiple times.
@@ -95,13 +571,14 @@ public class ArchivePlayer {
   public synchronized void play() {
 
     if (isPlaying == false) {
-      if (playCounter == null) {
-        playCounter = new Timer("playhead-timer");
-        playCounter.scheduleAtFixedRate(getNewTimerTask(), 0, 1000);
+      isPlaying = true;
+
+      advance();
+      if (endOfVideoWakeup == null) {
+        scheduleWakeup();
       }
+      publish();
     }
-
-    isPlaying = true;
   }
 
   /**
@@ -113,34 +590,144 @@ public class ArchivePlayer {
    */
   public synchronized void stop() {
     if (isPlaying) {
-      playCounter.cancel();
-      playCounter = null;
+      advance();
+      pausedPlayheadInMillis = elapsedMillis(System.nanoTime());
+      isPlaying = false;
+      cancelWakeup();
+      publish();
     }
-    isPlaying = false;
   }
 
-  public ArchivedVideo getCurrentVideo() {
+  public synchronized ArchivedVideo getCurrentVideo() {
+    advance();
     return currentVideo;
   }
 
   public long getCurrentPlayheadInSeconds() {
-    return currentPlayheadInSeconds;
+    return getCurrentPlayheadInMillis() / 1000;
   }
 
-  public ArchivedVideo peekNextVideo() {
-    return queue.peek();
+  /**
+   * Get the playhead of the current video.
+   *
+   * @return milliseconds since the start of the current video, or where it was when the player
+   *         was stopped
+   */
+  public synchronized long getCurrentPlayheadInMillis() {
+    advance();
+    if (isPlaying == false) {
+      return pausedPlayheadInMillis;
+    }
+    return elapsedMillis(System.nanoTime());
+  }
+
+  private long elapsedMillis(long nowNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nowNanos - currentVideoStartedAtNanos);
+  }
+
+  /**
+   * Move on as many videos as have finished since the playhead was last looked at. Any time past
+   * the end of a video is carried over into the next one.
+   */
+  private void advance() {
+    if (isPlaying == false) {
+      return;
+    }
+
+    if (pendingSchedule != null && System.currentTimeMillis() >= pendingFromMillis) {
+      adopt(pendingSchedule, System.currentTimeMillis());
+      publish();
+    }
+
+    if (currentVideo == null) {
+      // nothing to play until there is a catalog, the wakeup keeps checking until then
+      requestRefill();
+      return;
+    }
+
+    long now = System.nanoTime();
+
+    long durationInNanos = TimeUnit.SECONDS.toNanos(currentVideo.getDurationInSeconds());
+    while (currentVideo != null && now - currentVideoStartedAtNanos >= durationInNanos) {
+      startNextVideo(currentVideoStartedAtNanos + durationInNanos);
+      if (currentVideo != null) {
+        durationInNanos = TimeUnit.SECONDS.toNanos(currentVideo.getDurationInSeconds());
+      }
+    }
+  }
+
+  private void startNextVideo(long startedAtNanos) {
+    ArchivedVideo video = queue.peek();
+    queue = queue.withoutFirst();
+
+    if (video == null) {
+      logger.error("ARCHIVE VIDEO QUEUE IS EMPTY");
+    } else {
+      queuedSeconds -= video.getDurationInSeconds();
+    }
+
+    topUpQueue();
+
+    currentVideo = video;
+    currentVideoStartedAtNanos = video == null ? System.nanoTime() : startedAtNanos;
+    pausedPlayheadInMillis = 0;
+
+    scheduleWakeup();
+    publish();
   }
 
-  public void generateQueueJson(JsonGenerator g) throws IOException {
-    g.writeArrayFieldStart("archive_queue");
+  /**
+   * Arm a single wakeup for the end of the current video so that the change is noticed even if
+   * nobody reads the playhead.
+   */
+  private void scheduleWakeup() {
+    cancelWakeup();
+
+    long delayInMillis;
+    if (currentVideo == null) {
+      delayInMillis = EMPTY_QUEUE_RETRY_MILLIS;
+    } else {
+      long durationInMillis = TimeUnit.SECONDS.toMillis(currentVideo.getDurationInSeconds());
+      delayInMillis = Math.max(0, durationInMillis - elapsedMillis(System.nanoTime()));
+    }
 
-    for (ArchivedVideo v : queue) {
-      g.writeStartObject();
-      g.writeStringField("id", v.getId());
-      g.writeStringField("title", v.getTitle());
-      g.writeEndObject();
+    if (pendingSchedule != null) {
+      long changeOverInMillis = pendingFromMillis - System.currentTimeMillis();
+      delayInMillis = Math.max(0, Math.min(delayInMillis, changeOverInMillis));
     }
 
-    g.writeEndArray();
+    endOfVideoWakeup = scheduler.schedule(this::onWakeup, delayInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void cancelWakeup() {
+    if (endOfVideoWakeup != null) {
+      endOfVideoWakeup.cancel(false);
+      endOfVideoWakeup = null;
+    }
+  }
+
+  private synchronized void onWakeup() {
+    endOfVideoWakeup = null;
+    advance();
+    if (isPlaying && endOfVideoWakeup == null) {
+      scheduleWakeup();
+    }
+  }
+
+  /**
+   * Get how much is buffered in the queue after the current video.
+   *
+   * @return total duration of the queued videos in seconds
+   */
+  public long getBufferedAheadInSeconds() {
+    return queuedSeconds;
+  }
+
+  public int getQueuedCount() {
+    return queue.size();
+  }
+
+  public ArchivedVideo peekNextVideo() {
+    return queue.peek();
   }
 }
@@ -0,0 +1,112 @@
+package com.alistairj.frlgang.player.archive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The videos waiting to be played by the archive player.
+ *
+ * <p>
+ * Never changed once built: taking a video off the front or adding a batch to the back gives a
+ * new queue. Every video gets a position when it is queued, its place in the archive schedule,
+ * which it keeps until it is played. Pages of the queue are looked up by position without
+ * walking it, and a position stays valid while the queue moves on under a client.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+final class ArchiveQueue {
+
+  static final ArchiveQueue EMPTY = new ArchiveQueue(Collections.emptyList(), 0, 0);
+
+  private final List<ArchivedVideo> videos;
+
+  /**
+   * Index in videos of the front of the queue. Everything before it has been played.
+   */
+  private final int head;
+
+  /**
+   * Position of the first element of videos.
+   */
+  private final long firstPosition;
+
+  private ArchiveQueue(List<ArchivedVideo> videos, int head, long firstPosition) {
+    this.videos = videos;
+    this.head = head;
+    this.firstPosition = firstPosition;
+  }
+
+  /**
+   * Get an empty queue whose first video will be at the given position.
+   *
+   * @param position Position of the next video to be queued
+   * @return the empty queue
+   */
+  static ArchiveQueue startingAt(long position) {
+    return new ArchiveQueue(Collections.emptyList(), 0, position);
+  }
+
+  /**
+   * Get the video at the front.
+   *
+   * @return the video, or null if the queue is empty
+   */
+  ArchivedVideo peek() {
+    return head < videos.size() ? videos.get(head) : null;
+  }
+
+  /**
+   * Take the video at the front off.
+   *
+   * @return the queue without its front video, or this one if it is empty
+   */
+  ArchiveQueue withoutFirst() {
+    return head < videos.size() ? new ArchiveQueue(videos, head + 1, firstPosition) : this;
+  }
+
+  /**
+   * Add a batch at the back. Only the videos not played yet are copied.
+   *
+   * @param batch Videos to add
+   * @return the queue with the batch at the back
+   */
+  ArchiveQueue withBatch(List<ArchivedVideo> batch) {
+    List<ArchivedVideo> appended = new ArrayList<>(size() + batch.size());
+    appended.addAll(videos.subList(head, videos.size()));
+    appended.addAll(batch);
+    return new ArchiveQueue(Collections.unmodifiableList(appended), 0, getHeadPosition());
+  }
+
+  int size() {
+    return videos.size() - head;
+  }
+
+  /**
+   * Get the position of the video at the front.
+   *
+   * @return the position, which is that of the next video to be queued if the queue is empty
+   */
+  long getHeadPosition() {
+    return firstPosition + head;
+  }
+
+  /**
+   * Get the videos from a position onwards. Positions that have already been played start from
+   * the front of the queue.
+   *
+   * @param fromPosition Position of the first video wanted
+   * @param limit        Most videos to return
+   * @return the videos, can be empty
+   */
+  List<ArchivedVideo> page(long fromPosition, int limit) {
+    long start = Math.max(fromPosition, getHeadPosition());
+    if (start - firstPosition >= videos.size()) {
+      return Collections.emptyList();
+    }
+
+    int from = (int) (start - firstPosition);
+    return videos.subList(from, Math.min(videos.size(), from + limit));
+  }
+}
@@ -0,0 +1,68 @@
+package com.alistairj.frlgang.player.archive;
+
+import com.alistairj.frlgang.player.ArchiveQueuePageSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.List;
+
+/**
+ * A page of the archive queue, served on /queue.
+ *
+ * <p>
+ * The cursor is the position of the first video of the next page. Positions stick to their video
+ * while the queue moves on, so paging through never skips or repeats a video, apart from the ones
+ * played in the meantime.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+@JsonSerialize(using = ArchiveQueuePageSerializer.class)
+public final class ArchiveQueuePage {
+
+  /**
+   * Start from the front of the queue, or there is no next page.
+   */
+  public static final long NO_CURSOR = -1;
+
+  public static final int DEFAULT_LIMIT = 50;
+
+  /**
+   * {@link #DEFAULT_LIMIT} as a request parameter default.
+   */
+  public static final String DEFAULT_LIMIT_PARAM = "" + DEFAULT_LIMIT;
+
+  public static final int MAX_LIMIT = 500;
+
+  private final ArchiveState state;
+
+  private final List<ArchivedVideo> videos;
+
+  private final long nextCursor;
+
+  ArchiveQueuePage(ArchiveState state, List<ArchivedVideo> videos, long nextCursor) {
+    this.state = state;
+    this.videos = videos;
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Get the archive player state the page was taken from.
+   *
+   * @return the state
+   */
+  public ArchiveState getState() {
+    return state;
+  }
+
+  public List<ArchivedVideo> getVideos() {
+    return videos;
+  }
+
+  /**
+   * Get the cursor of the next page.
+   *
+   * @return the cursor, or {@link #NO_CURSOR} if this is the last page
+   */
+  public long getNextCursor() {
+    return nextCursor;
+  }
+}
@@ -0,0 +1,113 @@
+package com.alistairj.frlgang.player.archive;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Picks what the archive plays next, at random, without repeating anything played recently.
+ *
+ * <p>
+ * The catalog is split in two: the videos that can be picked, and the ones picked most recently,
+ * oldest first. A pick takes a random video out of the first and puts it at the back of the
+ * second, and once the second is longer than the recency window its oldest video goes back in
+ * to be picked. Both steps take the same time however big the catalog is, and nothing but the
+ * catalog is held.
+ * </p>
+ *
+ * <p>
+ * The catalog is kept in id order, so the same catalog and the same seed always give the same
+ * picks, whatever order the videos came in.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+class ArchiveRotation {
+
+  private static final Comparator<ArchivedVideo> BY_ID = Comparator.comparing(ArchivedVideo::getId);
+
+  private final int window;
+
+  private final Random random;
+
+  private List<ArchivedVideo> pickable = new ArrayList<>();
+
+  private Deque<ArchivedVideo> recent = new ArrayDeque<>();
+
+  /**
+   * Build a new ArchiveRotation with nothing to play.
+   *
+   * @param window How many of the latest picks cannot be picked again. Catalogs smaller than
+   *               that go round in a fixed order.
+   * @param seed   Seed of the picks
+   */
+  ArchiveRotation(int window, long seed) {
+    this.window = window;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Change what there is to play. Videos that stay in the catalog keep their place in the
+   * recency window.
+   *
+   * @param catalog Every video that can be played
+   */
+  void setCatalog(List<ArchivedVideo> catalog) {
+    Map<String, ArchivedVideo> byId = new HashMap<>();
+    for (ArchivedVideo v : catalog) {
+      byId.put(v.getId(), v);
+    }
+
+    Deque<ArchivedVideo> stillRecent = new ArrayDeque<>();
+    for (ArchivedVideo v : recent) {
+      ArchivedVideo kept = byId.remove(v.getId());
+      if (kept != null) {
+        stillRecent.add(kept);
+      }
+    }
+
+    List<ArchivedVideo> stillPickable = new ArrayList<>(byId.values());
+    stillPickable.sort(BY_ID);
+
+    pickable = stillPickable;
+    recent = stillRecent;
+  }
+
+  /**
+   * Pick the next video.
+   *
+   * @return the video, or null if the catalog is empty
+   */
+  ArchivedVideo next() {
+    // the window has to leave at least one video to pick from
+    int limit = Math.min(window, size() - 1);
+    while (recent.size() > limit && recent.isEmpty() == false) {
+      pickable.add(recent.poll());
+    }
+
+    if (pickable.isEmpty()) {
+      return null;
+    }
+
+    int i = random.nextInt(pickable.size());
+    ArchivedVideo picked = pickable.get(i);
+
+    // fill the hole with the last video rather than shifting everything down
+    ArchivedVideo last = pickable.remove(pickable.size() - 1);
+    if (i < pickable.size()) {
+      pickable.set(i, last);
+    }
+
+    recent.add(picked);
+    return picked;
+  }
+
+  int size() {
+    return pickable.size() + recent.size();
+  }
+}
@@ -0,0 +1,221 @@
+package com.alistairj.frlgang.player.archive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * What the archive plays at any wall-clock instant, worked out from the catalog alone.
+ *
+ * <p>
+ * Starting at the epoch, the picks of an {@link ArchiveRotation} are played back to back forever.
+ * Everything that goes into the picks, the catalog, the seed, the epoch and the recency window, is
+ * either configured or fetched from YouTube, so every instance with the same catalog plays the
+ * same video with the same playhead at the same moment without talking to the others. Positions
+ * count the picks from the epoch, so a position means the same video on every instance.
+ * </p>
+ *
+ * <p>
+ * The catalog is summed up by a version, so instances can tell whether they are playing the
+ * same one. Days of the schedule are a fixed 24 hours from the epoch, and a changed catalog takes
+ * over at the same moment on every instance, worked out from the day it was fetched on.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+final class ArchiveSchedule {
+
+  private static final Comparator<ArchivedVideo> BY_ID = Comparator.comparing(ArchivedVideo::getId);
+
+  private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  private final List<ArchivedVideo> catalog;
+
+  private final String version;
+
+  private final long seed;
+
+  private final long epochMillis;
+
+  private final int window;
+
+  /**
+   * Build a new ArchiveSchedule. Videos without a duration are left out, there is nothing of them
+   * to play.
+   *
+   * @param catalog     Every video that can be played, in any order
+   * @param seed        Seed of the picks
+   * @param epochMillis Instant the first pick started
+   * @param window      How many of the latest picks cannot be picked again
+   */
+  ArchiveSchedule(List<ArchivedVideo> catalog, long seed, long epochMillis, int window) {
+    List<ArchivedVideo> playable = new ArrayList<>(catalog.size());
+    for (ArchivedVideo v : catalog) {
+      if (v.getDurationInSeconds() > 0) {
+        playable.add(v);
+      }
+    }
+    playable.sort(BY_ID);
+
+    this.catalog = playable;
+    this.version = versionOf(playable);
+    this.seed = seed;
+    this.epochMillis = epochMillis;
+    this.window = window;
+  }
+
+  private static String versionOf(List<ArchivedVideo> sortedCatalog) {
+    CRC32 crc = new CRC32();
+    for (ArchivedVideo v : sortedCatalog) {
+      crc.update(v.getId().getBytes(StandardCharsets.UTF_8));
+      long duration = v.getDurationInSeconds();
+      for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+        crc.update((int) (duration >>> shift));
+      }
+    }
+    return String.format("%08x-%d", crc.getValue(), sortedCatalog.size());
+  }
+
+  /**
+   * Get the version of the catalog, the same on every instance with the same videos.
+   *
+   * @return the version
+   */
+  String getVersion() {
+    return version;
+  }
+
+  /**
+   * Get the videos that can be played, sorted by id.
+   *
+   * @return the playable catalog
+   */
+  List<ArchivedVideo> getCatalog() {
+    return Collections.unmodifiableList(catalog);
+  }
+
+  boolean isEmpty() {
+    return catalog.isEmpty();
+  }
+
+  int size() {
+    return catalog.size();
+  }
+
+  /**
+   * Work out what is playing at an instant, by replaying the picks from the epoch. Before the
+   * epoch the first pick is waiting to start.
+   *
+   * @param instantMillis Wall-clock instant
+   * @return the slot playing at that instant, with the rotation ready to pick what comes after it
+   * @throws IllegalStateException if the schedule has nothing to play
+   */
+  Slot at(long instantMillis) {
+    if (catalog.isEmpty()) {
+      throw new IllegalStateException("Archive schedule has nothing to play");
+    }
+
+    ArchiveRotation rotation = new ArchiveRotation(window, seed);
+    rotation.setCatalog(catalog);
+
+    long position = 0;
+    long startedAtMillis = epochMillis;
+    ArchivedVideo video = rotation.next();
+
+    long durationInMillis = TimeUnit.SECONDS.toMillis(video.getDurationInSeconds());
+    while (startedAtMillis + durationInMillis <= instantMillis) {
+      startedAtMillis += durationInMillis;
+      video = rotation.next();
+      durationInMillis = TimeUnit.SECONDS.toMillis(video.getDurationInSeconds());
+      position++;
+    }
+
+    return new Slot(video, position, startedAtMillis, rotation);
+  }
+
+  /**
+   * Work out when a catalog fetched at an instant takes over from this schedule: once the video
+   * this schedule plays as the next day starts has finished.
+   *
+   * <p>
+   * It only depends on this schedule and the day the catalog was fetched on, so every instance
+   * playing this schedule that fetched the new catalog on the same day changes over at the same
+   * moment. The video playing then is finished rather than cut off, and the new schedule is joined
+   * part way through whatever it has on at that moment.
+   * </p>
+   *
+   * @param fetchedAtMillis Wall-clock instant the new catalog was fetched from YouTube
+   * @return the wall-clock instant to play the new catalog from
+   */
+  long changeoverAfter(long fetchedAtMillis) {
+    return at(nextDayAfter(epochMillis, fetchedAtMillis)).getEndsAtMillis();
+  }
+
+  /**
+   * Get the start of the first day of the schedule after an instant.
+   *
+   * @param epochMillis   Instant the first day started
+   * @param instantMillis Wall-clock instant
+   * @return the start of the next day, always after the instant
+   */
+  static long nextDayAfter(long epochMillis, long instantMillis) {
+    return epochMillis + (Math.floorDiv(instantMillis - epochMillis, DAY_MILLIS) + 1) * DAY_MILLIS;
+  }
+
+  /**
+   * A video in the schedule.
+   */
+  static final class Slot {
+
+    private final ArchivedVideo video;
+
+    private final long position;
+
+    private final long startedAtMillis;
+
+    private final ArchiveRotation rotation;
+
+    private Slot(ArchivedVideo video, long position, long startedAtMillis,
+        ArchiveRotation rotation) {
+      this.video = video;
+      this.position = position;
+      this.startedAtMillis = startedAtMillis;
+      this.rotation = rotation;
+    }
+
+    ArchivedVideo getVideo() {
+      return video;
+    }
+
+    /**
+     * Get how many videos were played before this one since the epoch.
+     *
+     * @return the position
+     */
+    long getPosition() {
+      return position;
+    }
+
+    long getStartedAtMillis() {
+      return startedAtMillis;
+    }
+
+    long getEndsAtMillis() {
+      return startedAtMillis + TimeUnit.SECONDS.toMillis(video.getDurationInSeconds());
+    }
+
+    /**
+     * Get the rotation, which picks the videos after this one in order. It belongs to whoever
+     * asked for the slot.
+     *
+     * @return the rotation
+     */
+    ArchiveRotation getRotation() {
+      return rotation;
+    }
+  }
+}
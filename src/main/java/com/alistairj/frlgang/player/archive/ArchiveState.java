@@ -0,0 +1,131 @@
+package com.alistairj.frlgang.player.archive;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the archive player is playing, as of the last time it changed.
+ *
+ * <p>
+ * Published whole by the archive player every time the current video, the queue or the playing
+ * state changes. The playhead is not stored, it is worked out from the instant the
+ * current video started, so a state stays correct for the whole of a video.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public final class ArchiveState {
+
+  /**
+   * Nothing to play yet.
+   */
+  public static final ArchiveState EMPTY =
+      new ArchiveState(null, ArchiveQueue.EMPTY, 0, false, 0, 0);
+
+  private final ArchivedVideo currentVideo;
+
+  private final ArchiveQueue queue;
+
+  private final long queuedSeconds;
+
+  private final boolean isPlaying;
+
+  private final long currentVideoStartedAtNanos;
+
+  private final long pausedPlayheadInMillis;
+
+  ArchiveState(ArchivedVideo currentVideo, ArchiveQueue queue, long queuedSeconds,
+      boolean isPlaying, long currentVideoStartedAtNanos, long pausedPlayheadInMillis) {
+    this.currentVideo = currentVideo;
+    this.queue = queue;
+    this.queuedSeconds = queuedSeconds;
+    this.isPlaying = isPlaying;
+    this.currentVideoStartedAtNanos = currentVideoStartedAtNanos;
+    this.pausedPlayheadInMillis = pausedPlayheadInMillis;
+  }
+
+  /**
+   * Get the playhead of the current video.
+   *
+   * <p>
+   * The archive player moves on at the exact end of a video, but a reader can get there first by
+   * a few milliseconds, so the playhead never goes past the end of the current video.
+   * </p>
+   *
+   * @param nowNanos Current monotonic time, from {@link System#nanoTime()}
+   * @return milliseconds since the start of the current video, or where it was when the player
+   *         was stopped
+   */
+  public long getPlayheadInMillis(long nowNanos) {
+    if (currentVideo == null) {
+      return 0;
+    }
+
+    long playhead = isPlaying
+        ? TimeUnit.NANOSECONDS.toMillis(nowNanos - currentVideoStartedAtNanos)
+        : pausedPlayheadInMillis;
+    long duration = TimeUnit.SECONDS.toMillis(currentVideo.getDurationInSeconds());
+
+    return Math.max(0, Math.min(playhead, duration));
+  }
+
+  public long getPlayheadInSeconds(long nowNanos) {
+    return getPlayheadInMillis(nowNanos) / 1000;
+  }
+
+  /**
+   * Get the video being played.
+   *
+   * @return the video, or null if the archive queue ran dry
+   */
+  public ArchivedVideo getCurrentVideo() {
+    return currentVideo;
+  }
+
+  /**
+   * Get the video that comes after the current one.
+   *
+   * @return the video, or null if nothing is queued
+   */
+  public ArchivedVideo getNextVideo() {
+    return queue.peek();
+  }
+
+  /**
+   * Get a page of the videos queued after the current one.
+   *
+   * @param cursor Cursor from the previous page, or {@link ArchiveQueuePage#NO_CURSOR} to start
+   *               from the front of the queue
+   * @param limit  Most videos on the page
+   * @return the page
+   */
+  public ArchiveQueuePage getQueuePage(long cursor, int limit) {
+    long from = cursor == ArchiveQueuePage.NO_CURSOR ? queue.getHeadPosition() : cursor;
+    from = Math.max(from, queue.getHeadPosition());
+
+    List<ArchivedVideo> videos = queue.page(from, limit);
+
+    long end = from + videos.size();
+    long nextCursor = end < queue.getHeadPosition() + queue.size() ? end
+        : ArchiveQueuePage.NO_CURSOR;
+
+    return new ArchiveQueuePage(this, videos, nextCursor);
+  }
+
+  public int getQueuedCount() {
+    return queue.size();
+  }
+
+  /**
+   * Get how much is buffered in the queue after the current video.
+   *
+   * @return total duration of the queued videos in seconds
+   */
+  public long getBufferedAheadInSeconds() {
+    return queuedSeconds;
+  }
+
+  public boolean isPlaying() {
+    return isPlaying;
+  }
+}
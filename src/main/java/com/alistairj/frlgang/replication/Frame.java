@@ -0,0 +1,70 @@
+package com.alistairj.frlgang.replication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A message between the leading instance and one following it.
+ *
+ * <p>
+ * Written as the length of the rest of the frame, a type byte and the payload. Snapshots go from
+ * the leader to followers, and shows sent to /track on a follower go the other way.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+final class Frame {
+
+  static final byte SNAPSHOT = 1;
+
+  static final byte TRACK = 2;
+
+  /**
+   * Frames longer than this are not from another instance.
+   */
+  private static final int MAX_LENGTH = 1 << 20;
+
+  private final byte type;
+
+  private final byte[] payload;
+
+  Frame(byte type, byte[] payload) {
+    this.type = type;
+    this.payload = payload;
+  }
+
+  void writeTo(DataOutputStream out) throws IOException {
+    out.writeInt(payload.length + 1);
+    out.writeByte(type);
+    out.write(payload);
+    out.flush();
+  }
+
+  /**
+   * Read the next frame, waiting for it to arrive.
+   *
+   * @param in Where to read it from
+   * @return the frame
+   * @throws IOException Thrown if the other end went away, or sent something that is not a frame
+   */
+  static Frame readFrom(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 1 || length > MAX_LENGTH) {
+      throw new IOException("Bad replication frame length " + length);
+    }
+
+    byte type = in.readByte();
+    byte[] payload = new byte[length - 1];
+    in.readFully(payload);
+    return new Frame(type, payload);
+  }
+
+  byte getType() {
+    return type;
+  }
+
+  byte[] getPayload() {
+    return payload;
+  }
+}
@@ -0,0 +1,91 @@
+package com.alistairj.frlgang.replication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Says which instance on a host leads, by which one holds the lock on a file.
+ *
+ * <p>
+ * The operating system lets go of the lock when the process holding it dies, however it dies,
+ * so another instance can take over without the leader having to step down.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+final class LeaderLock implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(LeaderLock.class);
+
+  private final Path path;
+
+  private FileChannel channel;
+
+  private FileLock lock;
+
+  LeaderLock(Path path) {
+    this.path = path;
+  }
+
+  /**
+   * Take the lock if nobody holds it.
+   *
+   * @return true if this instance holds the lock
+   */
+  synchronized boolean tryAcquire() {
+    if (lock != null) {
+      return true;
+    }
+
+    try {
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      lock = channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // held by another instance in this JVM
+      lock = null;
+    } catch (IOException e) {
+      logger.warn("Unable to lock {}", path, e);
+      lock = null;
+    }
+
+    if (lock == null) {
+      closeChannel();
+    }
+    return lock != null;
+  }
+
+  synchronized boolean isHeld() {
+    return lock != null;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (lock != null) {
+      try {
+        lock.release();
+      } catch (IOException e) {
+        logger.warn("Unable to unlock {}", path, e);
+      }
+      lock = null;
+    }
+    closeChannel();
+  }
+
+  private void closeChannel() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        logger.warn("Unable to close {}", path, e);
+      }
+      channel = null;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.alistairj.frlgang.replication;
+
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.LiveShow;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.RadioPlayerState;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the leading instance found out from YouTube, sent to the instances following it.
+ *
+ * <p>
+ * Only the live shows are sent. The archive plays a schedule every instance works out for itself,
+ * so there is nothing of it to send. Written as the status, then the live show on air if there is
+ * one, then a count of upcoming shows and each show in turn.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+final class LiveShowsSnapshot {
+
+  private final BroadcastStatus status;
+
+  private final LiveShow currentLiveShow;
+
+  private final List<LiveShow> upcomingShows;
+
+  LiveShowsSnapshot(BroadcastStatus status, LiveShow currentLiveShow,
+      List<LiveShow> upcomingShows) {
+    this.status = status;
+    this.currentLiveShow = currentLiveShow;
+    this.upcomingShows = upcomingShows;
+  }
+
+  static LiveShowsSnapshot of(RadioPlayerState state) {
+    return new LiveShowsSnapshot(state.getStatus(), state.getCurrentLiveShow(),
+        state.getUpcomingShows());
+  }
+
+  byte[] toBytes() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(status.ordinal());
+      out.writeBoolean(currentLiveShow != null);
+      if (currentLiveShow != null) {
+        currentLiveShow.writeTo(out);
+      }
+      out.writeInt(upcomingShows.size());
+      for (LiveShow show : upcomingShows) {
+        show.writeTo(out);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static LiveShowsSnapshot fromBytes(byte[] bytes) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      int ordinal = in.readUnsignedByte();
+      if (ordinal >= BroadcastStatus.values().length) {
+        throw new IOException("Unknown broadcast status " + ordinal);
+      }
+      BroadcastStatus status = BroadcastStatus.values()[ordinal];
+
+      LiveShow current = in.readBoolean() ? LiveShow.readFrom(in) : null;
+
+      int count = in.readInt();
+      List<LiveShow> upcoming = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        upcoming.add(LiveShow.readFrom(in));
+      }
+
+      return new LiveShowsSnapshot(status, current, Collections.unmodifiableList(upcoming));
+    }
+  }
+
+  /**
+   * Publish the shows on a radio player, as if its own live player had found them.
+   *
+   * @param rp The radio player
+   */
+  void applyTo(RadioPlayer rp) {
+    rp.setLiveShows(status, currentLiveShow, upcomingShows);
+  }
+
+  BroadcastStatus getStatus() {
+    return status;
+  }
+
+  LiveShow getCurrentLiveShow() {
+    return currentLiveShow;
+  }
+
+  List<LiveShow> getUpcomingShows() {
+    return upcomingShows;
+  }
+}
@@ -0,0 +1,237 @@
+package com.alistairj.frlgang.replication;
+
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.RadioPlayerListener;
+import com.alistairj.frlgang.player.RadioPlayerState;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lets several instances on one host serve listeners while only one of them asks YouTube
+ * anything.
+ *
+ * <p>
+ * Whichever instance holds the {@link LeaderLock} leads: it polls YouTube as usual and sends a
+ * {@link LiveShowsSnapshot} to the others every time the live shows change. The others follow:
+ * they publish the snapshots as they arrive, read the archive catalog the leader saves, and send
+ * shows sent to /track on to the leader. So the quota spent is the same however many instances
+ * there are. Followers keep trying the lock, and one of them takes over if the leader dies.
+ * </p>
+ *
+ * <p>
+ * Every instance starts out following, and only asks YouTube anything once it holds the lock. If
+ * it cannot get ready to poll, such as when the YouTube API cannot be initialized, it lets go of
+ * the lock straight away so an instance that can poll leads instead.
+ * </p>
+ *
+ * <p>
+ * Turned on by setting the replication.port system property to the same port on every instance.
+ * The lock file can be set with replication.lock.path, otherwise it goes in the temporary
+ * directory. The archive catalog path has to be the same on every instance too.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class Replication implements RadioPlayerListener, Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(Replication.class);
+
+  private static final String PORT_PROPERTY = "replication.port";
+
+  private static final String LOCK_PATH_PROPERTY = "replication.lock.path";
+
+  private static final String DEFAULT_LOCK_FILE_NAME = "efferalgang-leader.lock";
+
+  private static final long ELECTION_INTERVAL_MILLIS = 2000L;
+
+  private final int port;
+
+  private final LeaderLock lock;
+
+  private final ScheduledExecutorService elector =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "replication-elector");
+        t.setDaemon(true);
+        return t;
+      });
+
+  private RadioPlayer rp;
+
+  private BooleanSupplier readyToLead;
+
+  /**
+   * Set once this instance holds the lock and is ready to poll, the lock alone is not enough.
+   */
+  private volatile boolean isLeading = false;
+
+  private volatile SnapshotServer server;
+
+  private SnapshotClient client;
+
+  /**
+   * Build a new Replication. Nothing happens until it is started.
+   *
+   * @param port     Port the leader listens on, on the loopback interface
+   * @param lockPath File whose lock says who leads
+   */
+  public Replication(int port, Path lockPath) {
+    this.port = port;
+    this.lock = new LeaderLock(lockPath);
+
+    Gauge.builder("replication.leader", this, r -> r.isLeader() ? 1 : 0)
+        .description("Whether this instance polls YouTube for the others")
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Build a Replication from the system properties.
+   *
+   * @return the replication, or null if it is turned off
+   */
+  public static Replication fromSystemProperties() {
+    Integer port = Integer.getInteger(PORT_PROPERTY);
+    if (port == null) {
+      return null;
+    }
+
+    String path = System.getProperty(LOCK_PATH_PROPERTY);
+    Path lockPath = path != null && path.isEmpty() == false ? Paths.get(path)
+        : Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_LOCK_FILE_NAME);
+    return new Replication(port, lockPath);
+  }
+
+  /**
+   * Follow with a radio player, and keep trying to lead.
+   *
+   * @param rp          The radio player, built following
+   * @param readyToLead Called on the election thread once this instance holds the lock, to get
+   *                    it ready to poll YouTube. Returns false to let go of the lock and try again
+   *                    at a later election.
+   */
+  public synchronized void start(RadioPlayer rp, BooleanSupplier readyToLead) {
+    this.rp = rp;
+    this.readyToLead = readyToLead;
+    rp.addListener(this);
+
+    follow();
+
+    elector.scheduleWithFixedDelay(this::elect, 0, ELECTION_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Does this instance lead, and so ask YouTube for the others.
+   *
+   * @return true if it leads
+   */
+  public boolean isLeader() {
+    return isLeading;
+  }
+
+  private synchronized void elect() {
+    if (elector.isShutdown()) {
+      // closed while waiting
+      return;
+    }
+
+    if (isLeading) {
+      if (server == null) {
+        // the port was still taken last time
+        startServer();
+      }
+      return;
+    }
+
+    // a follower that started before the leader saved the catalog has nothing to play yet
+    rp.getArchivePlayer().refillIfEmpty();
+
+    if (lock.tryAcquire() == false) {
+      return;
+    }
+
+    if (readyToLead.getAsBoolean() == false) {
+      // let an instance that can poll lead
+      lock.close();
+      return;
+    }
+
+    logger.info("No other instance leads, taking over");
+    lead();
+  }
+
+  private void lead() {
+    client.close();
+    client = null;
+    rp.getLivePlayer().setTrackForwarder(null);
+
+    rp.getArchivePlayer().setFollowing(false);
+    isLeading = true;
+    startServer();
+
+    rp.getLivePlayer().takeOver();
+  }
+
+  private void startServer() {
+    try {
+      server = new SnapshotServer(port, rp.getLivePlayer()::track);
+      server.publish(LiveShowsSnapshot.of(rp.getState()));
+    } catch (IOException e) {
+      logger.error("Unable to listen for followers on port {}, trying again", port, e);
+    }
+  }
+
+  private void follow() {
+    logger.info("Another instance leads, following it on port {}", port);
+    rp.getArchivePlayer().setFollowing(true);
+    client = new SnapshotClient(port, snapshot -> snapshot.applyTo(rp));
+    rp.getLivePlayer().setTrackForwarder(client::sendTrack);
+  }
+
+  /**
+   * Stop trying to lead, stop following or leading, and let go of the lock.
+   */
+  @Override
+  public synchronized void close() {
+    elector.shutdownNow();
+    if (client != null) {
+      client.close();
+      client = null;
+    }
+    if (server != null) {
+      server.close();
+      server = null;
+    }
+    isLeading = false;
+    lock.close();
+  }
+
+  @Override
+  public void onStatusChanged(BroadcastStatus status) {
+    // sent with the live shows
+  }
+
+  @Override
+  public void onTrackChanged(ArchivedVideo video) {
+    // every instance plays the same archive schedule
+  }
+
+  @Override
+  public void onLiveShowsChanged(RadioPlayerState state) {
+    SnapshotServer s = server;
+    if (s != null) {
+      s.publish(LiveShowsSnapshot.of(state));
+    }
+  }
+}
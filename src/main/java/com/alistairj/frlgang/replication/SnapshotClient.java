@@ -0,0 +1,135 @@
+package com.alistairj.frlgang.replication;
+
+import com.alistairj.frlgang.player.LiveShow;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives snapshots from the leading instance, connecting again whenever the connection drops.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+final class SnapshotClient implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotClient.class);
+
+  private static final long RECONNECT_MILLIS = 1000L;
+
+  private final int port;
+
+  private final Consumer<LiveShowsSnapshot> onSnapshot;
+
+  private final Thread receiver;
+
+  private volatile boolean isClosed = false;
+
+  private Socket socket;
+
+  private DataOutputStream out;
+
+  /**
+   * Start connecting to the leader.
+   *
+   * @param port       Port the leader listens on, on the loopback interface
+   * @param onSnapshot Told about every snapshot, on the receiving thread
+   */
+  SnapshotClient(int port, Consumer<LiveShowsSnapshot> onSnapshot) {
+    this.port = port;
+    this.onSnapshot = onSnapshot;
+
+    receiver = new Thread(this::receive, "replication-client");
+    receiver.setDaemon(true);
+    receiver.start();
+  }
+
+  private void receive() {
+    while (isClosed == false) {
+      try (Socket s = new Socket(InetAddress.getLoopbackAddress(), port)) {
+        s.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+        connected(s);
+        logger.info("Following the leader on port {}", port);
+
+        while (isClosed == false) {
+          Frame frame = Frame.readFrom(in);
+          if (frame.getType() == Frame.SNAPSHOT) {
+            onSnapshot.accept(LiveShowsSnapshot.fromBytes(frame.getPayload()));
+          }
+        }
+      } catch (IOException e) {
+        if (isClosed == false) {
+          logger.debug("No leader on port {}, trying again", port, e);
+        }
+      } finally {
+        disconnected();
+      }
+
+      try {
+        Thread.sleep(RECONNECT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private synchronized void connected(Socket s) throws IOException {
+    socket = s;
+    out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+  }
+
+  private synchronized void disconnected() {
+    socket = null;
+    out = null;
+  }
+
+  /**
+   * Send a show sent to /track here to the leader, to keep an eye on. Dropped if there is no
+   * leader to send it to.
+   *
+   * @param show The show
+   */
+  synchronized void sendTrack(LiveShow show) {
+    if (out == null) {
+      logger.warn("No leader to track {} for", show.getId());
+      return;
+    }
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      show.writeTo(new DataOutputStream(bytes));
+      new Frame(Frame.TRACK, bytes.toByteArray()).writeTo(out);
+    } catch (IOException e) {
+      logger.warn("Unable to send {} to the leader", show.getId(), e);
+    }
+  }
+
+  synchronized boolean isConnected() {
+    return socket != null;
+  }
+
+  @Override
+  public void close() {
+    isClosed = true;
+    receiver.interrupt();
+    synchronized (this) {
+      if (socket != null) {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          logger.debug("Unable to close the replication socket", e);
+        }
+      }
+    }
+  }
+}
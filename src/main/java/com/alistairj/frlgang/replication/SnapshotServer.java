@@ -0,0 +1,226 @@
+package com.alistairj.frlgang.replication;
+
+import com.alistairj.frlgang.player.LiveShow;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends snapshots from the leading instance to every instance following it, over TCP on the
+ * loopback interface.
+ *
+ * <p>
+ * A follower is sent the latest snapshot as soon as it connects, and then every snapshot after
+ * it, in the order they were published. Each follower has a thread and a short queue of its own,
+ * so publishing never waits on a follower and a stalled follower holds up nobody else. A follower
+ * that falls so far behind that its queue fills up is dropped, and gets the latest snapshot again
+ * when it reconnects.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+final class SnapshotServer implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotServer.class);
+
+  /**
+   * Snapshots a follower can be behind by before it is dropped.
+   */
+  static final int MAX_PENDING_FRAMES = 16;
+
+  private final ServerSocket serverSocket;
+
+  private final Consumer<LiveShow> onTrack;
+
+  private final List<Follower> followers = new CopyOnWriteArrayList<>();
+
+  /**
+   * Guarded by this, so a follower connecting while a snapshot is published gets it once.
+   */
+  private Frame latest;
+
+  private volatile boolean isClosed = false;
+
+  /**
+   * A connected follower.
+   */
+  private final class Follower {
+
+    private final Socket socket;
+
+    private final DataOutputStream out;
+
+    private final BlockingQueue<Frame> pending = new ArrayBlockingQueue<>(MAX_PENDING_FRAMES);
+
+    private final Thread sender;
+
+    private Follower(Socket socket) throws IOException {
+      this.socket = socket;
+      this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+      sender = new Thread(this::sendPending, "replication-send");
+      sender.setDaemon(true);
+    }
+
+    /**
+     * Queue a frame for this follower, dropping the follower if it is too far behind.
+     */
+    private void send(Frame frame) {
+      if (pending.offer(frame) == false) {
+        logger.warn("Follower {} is {} snapshots behind, dropping it",
+            socket.getRemoteSocketAddress(), MAX_PENDING_FRAMES);
+        close();
+      }
+    }
+
+    private void sendPending() {
+      try {
+        while (true) {
+          pending.take().writeTo(out);
+        }
+      } catch (IOException e) {
+        if (isClosed == false && socket.isClosed() == false) {
+          logger.info("Dropping follower {}", socket.getRemoteSocketAddress(), e);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        close();
+      }
+    }
+
+    private void receive() {
+      try (DataInputStream in = new DataInputStream(socket.getInputStream())) {
+        while (true) {
+          Frame frame = Frame.readFrom(in);
+          if (frame.getType() == Frame.TRACK) {
+            onTrack.accept(LiveShow.readFrom(
+                new DataInputStream(new ByteArrayInputStream(frame.getPayload()))));
+          }
+        }
+      } catch (IOException e) {
+        if (isClosed == false) {
+          logger.info("Follower {} went away", socket.getRemoteSocketAddress());
+        }
+      } finally {
+        close();
+      }
+    }
+
+    private void close() {
+      followers.remove(this);
+      sender.interrupt();
+      try {
+        socket.close();
+      } catch (IOException e) {
+        logger.debug("Unable to close follower socket", e);
+      }
+    }
+  }
+
+  /**
+   * Start listening for followers.
+   *
+   * @param port    Port on the loopback interface
+   * @param onTrack Told about every show sent to /track on a follower
+   * @throws IOException Thrown if the port cannot be listened on
+   */
+  SnapshotServer(int port, Consumer<LiveShow> onTrack) throws IOException {
+    this.onTrack = onTrack;
+
+    serverSocket = new ServerSocket();
+    serverSocket.setReuseAddress(true);
+    serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+    Thread acceptor = new Thread(this::accept, "replication-accept");
+    acceptor.setDaemon(true);
+    acceptor.start();
+
+    logger.info("Sending snapshots to followers on port {}", serverSocket.getLocalPort());
+  }
+
+  private void accept() {
+    while (isClosed == false) {
+      try {
+        Socket socket = serverSocket.accept();
+        socket.setTcpNoDelay(true);
+        Follower follower = new Follower(socket);
+        logger.info("Follower connected from {}", socket.getRemoteSocketAddress());
+
+        synchronized (this) {
+          if (latest != null) {
+            follower.send(latest);
+          }
+          followers.add(follower);
+        }
+        follower.sender.start();
+
+        Thread receiver = new Thread(follower::receive, "replication-receive");
+        receiver.setDaemon(true);
+        receiver.start();
+      } catch (IOException e) {
+        if (isClosed == false) {
+          logger.error("Unable to accept a follower", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Send a snapshot to every follower, and to followers that connect later.
+   *
+   * @param snapshot The snapshot
+   */
+  void publish(LiveShowsSnapshot snapshot) {
+    byte[] payload;
+    try {
+      payload = snapshot.toBytes();
+    } catch (IOException e) {
+      logger.error("Unable to write a snapshot", e);
+      return;
+    }
+
+    Frame frame = new Frame(Frame.SNAPSHOT, payload);
+    synchronized (this) {
+      latest = frame;
+      for (Follower follower : followers) {
+        follower.send(frame);
+      }
+    }
+  }
+
+  int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  int getFollowerCount() {
+    return followers.size();
+  }
+
+  @Override
+  public void close() {
+    isClosed = true;
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+      logger.debug("Unable to close the replication socket", e);
+    }
+    for (Follower follower : followers) {
+      follower.close();
+    }
+  }
+}
@@ -1,11 +1,10 @@
 package com.alistairj.frlgang.utils;
 
+import com.alistairj.frlgang.player.LiveShow;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.api.client.util.DateTime;
-import com.google.api.services.youtube.model.Video;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
-import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -25,13 +24,6 @@ public class RadioPlayerUtils {
 
   private static final Logger logger = LoggerFactory.getLogger(RadioPlayerUtils.class);
 
-  private static final String DEFAULT_IMG =
-      "https://img.discogs.com/oAOHL8Zan84rK6JiRUs60breU68=/fit-in/600x601/filters:strip_icc():format(jpeg):mode_rgb():quality(90)/discogs-images/R-3471433-1331680516.jpeg.jpg";
-
-  private static final int UPCOMING_START_BEFORE_MINUTES = 2;
-
-  private static final int UPCOMING_END_AFTER_MINUTES = 10;
-
   private RadioPlayerUtils() {
     // private constructor
   }
@@ -39,152 +31,41 @@ public class RadioPlayerUtils {
   /**
    * Print some nice log.
    *
-   * @param upcomers The upcoming videos to print.
+   * @param upcomers The upcoming shows to print.
    */
-  public static void printUpcomingShows(List<Video> upcomers) {
-    Video upcoming;
-    if (upcomers.size() > 0) {
-      upcoming = upcomers.get(0);
-      logger.debug("1st upcoming video scheduled at:{}, id:{}, name:{}",
-          upcoming.getLiveStreamingDetails().getScheduledStartTime().toStringRfc3339(),
-          upcoming.getId(), upcoming.getSnippet().getTitle());
-    }
-
-    if (upcomers.size() > 1) {
-      upcoming = upcomers.get(1);
-      logger.debug("2nd upcoming video scheduled at:{}, id:{}, name:{}",
-          upcoming.getLiveStreamingDetails().getScheduledStartTime().toStringRfc3339(),
-          upcoming.getId(), upcoming.getSnippet().getTitle());
-    }
-
-    if (upcomers.size() > 2) {
-      upcoming = upcomers.get(2);
-      logger.debug("3rd upcoming video scheduled at:{}, id:{}, name:{}",
-          upcoming.getLiveStreamingDetails().getScheduledStartTime().toStringRfc3339(),
-          upcoming.getId(), upcoming.getSnippet().getTitle());
+  public static void printUpcomingShows(List<LiveShow> upcomers) {
+    String[] ordinals = {"1st", "2nd", "3rd"};
+    for (int i = 0; i < upcomers.size() && i < ordinals.length; i++) {
+      LiveShow upcoming = upcomers.get(i);
+      logger.debug("{} upcoming video scheduled at:{}, id:{}, name:{}", ordinals[i],
+          upcoming.getScheduledStartRfc3339(), upcoming.getId(), upcoming.getTitle());
     }
   }
 
-  public static void writeVideoInfo(JsonGenerator g, Video v) throws IOException {
-    g.writeStringField("id", v.getId());
-    g.writeStringField("title", v.getSnippet().getTitle());
-    try {
-      g.writeStringField("scheduled_at",
-          v.getLiveStreamingDetails().getScheduledStartTime().toStringRfc3339());
-    } catch (NullPointerException e) {
+  /**
+   * Write the fields of a show that the front end needs.
+   *
+   * @param g Generator to write to
+   * @param s Show to write
+   * @throws IOException Thrown if the generator cannot be written to
+   */
+  public static void writeShowInfo(JsonGenerator g, LiveShow s) throws IOException {
+    g.writeStringField("id", s.getId());
+    g.writeStringField("title", s.getTitle());
+    if (s.getScheduledStartRfc3339() == null) {
       g.writeStringField("scheduled_at", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX")
           .format(new Date()));
+    } else {
+      g.writeStringField("scheduled_at", s.getScheduledStartRfc3339());
     }
 
     g.writeObjectFieldStart("thumbnail");
-
-    try {
-      g.writeStringField("url", v.getSnippet().getThumbnails().getStandard().getUrl());
-      g.writeNumberField("w", v.getSnippet().getThumbnails().getStandard().getWidth());
-      g.writeNumberField("h", v.getSnippet().getThumbnails().getStandard().getHeight());
-
-    } catch (NullPointerException e) {
-      g.writeStringField("url", DEFAULT_IMG);
-      g.writeNumberField("w", 600);
-      g.writeNumberField("h", 600);
-    }
+    g.writeStringField("url", s.getThumbnailUrl());
+    g.writeNumberField("w", s.getThumbnailWidth());
+    g.writeNumberField("h", s.getThumbnailHeight());
     g.writeEndObject();
   }
 
-  /**
-   * Examines the scheduled times in the list to see if there is a video that is starting
-   * imminently.
-   *
-   * @param upcomingList The list of videos sorted by scheduled time.
-   * @return video Upcoming video, or null if there is none.
-   */
-  public static Video isUpcomingVideoPending(List<Video> upcomingList) {
-    if (upcomingList == null) {
-      return null;
-    }
-
-    for (Video v : upcomingList) {
-      DateTime dt = v.getLiveStreamingDetails().getScheduledStartTime();
-      ZonedDateTime scheduled = getDateTime(dt);
-      ZonedDateTime now = ZonedDateTime.now();
-      ZonedDateTime fiveMinutesBefore = scheduled.minusMinutes(UPCOMING_START_BEFORE_MINUTES);
-      ZonedDateTime fiveMinutesAfter = scheduled.plusMinutes(UPCOMING_END_AFTER_MINUTES);
-
-      if (now.isBefore(fiveMinutesAfter) && now.isAfter(fiveMinutesBefore)) {
-        return v;
-      }
-    }
-
-    return null;
-  }
-
-  public static boolean isFirstVideoScheduledAfterSecond(Video v1, Video v2) {
-
-    DateTime video1time = v1.getLiveStreamingDetails().getScheduledStartTime();
-    DateTime video2time = v2.getLiveStreamingDetails().getScheduledStartTime();
-
-    if (video1time == null) {
-      return false;
-    }
-
-    if (video2time == null) {
-      return true;
-    }
-
-    ZonedDateTime d1 = getDateTime(video1time);
-    ZonedDateTime d2 = getDateTime(video2time);
-
-    return d1.isAfter(d2);
-  }
-
-  /**
-   * Has a live video ended. It must have at least the "liveStreamingDetails" and "contentDetails"
-   * defined.
-   *
-   * @param v Video to check
-   * @return true if it has ended.
-   */
-  public static boolean hasLiveVideoEnded(Video v) {
-
-    if (v.getContentDetails().getDuration().equals("P0D")) {  // it is a live stream
-
-      return v.getLiveStreamingDetails().getActualEndTime() != null;
-
-    } else { // it is a premiere or the weird direct livestream bug in youtube
-
-      if (v.getLiveStreamingDetails().getActualEndTime() != null) {
-        return true;
-      }
-
-      logger.debug("Checking premiere video id:{} to see if it has ended", v.getSnippet().getTitle());
-      DateTime dt = v.getLiveStreamingDetails().getScheduledStartTime();
-      long duration = Duration.parse(v.getContentDetails().getDuration()).getSeconds();
-
-      // + 2 minutes because of youtube's cheesy countdown
-      ZonedDateTime scheduledEndTime = getDateTime(dt).plusMinutes(2L).plusSeconds(duration);
-      ZonedDateTime now = ZonedDateTime.now();
-
-      return now.isAfter(scheduledEndTime);
-    }
-  }
-
-  public static boolean isVideoLive(Video v) {
-
-    if (v.getContentDetails().getDuration().equals("P0D")) {  // it is a live stream
-
-      return v.getLiveStreamingDetails().getActualStartTime() != null;
-
-    } else { // it is a premiere
-
-      DateTime dt = v.getLiveStreamingDetails().getScheduledStartTime();
-
-      ZonedDateTime now = ZonedDateTime.now();
-      ZonedDateTime scheduledStartTime = getDateTime(dt);
-
-      return now.isAfter(scheduledStartTime);
-    }
-  }
-
   public static ZonedDateTime getDateTime(DateTime dt) {
     Instant instant = Instant.ofEpochSecond(dt.getValue() / 1000);
     return ZonedDateTime.ofInstant(instant, ZoneOffset.UTC);
@@ -0,0 +1,134 @@
+package com.alistairj.frlgang;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.youtube.YouTube;
+import com.google.api.services.youtube.model.VideoListResponse;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ApiKeyPoolTest {
+
+  private static final Clock CLOCK = Clock.fixed(Instant.parse("2020-09-14T17:00:00Z"),
+      ZoneOffset.UTC);
+
+  private static final String QUOTA_EXCEEDED = "{\"error\":{\"code\":403,"
+      + "\"message\":\"The request cannot be completed because you have exceeded your quota.\","
+      + "\"errors\":[{\"domain\":\"youtube.quota\",\"reason\":\"quotaExceeded\"}]}}";
+
+  /**
+   * Answers every request with a 403 quotaExceeded for the exhausted keys, and no videos for the
+   * others.
+   */
+  private static class QuotaTransport extends MockHttpTransport {
+
+    private final List<String> exhaustedKeys;
+
+    private final List<String> requestedKeys = new ArrayList<>();
+
+    QuotaTransport(String... exhaustedKeys) {
+      this.exhaustedKeys = Arrays.asList(exhaustedKeys);
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(String method, String url) {
+      String key = url.replaceAll(".*[?&]key=([^&]*).*", "$1");
+      requestedKeys.add(key);
+
+      return new MockLowLevelHttpRequest(url) {
+        @Override
+        public LowLevelHttpResponse execute() {
+          MockLowLevelHttpResponse response = new MockLowLevelHttpResponse()
+              .setContentType("application/json");
+          if (exhaustedKeys.contains(key)) {
+            return response.setStatusCode(403).setContent(QUOTA_EXCEEDED);
+          }
+          return response.setContent("{\"items\":[]}");
+        }
+      };
+    }
+  }
+
+  private static YouTube.Videos.List listRequest(QuotaTransport transport) throws IOException {
+    return new YouTube.Builder(transport, JacksonFactory.getDefaultInstance(), null)
+        .setApplicationName("test")
+        .build()
+        .videos()
+        .list("id")
+        .setId("dQw4w9WgXcQ");
+  }
+
+  @Test
+  public void testParseKeys() {
+    Assert.assertEquals(Collections.singletonList("a"), ApiKeyPool.parseKeys("a"));
+    Assert.assertEquals(Arrays.asList("a", "b"), ApiKeyPool.parseKeys("a; b;"));
+  }
+
+  @Test
+  public void testChoose_mostRemaining() {
+    ApiKeyPool pool = new ApiKeyPool(Arrays.asList("a", "b", "c"), 10000, CLOCK);
+    List<ApiKeyPool.ApiKey> keys = pool.getKeys();
+
+    Assert.assertEquals(30000, pool.getQuotaLedger().getRemainingUnits());
+    Assert.assertSame(keys.get(0), pool.choose(Collections.emptyList()));
+
+    keys.get(0).getQuotaLedger().charge(300);
+    keys.get(1).getQuotaLedger().charge(100);
+    keys.get(2).getQuotaLedger().charge(200);
+    Assert.assertSame(keys.get(1), pool.choose(Collections.emptyList()));
+    Assert.assertSame(keys.get(2), pool.choose(Collections.singletonList(keys.get(1))));
+  }
+
+  @Test
+  public void testRetire_untilReset() {
+    ApiKeyPool pool = new ApiKeyPool(Arrays.asList("a", "b"), 10000, CLOCK);
+    ApiKeyPool.ApiKey first = pool.getKeys().get(0);
+
+    first.getQuotaLedger().charge(100);
+    pool.getQuotaLedger().charge(100);
+    pool.retire(first);
+
+    Assert.assertEquals(0, first.getQuotaLedger().getRemainingUnits());
+    Assert.assertEquals(10000, pool.getQuotaLedger().getRemainingUnits());
+    Assert.assertEquals(1, pool.getAvailableCount());
+    Assert.assertSame(pool.getKeys().get(1), pool.choose(Collections.emptyList()));
+  }
+
+  @Test
+  public void testExecute_failsOverOnQuotaExceeded() throws IOException {
+    ApiKeyPool pool = new ApiKeyPool(Arrays.asList("a", "b"), 10000, CLOCK);
+    QuotaTransport transport = new QuotaTransport("a");
+
+    VideoListResponse response = pool.execute(listRequest(transport), QuotaLedger.LIST_COST);
+    Assert.assertTrue(response.getItems().isEmpty());
+    Assert.assertEquals(Arrays.asList("a", "b"), transport.requestedKeys);
+
+    // the retired key is left alone until the reset
+    pool.execute(listRequest(transport), QuotaLedger.LIST_COST);
+    Assert.assertEquals(Arrays.asList("a", "b", "b"), transport.requestedKeys);
+    // the call turned down for quota cost nothing
+    Assert.assertEquals(2, pool.getQuotaLedger().getTotalSpent());
+  }
+
+  @Test(expected = IOException.class)
+  public void testExecute_everyKeyExceeded() throws IOException {
+    ApiKeyPool pool = new ApiKeyPool(Arrays.asList("a", "b"), 10000, CLOCK);
+    pool.execute(listRequest(new QuotaTransport("a", "b")), QuotaLedger.LIST_COST);
+  }
+}
@@ -0,0 +1,423 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.ReplayScript.ScriptedShow;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.Channel;
+import com.google.api.services.youtube.model.ChannelContentDetails;
+import com.google.api.services.youtube.model.ChannelListResponse;
+import com.google.api.services.youtube.model.PlaylistItem;
+import com.google.api.services.youtube.model.PlaylistItemContentDetails;
+import com.google.api.services.youtube.model.PlaylistItemListResponse;
+import com.google.api.services.youtube.model.PlaylistItemSnippet;
+import com.google.api.services.youtube.model.ResourceId;
+import com.google.api.services.youtube.model.SearchListResponse;
+import com.google.api.services.youtube.model.SearchResult;
+import com.google.api.services.youtube.model.ThumbnailDetails;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoContentDetails;
+import com.google.api.services.youtube.model.VideoListResponse;
+import com.google.api.services.youtube.model.VideoLiveStreamingDetails;
+import com.google.api.services.youtube.model.VideoSnippet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Stands in for the YouTube Data API and the channel feed, on localhost.
+ *
+ * <p>
+ * Serves channels, playlistItems, search and videos as YouTube would for a channel whose shows
+ * follow a {@link ReplayScript}, at whatever time the clock says it is. Every API call is held
+ * back for a made up latency, exponentially distributed around the mean given, so the timings
+ * the YouTube service records look like the real thing.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class FakeYouTubeApi {
+
+  public static final String CHANNEL_ID = "UCreplayChannel00000000";
+
+  public static final String ARCHIVE_PLAYLIST_ID = "PLreplayArchive";
+
+  private static final String UPLOADS_PLAYLIST_ID = "UUreplayUploads";
+
+  private static final String API_PATH = "/youtube/v3/";
+
+  private static final String FEED_PATH = "/feeds/videos.xml";
+
+  private static final int FEED_SIZE = 15;
+
+  private static final int DEFAULT_PAGE_SIZE = 5;
+
+  private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+
+  /**
+   * Archive videos went out long before the replay starts.
+   */
+  private static final Duration ARCHIVE_AGE = Duration.ofDays(30);
+
+  static {
+    // small responses otherwise sit out the client's delayed ACK, ~40ms on every call
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  private final ReplayScript script;
+
+  private final Clock clock;
+
+  private final long meanLatencyMillis;
+
+  private final Random latencyRandom = new Random(42);
+
+  private final List<ArchivedVideo> archive;
+
+  private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+  private final HttpServer server;
+
+  /**
+   * Build a new FakeYouTubeApi. Nothing is served until it is started.
+   *
+   * @param script            What happens on the channel
+   * @param clock             What time it is on the channel
+   * @param meanLatencyMillis Mean time each API call takes
+   * @throws IOException Thrown if no local port is free
+   */
+  public FakeYouTubeApi(ReplayScript script, Clock clock, long meanLatencyMillis)
+      throws IOException {
+    this.script = script;
+    this.clock = clock;
+    this.meanLatencyMillis = meanLatencyMillis;
+    this.archive = ShowFixtures.archivedVideos(script.getArchiveSize(), 42);
+
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(API_PATH, this::handleApi);
+    server.createContext(FEED_PATH, this::handleFeed);
+    server.setExecutor(Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r, "fake-youtube-api");
+      t.setDaemon(true);
+      return t;
+    }));
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  public void stop() {
+    server.stop(0);
+  }
+
+  /**
+   * Get the root URL to hand to the YouTube client.
+   *
+   * @return the URL, ending with a slash
+   */
+  public String getRootUrl() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+        + "/";
+  }
+
+  /**
+   * Get how many times each resource was asked for, the channel feed included.
+   *
+   * @return requests by resource name
+   */
+  public Map<String, Integer> getRequestCounts() {
+    Map<String, Integer> counts = new HashMap<>();
+    requestCounts.forEach((k, v) -> counts.put(k, v.get()));
+    return counts;
+  }
+
+  private void handleApi(HttpExchange exchange) throws IOException {
+    String resource = exchange.getRequestURI().getPath().substring(API_PATH.length());
+    Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+    Instant now = clock.instant();
+
+    count(resource);
+    simulateLatency();
+
+    Object response;
+    switch (resource) {
+      case "channels":
+        response = channels(params);
+        break;
+      case "playlistItems":
+        response = playlistItems(params, now);
+        break;
+      case "search":
+        response = search(params, now);
+        break;
+      case "videos":
+        response = videos(params, now);
+        break;
+      default:
+        respond(exchange, 404, "application/json", "{\"error\":{\"code\":404}}");
+        return;
+    }
+
+    respond(exchange, 200, "application/json", JSON_FACTORY.toString(response));
+  }
+
+  private void handleFeed(HttpExchange exchange) throws IOException {
+    count("feed");
+
+    StringBuilder xml = new StringBuilder()
+        .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+        .append("<feed xmlns:yt=\"http://www.youtube.com/xml/schemas/2015\"")
+        .append(" xmlns=\"http://www.w3.org/2005/Atom\">\n");
+    List<String> uploads = uploads(clock.instant());
+    for (String id : uploads.subList(0, Math.min(FEED_SIZE, uploads.size()))) {
+      xml.append("<entry><yt:videoId>").append(id).append("</yt:videoId></entry>\n");
+    }
+    xml.append("</feed>\n");
+
+    respond(exchange, 200, "application/atom+xml", xml.toString());
+  }
+
+  private ChannelListResponse channels(Map<String, String> params) {
+    List<Channel> items = new ArrayList<>();
+    if (CHANNEL_ID.equals(params.get("id"))) {
+      items.add(new Channel()
+          .setId(CHANNEL_ID)
+          .setContentDetails(new ChannelContentDetails()
+              .setRelatedPlaylists(new ChannelContentDetails.RelatedPlaylists()
+                  .setUploads(UPLOADS_PLAYLIST_ID))));
+    }
+    return new ChannelListResponse().setItems(items);
+  }
+
+  private PlaylistItemListResponse playlistItems(Map<String, String> params, Instant now) {
+    List<String> ids;
+    if (UPLOADS_PLAYLIST_ID.equals(params.get("playlistId"))) {
+      ids = uploads(now);
+    } else if (ARCHIVE_PLAYLIST_ID.equals(params.get("playlistId"))) {
+      ids = archiveIds();
+    } else {
+      ids = Collections.emptyList();
+    }
+
+    List<PlaylistItem> items = new ArrayList<>();
+    String nextPageToken = page(ids, params, id -> items.add(new PlaylistItem()
+        .setId("item-" + id)
+        .setContentDetails(new PlaylistItemContentDetails().setVideoId(id))
+        .setSnippet(new PlaylistItemSnippet().setTitle(id))));
+
+    return new PlaylistItemListResponse().setItems(items).setNextPageToken(nextPageToken);
+  }
+
+  private SearchListResponse search(Map<String, String> params, Instant now) {
+    List<String> ids = new ArrayList<>();
+    String eventType = params.get("eventType");
+    if (CHANNEL_ID.equals(params.get("channelId"))) {
+      for (ScriptedShow show : script.getShows()) {
+        if (show.isAnnounced(now) == false) {
+          continue;
+        }
+        boolean matches = "live".equals(eventType) ? show.isLive(now)
+            : "upcoming".equals(eventType) ? show.hasStarted(now) == false
+            : "completed".equals(eventType) && show.hasEnded(now);
+        if (matches) {
+          ids.add(show.getId());
+        }
+      }
+      if ("completed".equals(eventType)) {
+        ids.addAll(archiveIds());
+      }
+    }
+
+    List<SearchResult> items = new ArrayList<>();
+    String nextPageToken = page(ids, params, id -> items.add(new SearchResult()
+        .setId(new ResourceId().setKind("youtube#video").setVideoId(id))));
+
+    return new SearchListResponse().setItems(items).setNextPageToken(nextPageToken);
+  }
+
+  private VideoListResponse videos(Map<String, String> params, Instant now) {
+    Map<String, ScriptedShow> shows = new HashMap<>();
+    for (ScriptedShow show : script.getShows()) {
+      shows.put(show.getId(), show);
+    }
+    Map<String, ArchivedVideo> archived = new HashMap<>();
+    for (ArchivedVideo av : archive) {
+      archived.put(av.getId(), av);
+    }
+
+    List<Video> items = new ArrayList<>();
+    String ids = params.get("id");
+    for (String id : ids == null ? new String[0] : ids.split(",")) {
+      ScriptedShow show = shows.get(id);
+      if (show != null && show.isAnnounced(now)) {
+        items.add(showVideo(show, now));
+      } else if (archived.containsKey(id)) {
+        items.add(archiveVideo(archived.get(id)));
+      }
+    }
+
+    return new VideoListResponse().setItems(items);
+  }
+
+  private static Video showVideo(ScriptedShow show, Instant now) {
+    VideoLiveStreamingDetails details = new VideoLiveStreamingDetails()
+        .setScheduledStartTime(dateTime(show.getScheduledStart()));
+    if (show.hasStarted(now)) {
+      details.setActualStartTime(dateTime(show.getActualStart()));
+    }
+    if (show.hasEnded(now)) {
+      details.setActualEndTime(dateTime(show.getActualEnd()));
+    }
+
+    // live streams only get a duration once they are over
+    Duration length = Duration.between(show.getActualStart(), show.getActualEnd());
+    String duration = show.isPremiere() || show.hasEnded(now) ? length.toString() : "P0D";
+
+    return new Video()
+        .setId(show.getId())
+        .setSnippet(new VideoSnippet()
+            .setChannelId(CHANNEL_ID)
+            .setTitle(show.getTitle()))
+        .setContentDetails(new VideoContentDetails().setDuration(duration))
+        .setLiveStreamingDetails(details);
+  }
+
+  private Video archiveVideo(ArchivedVideo av) {
+    Instant ended = script.getStart().minus(ARCHIVE_AGE);
+    Instant started = ended.minusSeconds(av.getDurationInSeconds());
+
+    return new Video()
+        .setId(av.getId())
+        .setSnippet(new VideoSnippet()
+            .setChannelId(CHANNEL_ID)
+            .setTitle(av.getTitle())
+            .setThumbnails(new ThumbnailDetails().setStandard(av.getThumbnail())))
+        .setContentDetails(new VideoContentDetails()
+            .setDuration(Duration.ofSeconds(av.getDurationInSeconds()).toString()))
+        .setLiveStreamingDetails(new VideoLiveStreamingDetails()
+            .setScheduledStartTime(dateTime(started))
+            .setActualStartTime(dateTime(started))
+            .setActualEndTime(dateTime(ended)));
+  }
+
+  /**
+   * Get the uploads playlist as it stands, newest first.
+   */
+  private List<String> uploads(Instant now) {
+    List<ScriptedShow> announced = new ArrayList<>();
+    for (ScriptedShow show : script.getShows()) {
+      if (show.isAnnounced(now)) {
+        announced.add(show);
+      }
+    }
+    announced.sort(Comparator.comparing(ScriptedShow::getAnnouncedAt).reversed());
+
+    List<String> ids = new ArrayList<>();
+    for (ScriptedShow show : announced) {
+      ids.add(show.getId());
+    }
+    ids.addAll(archiveIds());
+    return ids;
+  }
+
+  private List<String> archiveIds() {
+    List<String> ids = new ArrayList<>(archive.size());
+    for (ArchivedVideo av : archive) {
+      ids.add(av.getId());
+    }
+    return ids;
+  }
+
+  /**
+   * Hand the ids of the page asked for to the consumer.
+   *
+   * @return the token of the next page, or null if this is the last one
+   */
+  private static String page(List<String> ids, Map<String, String> params,
+      Consumer<String> consumer) {
+    int from = params.containsKey("pageToken") ? Integer.parseInt(params.get("pageToken")) : 0;
+    int size = params.containsKey("maxResults") ? Integer.parseInt(params.get("maxResults"))
+        : DEFAULT_PAGE_SIZE;
+
+    int to = Math.min(ids.size(), from + size);
+    for (String id : ids.subList(Math.min(from, to), to)) {
+      consumer.accept(id);
+    }
+
+    return to < ids.size() ? Integer.toString(to) : null;
+  }
+
+  private void count(String resource) {
+    requestCounts.computeIfAbsent(resource, k -> new AtomicInteger()).incrementAndGet();
+  }
+
+  private void simulateLatency() {
+    if (meanLatencyMillis <= 0) {
+      return;
+    }
+
+    double latency;
+    synchronized (latencyRandom) {
+      latency = -meanLatencyMillis * Math.log(1 - latencyRandom.nextDouble());
+    }
+
+    try {
+      Thread.sleep((long) latency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static DateTime dateTime(Instant instant) {
+    return new DateTime(instant.toEpochMilli());
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+    Map<String, String> params = new LinkedHashMap<>();
+    if (rawQuery == null) {
+      return params;
+    }
+
+    for (String pair : rawQuery.split("&")) {
+      int eq = pair.indexOf('=');
+      String name = eq < 0 ? pair : pair.substring(0, eq);
+      String value = eq < 0 ? "" : pair.substring(eq + 1);
+      params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+    }
+    return params;
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType, String body)
+      throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LiveEventBroadcasterTest {
+
+  private Path catalog;
+
+  private List<ArchivedVideo> videos;
+
+  private LiveEventBroadcaster broadcaster;
+
+  /**
+   * Records what is sent to it instead of writing to a response, optionally blocking on its first
+   * write like a listener on a stalled connection.
+   */
+  private static class RecordingEmitter extends SseEmitter {
+
+    private final BlockingQueue<Set<DataWithMediaType>> sent = new LinkedBlockingQueue<>();
+
+    private final CountDownLatch stalled;
+
+    private final CompletableFuture<Throwable> failure = new CompletableFuture<>();
+
+    RecordingEmitter(boolean isStalled) {
+      this.stalled = new CountDownLatch(isStalled ? 1 : 0);
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      sent.add(builder.build());
+      try {
+        stalled.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void completeWithError(Throwable ex) {
+      failure.complete(ex);
+    }
+
+    String next() throws InterruptedException {
+      Set<DataWithMediaType> event = sent.poll(5, TimeUnit.SECONDS);
+      Assert.assertNotNull("nothing sent", event);
+      StringBuilder sb = new StringBuilder();
+      for (DataWithMediaType data : event) {
+        sb.append(data.getData());
+      }
+      return sb.toString();
+    }
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    catalog = Files.createTempFile("efferalgang-test", ".catalog");
+    videos = ReactiveRadioControllerTest.archivedVideos(3);
+    RadioPlayer rp = ReactiveRadioControllerTest.followingRadioPlayer(catalog, videos);
+    rp.setLiveShows(BroadcastStatus.ARCHIVE, null, new ArrayList<>());
+    broadcaster = new LiveEventBroadcaster(rp);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(catalog);
+  }
+
+  @Test
+  public void testSubscribe_currentEventsFirst() throws InterruptedException {
+    RecordingEmitter emitter = new RecordingEmitter(false);
+    broadcaster.subscribe(emitter);
+
+    Assert.assertTrue(emitter.next().contains("event:status\ndata:{\"status\":\"ARCHIVE\"}"));
+    Assert.assertTrue(emitter.next().contains("event:track\ndata:{\"id\":\"archive"));
+    Assert.assertEquals(1, broadcaster.getListenerCount());
+  }
+
+  @Test
+  public void testChangesAreBuiltOnce() throws InterruptedException {
+    RecordingEmitter first = new RecordingEmitter(false);
+    RecordingEmitter second = new RecordingEmitter(false);
+    broadcaster.subscribe(first);
+    broadcaster.subscribe(second);
+    for (RecordingEmitter emitter : new RecordingEmitter[] {first, second}) {
+      emitter.next();
+      emitter.next();
+    }
+
+    broadcaster.onStatusChanged(BroadcastStatus.LIVE);
+
+    Set<DataWithMediaType> event = first.sent.poll(5, TimeUnit.SECONDS);
+    Assert.assertSame(event, second.sent.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testStalledListenerDoesNotHoldUpOthers() throws Exception {
+    RecordingEmitter stalled = new RecordingEmitter(true);
+    RecordingEmitter listening = new RecordingEmitter(false);
+    broadcaster.subscribe(stalled);
+    broadcaster.subscribe(listening);
+    listening.next();
+    listening.next();
+    Assert.assertTrue(stalled.next().startsWith("retry:"));
+
+    // the stalled listener is stuck writing its first event with the current track queued behind
+    // it, so this many changes is one too many for it but never for a listener keeping up
+    int changes = LiveEventBroadcaster.MAX_PENDING_EVENTS;
+    for (int i = 0; i < changes; i++) {
+      broadcaster.onTrackChanged(videos.get(i % videos.size()));
+    }
+
+    for (int i = 0; i < changes; i++) {
+      Assert.assertTrue(listening.next().startsWith("event:track"));
+    }
+    Assert.assertEquals(1, broadcaster.getListenerCount());
+    Assert.assertFalse(listening.failure.isDone());
+
+    // its stream is ended once the stuck write returns
+    Assert.assertFalse(stalled.failure.isDone());
+    stalled.stalled.countDown();
+    Assert.assertNotNull(stalled.failure.get(5, TimeUnit.SECONDS));
+    Assert.assertTrue(stalled.sent.isEmpty());
+  }
+}
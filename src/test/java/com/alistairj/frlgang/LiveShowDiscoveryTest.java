@@ -0,0 +1,163 @@
+package com.alistairj.frlgang;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoLiveStreamingDetails;
+import com.google.api.services.youtube.model.VideoSnippet;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs the discovery against a local stand-in for the YouTube channel feed.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LiveShowDiscoveryTest {
+
+  private static final String CHANNEL_ID = "UC5Z2eMviso2vnK9iHnmJO8w";
+
+  private HttpServer server;
+
+  private String feedUrl;
+
+  private volatile String feed;
+
+  private volatile int feedStatus = 200;
+
+  private final Map<String, Video> videos = new HashMap<>();
+
+  private final List<List<String>> fetched = new ArrayList<>();
+
+  private int searchCount = 0;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/feeds/videos.xml", exchange -> {
+      byte[] body = feed.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/atom+xml");
+      exchange.sendResponseHeaders(feedStatus, body.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(body);
+      }
+    });
+    server.start();
+    feedUrl = "http://127.0.0.1:" + server.getAddress().getPort()
+        + "/feeds/videos.xml?channel_id=%s";
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private static String feedOf(String... videoIds) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+        .append("<feed xmlns:yt=\"http://www.youtube.com/xml/schemas/2015\" ")
+        .append("xmlns:media=\"http://search.yahoo.com/mrss/\" ")
+        .append("xmlns=\"http://www.w3.org/2005/Atom\">\n")
+        .append("<title>EfferalGang</title>\n")
+        .append("<yt:channelId>").append(CHANNEL_ID).append("</yt:channelId>\n");
+    for (String id : videoIds) {
+      sb.append("<entry>\n")
+          .append("<id>yt:video:").append(id).append("</id>\n")
+          .append("<yt:videoId>").append(id).append("</yt:videoId>\n")
+          .append("<title>").append(id).append("</title>\n")
+          .append("</entry>\n");
+    }
+    return sb.append("</feed>\n").toString();
+  }
+
+  private void addVideo(String id, boolean isShow, boolean hasEnded) {
+    Video v = new Video().setId(id).setSnippet(new VideoSnippet().setTitle(id));
+    if (isShow) {
+      VideoLiveStreamingDetails details = new VideoLiveStreamingDetails()
+          .setScheduledStartTime(new DateTime(System.currentTimeMillis()));
+      if (hasEnded) {
+        details.setActualEndTime(new DateTime(System.currentTimeMillis()));
+      }
+      v.setLiveStreamingDetails(details);
+    }
+    videos.put(id, v);
+  }
+
+  private LiveShowDiscovery newDiscovery() {
+    return new LiveShowDiscovery(new ChannelFeed(feedUrl),
+        ids -> {
+          fetched.add(new ArrayList<>(ids));
+          List<Video> found = new ArrayList<>();
+          for (String id : ids) {
+            found.add(videos.get(id));
+          }
+          return found;
+        },
+        () -> {
+          searchCount++;
+          return new HashSet<>(Collections.singletonList("searched"));
+        },
+        Clock.fixed(Instant.parse("2020-09-14T17:00:00Z"), ZoneOffset.UTC));
+  }
+
+  @Test
+  public void testDiscover_findsShowsInFeed() throws IOException {
+    addVideo("upload", false, false);
+    addVideo("upcoming", true, false);
+    addVideo("ended", true, true);
+    feed = feedOf("upcoming", "upload", "ended");
+
+    LiveShowDiscovery discovery = newDiscovery();
+
+    // the first run also searches
+    Set<String> found = discovery.discover(CHANNEL_ID);
+    Assert.assertEquals(new HashSet<>(Arrays.asList("upcoming", "searched")), found);
+    Assert.assertEquals(1, searchCount);
+
+    // nothing new in the feed, no look ups and no search
+    fetched.clear();
+    Assert.assertTrue(discovery.discover(CHANNEL_ID).isEmpty());
+    Assert.assertTrue(fetched.isEmpty());
+    Assert.assertEquals(1, searchCount);
+
+    // a new premiere shows up at the top
+    addVideo("premiere", true, false);
+    feed = feedOf("premiere", "upcoming", "upload", "ended");
+    Assert.assertEquals(Collections.singleton("premiere"), discovery.discover(CHANNEL_ID));
+    Assert.assertEquals(Collections.singletonList(Collections.singletonList("premiere")),
+        fetched);
+    Assert.assertEquals(1, searchCount);
+  }
+
+  @Test
+  public void testDiscover_fallsBackToSearchWhenFeedIsDown() throws IOException {
+    addVideo("upcoming", true, false);
+    feed = feedOf("upcoming");
+
+    LiveShowDiscovery discovery = newDiscovery();
+    discovery.discover(CHANNEL_ID);
+    Assert.assertEquals(1, searchCount);
+
+    feedStatus = 500;
+    Assert.assertEquals(Collections.singleton("searched"), discovery.discover(CHANNEL_ID));
+    Assert.assertEquals(2, searchCount);
+  }
+}
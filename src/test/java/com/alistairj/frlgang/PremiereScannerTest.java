@@ -0,0 +1,154 @@
+package com.alistairj.frlgang;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoLiveStreamingDetails;
+import com.google.api.services.youtube.model.VideoSnippet;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class PremiereScannerTest {
+
+  private static final Instant NOW = Instant.parse("2020-09-14T17:00:00Z");
+
+  private final List<List<String>> uploads = new ArrayList<>();
+
+  private final Map<String, Video> videos = new HashMap<>();
+
+  private final List<List<String>> fetched = new ArrayList<>();
+
+  private int pagesFetched = 0;
+
+  private boolean isFetchFailing = false;
+
+  private final SteppingClock clock = new SteppingClock(NOW);
+
+  private final PremiereScanner scanner = new PremiereScanner(
+      consumer -> {
+        int count = 0;
+        for (List<String> page : uploads) {
+          count++;
+          pagesFetched++;
+          if (consumer.accept(page) == false) {
+            break;
+          }
+        }
+        return count;
+      },
+      ids -> {
+        if (isFetchFailing) {
+          isFetchFailing = false;
+          throw new IOException("quotaExceeded");
+        }
+        fetched.add(new ArrayList<>(ids));
+        List<Video> found = new ArrayList<>();
+        for (String id : ids) {
+          if (videos.containsKey(id)) {
+            found.add(videos.get(id));
+          }
+        }
+        return found;
+      },
+      clock);
+
+  private void addVideo(String id, Instant scheduledStart) {
+    Video v = new Video().setId(id).setSnippet(new VideoSnippet().setTitle(id));
+    if (scheduledStart != null) {
+      v.setLiveStreamingDetails(new VideoLiveStreamingDetails()
+          .setScheduledStartTime(new DateTime(scheduledStart.toEpochMilli())));
+    }
+    videos.put(id, v);
+  }
+
+  @Test
+  public void testScan_stopsAtKnownUploads() throws IOException {
+    addVideo("old1", null);
+    addVideo("old2", null);
+    addVideo("old3", null);
+    uploads.add(Arrays.asList("old1", "old2"));
+    uploads.add(Collections.singletonList("old3"));
+
+    Assert.assertTrue(scanner.scan().isEmpty());
+    Assert.assertEquals(2, pagesFetched);
+
+    // a new premiere is uploaded at the top of the playlist
+    addVideo("premiere", NOW.plusSeconds(3600));
+    uploads.set(0, Arrays.asList("premiere", "old1"));
+    uploads.set(1, Arrays.asList("old2", "old3"));
+    pagesFetched = 0;
+    fetched.clear();
+
+    Assert.assertEquals(Collections.singletonList("premiere"), scanner.scan());
+    Assert.assertEquals(1, pagesFetched);
+    Assert.assertEquals(Collections.singletonList(Collections.singletonList("premiere")),
+        fetched);
+  }
+
+  @Test
+  public void testScan_rechecksPendingPremieres() throws IOException {
+    addVideo("premiere", NOW.plusSeconds(3600));
+    addVideo("old", null);
+    uploads.add(Arrays.asList("premiere", "old"));
+
+    Assert.assertEquals(Collections.singletonList("premiere"), scanner.scan());
+
+    // rescheduled into the past, so no longer upcoming
+    addVideo("premiere", NOW.minusSeconds(60));
+    fetched.clear();
+
+    Assert.assertTrue(scanner.scan().isEmpty());
+    Assert.assertEquals(Collections.singletonList(Collections.singletonList("premiere")),
+        fetched);
+  }
+
+  @Test
+  public void testScan_keepsPendingPremieresWhenFetchFails() throws IOException {
+    addVideo("premiere", NOW.plusSeconds(3600));
+    uploads.add(Collections.singletonList("premiere"));
+
+    Assert.assertEquals(Collections.singletonList("premiere"), scanner.scan());
+
+    isFetchFailing = true;
+    try {
+      scanner.scan();
+      Assert.fail("expected the fetch to fail");
+    } catch (IOException expected) {
+      // the next scan tries again
+    }
+
+    Assert.assertEquals(Collections.singletonList("premiere"), scanner.scan());
+  }
+
+  @Test
+  public void testScan_neverPagesPastKnownUploadsAgain() throws IOException {
+    addVideo("new", null);
+    addVideo("old", null);
+    uploads.add(Collections.singletonList("new"));
+    uploads.add(Collections.singletonList("old"));
+
+    Assert.assertTrue(scanner.scan().isEmpty());
+    Assert.assertEquals(2, pagesFetched);
+
+    // days later nothing has been uploaded, so only the first page is looked at
+    clock.step(Duration.ofDays(3));
+    pagesFetched = 0;
+    fetched.clear();
+
+    Assert.assertTrue(scanner.scan().isEmpty());
+    Assert.assertEquals(1, pagesFetched);
+    Assert.assertTrue(fetched.isEmpty());
+  }
+}
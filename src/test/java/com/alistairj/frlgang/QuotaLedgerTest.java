@@ -0,0 +1,80 @@
+package com.alistairj.frlgang;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class QuotaLedgerTest {
+
+  @Test
+  public void testCharge() {
+    // 10:00 in Los Angeles, 14 hours before the reset
+    SteppingClock clock = new SteppingClock(Instant.parse("2020-09-14T17:00:00Z"));
+    QuotaLedger ledger = new QuotaLedger(10000, clock);
+
+    ledger.charge(QuotaLedger.SEARCH_COST);
+    ledger.charge(QuotaLedger.LIST_COST);
+
+    Assert.assertEquals(101, ledger.getSpentToday());
+    Assert.assertEquals(9899, ledger.getRemainingUnits());
+    Assert.assertEquals(Duration.ofHours(14), ledger.getTimeUntilReset());
+  }
+
+  @Test
+  public void testResetAtMidnightPacific() {
+    SteppingClock clock = new SteppingClock(Instant.parse("2020-09-14T17:00:00Z"));
+    QuotaLedger ledger = new QuotaLedger(10000, clock);
+
+    ledger.charge(9000);
+    clock.step(Duration.ofHours(14));
+
+    Assert.assertEquals(10000, ledger.getRemainingUnits());
+    Assert.assertEquals(9000, ledger.getTotalSpent());
+    Assert.assertEquals(Duration.ofHours(24), ledger.getTimeUntilReset());
+  }
+
+  @Test
+  public void testForfeitUntilReset() {
+    SteppingClock clock = new SteppingClock(Instant.parse("2020-09-14T17:00:00Z"));
+    QuotaLedger ledger = new QuotaLedger(10000, clock);
+
+    ledger.charge(100);
+    ledger.forfeit(ledger.getRemainingUnits());
+
+    Assert.assertEquals(0, ledger.getRemainingUnits());
+    Assert.assertEquals(100, ledger.getTotalSpent());
+
+    clock.step(Duration.ofHours(14));
+    Assert.assertEquals(10000, ledger.getRemainingUnits());
+  }
+
+  @Test
+  public void testSpentOnThisThread() throws InterruptedException {
+    QuotaLedger ledger = new QuotaLedger(10000,
+        new SteppingClock(Instant.parse("2020-09-14T17:00:00Z")));
+
+    ledger.charge(QuotaLedger.SEARCH_COST);
+    Thread other = new Thread(() -> ledger.charge(50));
+    other.start();
+    other.join();
+
+    Assert.assertEquals(QuotaLedger.SEARCH_COST, ledger.getSpentOnThisThread());
+    Assert.assertEquals(150, ledger.getTotalSpent());
+  }
+
+  @Test
+  public void testSustainableRate() {
+    SteppingClock clock = new SteppingClock(Instant.parse("2020-09-14T17:00:00Z"));
+    QuotaLedger ledger = new QuotaLedger(10000, clock);
+
+    ledger.charge(4460);
+
+    // (10000 - 4460 - 500) units over 14 hours
+    Assert.assertEquals(0.1, ledger.getSustainableUnitsPerSecond(500), 0.0001);
+  }
+}
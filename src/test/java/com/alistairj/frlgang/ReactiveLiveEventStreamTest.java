@@ -0,0 +1,156 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.RadioPlayerState;
+import com.alistairj.frlgang.player.archive.ArchiveCatalog;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ReactiveLiveEventStreamTest {
+
+  private Path catalog;
+
+  private List<ArchivedVideo> videos;
+
+  private ReactiveLiveEventStream stream;
+
+  @Before
+  public void setUp() throws IOException {
+    catalog = Files.createTempFile("efferalgang-test", ".catalog");
+    videos = ReactiveRadioControllerTest.archivedVideos(3);
+    RadioPlayer rp = ReactiveRadioControllerTest.followingRadioPlayer(catalog, videos);
+    rp.setLiveShows(BroadcastStatus.ARCHIVE, null, new ArrayList<>());
+    stream = new ReactiveLiveEventStream(rp);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(catalog);
+  }
+
+  @Test
+  public void testSubscribe_currentEventsFirst() {
+    List<ServerSentEvent<String>> events =
+        stream.subscribe().take(2).collectList().block(Duration.ofSeconds(5));
+
+    Assert.assertEquals("status", events.get(0).event());
+    Assert.assertEquals("{\"status\":\"ARCHIVE\"}", events.get(0).data());
+    Assert.assertEquals(Duration.ofSeconds(3), events.get(0).retry());
+    Assert.assertEquals("track", events.get(1).event());
+    Assert.assertTrue(events.get(1).data().startsWith("{\"id\":\"archive"));
+  }
+
+  @Test
+  public void testChangesReachEveryListener() throws InterruptedException {
+    BlockingQueue<ServerSentEvent<String>> first = new LinkedBlockingQueue<>();
+    BlockingQueue<ServerSentEvent<String>> second = new LinkedBlockingQueue<>();
+    // nothing is handed off to another thread until the changes, so both are listening once
+    // subscribe returns
+    Disposable firstListener = stream.subscribe().subscribe(first::add);
+    Disposable secondListener = stream.subscribe().subscribe(second::add);
+    try {
+      Assert.assertEquals(2, stream.getListenerCount());
+
+      stream.onStatusChanged(BroadcastStatus.LIVE);
+      stream.onTrackChanged(videos.get(2));
+
+      for (BlockingQueue<ServerSentEvent<String>> events : Arrays.asList(first, second)) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+          names.add(events.poll(5, TimeUnit.SECONDS).event());
+        }
+        Assert.assertEquals(Arrays.asList("status", "track", "status", "track"), names);
+      }
+    } finally {
+      firstListener.dispose();
+      secondListener.dispose();
+    }
+    Assert.assertEquals(0, stream.getListenerCount());
+  }
+
+  @Test
+  public void testStalledListenerIsDropped() throws Exception {
+    CompletableFuture<Throwable> ended = new CompletableFuture<>();
+    // takes the current status and track, then stops reading like a stuck socket
+    stream.subscribe().subscribe(new BaseSubscriber<ServerSentEvent<String>>() {
+      @Override
+      protected void hookOnSubscribe(Subscription subscription) {
+        request(2);
+      }
+
+      @Override
+      protected void hookOnError(Throwable throwable) {
+        ended.complete(throwable);
+      }
+    });
+    Assert.assertEquals(1, stream.getListenerCount());
+
+    for (int i = 0; i < 200; i++) {
+      stream.onTrackChanged(videos.get(i % videos.size()));
+    }
+
+    Assert.assertTrue(Exceptions.isOverflow(ended.get(5, TimeUnit.SECONDS)));
+    Assert.assertEquals(0, stream.getListenerCount());
+  }
+
+  @Test
+  public void testChangeWhileJoiningIsNotLost() throws Exception {
+    ArchiveCatalog.write(catalog, videos);
+    System.setProperty("archive.catalog.path", catalog.toString());
+    ReactiveLiveEventStream[] joining = new ReactiveLiveEventStream[1];
+    RadioPlayer rp;
+    try {
+      // goes live on another thread just after a joining listener has read the current state
+      rp = new RadioPlayer(Clock.systemUTC(), true) {
+        @Override
+        public RadioPlayerState getState() {
+          RadioPlayerState state = super.getState();
+          Thread change = new Thread(() -> joining[0].onStatusChanged(BroadcastStatus.LIVE));
+          change.start();
+          try {
+            change.join(200);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return state;
+        }
+      };
+    } finally {
+      System.clearProperty("archive.catalog.path");
+    }
+    rp.setLiveShows(BroadcastStatus.ARCHIVE, null, new ArrayList<>());
+    joining[0] = new ReactiveLiveEventStream(rp);
+
+    List<ServerSentEvent<String>> events =
+        joining[0].subscribe().take(3).collectList().block(Duration.ofSeconds(5));
+
+    Assert.assertEquals("{\"status\":\"ARCHIVE\"}", events.get(0).data());
+    Assert.assertEquals("track", events.get(1).event());
+    Assert.assertEquals("{\"status\":\"LIVE\"}", events.get(2).data());
+  }
+}
@@ -0,0 +1,196 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.LiveShow;
+import com.alistairj.frlgang.player.LiveSnapshot;
+import com.alistairj.frlgang.player.LiveSnapshotCache;
+import com.alistairj.frlgang.player.RadioPlayer;
+import com.alistairj.frlgang.player.archive.ArchiveCatalog;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.Thumbnail;
+import com.google.api.services.youtube.model.VideoLiveStreamingDetails;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ReactiveRadioControllerTest {
+
+  private static final String NOT_A_VIDEO = "https://example.com/";
+
+  private Path catalog;
+
+  private RadioPlayer rp;
+
+  private WebTestClient client;
+
+  static List<ArchivedVideo> archivedVideos(int count) {
+    List<ArchivedVideo> videos = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String id = String.format("archive%04d", i);
+      videos.add(new ArchivedVideo(id, "EfferalGang Radio #" + i, 3600,
+          new Thumbnail().setUrl("https://i.ytimg.com/vi/" + id + "/sddefault.jpg")
+              .setWidth(640L).setHeight(480L)));
+    }
+    return videos;
+  }
+
+  /**
+   * Build a radio player that plays the given videos and waits to be told about live shows, so
+   * nothing asks the YouTube API.
+   */
+  static RadioPlayer followingRadioPlayer(Path catalog, List<ArchivedVideo> videos)
+      throws IOException {
+    ArchiveCatalog.write(catalog, videos);
+    System.setProperty("archive.catalog.path", catalog.toString());
+    try {
+      return new RadioPlayer(Clock.systemUTC(), true);
+    } finally {
+      System.clearProperty("archive.catalog.path");
+    }
+  }
+
+  private static LiveShow liveShow() {
+    return ShowFixtures.show("liveShow001", "P0D", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(System.currentTimeMillis() - 60000))
+        .setActualStartTime(new DateTime(System.currentTimeMillis() - 30000)));
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    catalog = Files.createTempFile("efferalgang-test", ".catalog");
+    rp = followingRadioPlayer(catalog, archivedVideos(6));
+    client = WebTestClient
+        .bindToController(new ReactiveRadioController(rp, new LiveSnapshotCache()))
+        .build();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(catalog);
+  }
+
+  @Test
+  public void testLive_startingUntilReady() {
+    Assert.assertFalse(rp.isReady());
+
+    EntityExchangeResult<byte[]> result = client.get().uri("/live").exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentType(MediaType.APPLICATION_JSON)
+        .expectHeader().valueEquals(HttpHeaders.ETAG, LiveSnapshot.STARTING.getETag(0))
+        .expectBody()
+        .jsonPath("$.status").isEqualTo("STARTING")
+        .returnResult();
+
+    Assert.assertEquals(LiveSnapshot.STARTING.getContentLength(0),
+        result.getResponseHeaders().getContentLength());
+    Assert.assertEquals(LiveSnapshot.STARTING.getContentLength(0),
+        result.getResponseBody().length);
+  }
+
+  @Test
+  public void testLive_contentLengthMatchesBody() {
+    rp.setLiveShows(BroadcastStatus.ARCHIVE, null, Collections.emptyList());
+
+    EntityExchangeResult<byte[]> result = client.get().uri("/live").exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentType(MediaType.APPLICATION_JSON)
+        .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache")
+        .expectBody()
+        .jsonPath("$.status").isEqualTo("ARCHIVE")
+        .jsonPath("$.archive_player.current.id").isNotEmpty()
+        .returnResult();
+
+    Assert.assertEquals(result.getResponseBody().length,
+        result.getResponseHeaders().getContentLength());
+  }
+
+  @Test
+  public void testLive_notModified() {
+    // the archive player is stopped while a show is live, so the playhead and the ETag hold still
+    rp.setLiveShows(BroadcastStatus.LIVE, liveShow(), Collections.emptyList());
+
+    String etag = client.get().uri("/live").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo("LIVE")
+        .jsonPath("$.live_player.current.id").isEqualTo("liveShow001")
+        .returnResult()
+        .getResponseHeaders().getETag();
+    Assert.assertNotNull(etag);
+
+    client.get().uri("/live").header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+        .expectStatus().isNotModified()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+        .expectBody().isEmpty();
+
+    client.get().uri("/live").header(HttpHeaders.IF_NONE_MATCH, "\"stale-0\"").exchange()
+        .expectStatus().isOk();
+  }
+
+  @Test
+  public void testReady() {
+    client.get().uri("/ready").exchange()
+        .expectStatus().isEqualTo(503)
+        .expectBody().jsonPath("$.ready").isEqualTo(false);
+
+    rp.setLiveShows(BroadcastStatus.ARCHIVE, null, Collections.emptyList());
+
+    client.get().uri("/ready").exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.ready").isEqualTo(true);
+  }
+
+  @Test
+  public void testQueue_limit() {
+    rp.setLiveShows(BroadcastStatus.ARCHIVE, null, Collections.emptyList());
+
+    client.get().uri("/queue?limit=2").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.current.id").isNotEmpty()
+        .jsonPath("$.archive_queue.length()").isEqualTo(2)
+        .jsonPath("$.archive_queue[0].id").isNotEmpty()
+        .jsonPath("$.next_cursor").isNotEmpty();
+  }
+
+  @Test
+  public void testTrack_missingVideoId() {
+    client.post().uri("/track").exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  public void testTrack_videoIdFromForm() {
+    // read from the form, and turned down on the lookup thread because it is not a video
+    client.post().uri("/track")
+        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+        .body(BodyInserters.fromFormData("video_id", NOT_A_VIDEO))
+        .exchange()
+        .expectStatus().is5xxServerError();
+  }
+
+  @Test
+  public void testTrack_videoIdFromQuery() {
+    client.post().uri(b -> b.path("/track").queryParam("video_id", NOT_A_VIDEO).build())
+        .exchange()
+        .expectStatus().is5xxServerError();
+  }
+}
@@ -0,0 +1,276 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.ReplayScript.ScriptedShow;
+import com.alistairj.frlgang.player.LivePlayer;
+import com.alistairj.frlgang.player.LiveShow;
+import com.alistairj.frlgang.player.RadioPlayer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+/**
+ * Replays a scripted day on the channel through the real live player and polling scheduler,
+ * against the {@link FakeYouTubeApi}.
+ *
+ * <p>
+ * Time is simulated: the replay clock jumps straight to whatever is due next, be it a poll the
+ * {@link AdaptivePollingScheduler} asked for or a show transition the live player armed, so a day
+ * takes as long as its API calls. Once the day is over it reports the quota spent, how long after
+ * each show started and ended the radio player noticed, and the API latency percentiles.
+ * </p>
+ *
+ * <p>
+ * Run with gradle replay, or gradle replay -PreplayArgs=&lt;script file&gt;,&lt;mean latency in
+ * ms&gt;, which goes through the ReplayHarness under src/jmh.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class Replay {
+
+  private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+  private final ReplayScript script;
+
+  private final long meanLatencyMillis;
+
+  private final Map<String, Instant> startsSeen = new LinkedHashMap<>();
+
+  private final Map<String, Instant> endsSeen = new LinkedHashMap<>();
+
+  private int statusPollCount = 0;
+
+  private int searchPollCount = 0;
+
+  private int transitionCount = 0;
+
+  private long unitsSpent = 0;
+
+  public Replay(ReplayScript script, long meanLatencyMillis) {
+    this.script = script;
+    this.meanLatencyMillis = meanLatencyMillis;
+  }
+
+  /**
+   * Replay the day and print the report.
+   *
+   * @param out Where to print the report
+   */
+  public void run(PrintStream out) throws Exception {
+    SimpleMeterRegistry registry = latencyRegistry();
+    Metrics.addRegistry(registry);
+
+    SteppingClock clock = new SteppingClock(script.getStart());
+    FakeYouTubeApi api = new FakeYouTubeApi(script, clock, meanLatencyMillis);
+    api.start();
+
+    // keep the replay archive away from the real catalog
+    Path catalog = Files.createTempFile("efferalgang-replay", ".catalog");
+    catalog.toFile().deleteOnExit();
+    System.setProperty("archive.catalog.path", catalog.toString());
+
+    try {
+      ApiManager.useStandIn(api.getRootUrl(), clock);
+      ApiManager.initialize("replay", FakeYouTubeApi.CHANNEL_ID,
+          FakeYouTubeApi.ARCHIVE_PLAYLIST_ID);
+
+      RadioPlayer rp = new RadioPlayer(clock);
+      long startupUnits = ApiManager.getQuotaLedger().getTotalSpent();
+
+      replay(rp, clock);
+      unitsSpent = ApiManager.getQuotaLedger().getTotalSpent();
+
+      report(out, api, registry, startupUnits);
+    } finally {
+      api.stop();
+      Metrics.removeRegistry(registry);
+      System.clearProperty("archive.catalog.path");
+    }
+  }
+
+  /**
+   * Get when the radio player first had each show on air, by show id.
+   *
+   * @return the instants seen, empty until the replay has run
+   */
+  public Map<String, Instant> getStartsSeen() {
+    return startsSeen;
+  }
+
+  /**
+   * Get when the radio player first stopped playing each show it had on air, by show id.
+   *
+   * @return the instants seen, empty until the replay has run
+   */
+  public Map<String, Instant> getEndsSeen() {
+    return endsSeen;
+  }
+
+  /**
+   * Get the YouTube quota spent on the replay, from startup to the end of the day.
+   *
+   * @return quota units spent
+   */
+  public long getUnitsSpent() {
+    return unitsSpent;
+  }
+
+  private void replay(RadioPlayer rp, SteppingClock clock) {
+    LivePlayer lp = rp.getLivePlayer();
+    AdaptivePollingScheduler scheduler =
+        new AdaptivePollingScheduler(rp, ApiManager.getQuotaLedger(), clock);
+    Trigger statusTrigger = scheduler.broadcastStatusTrigger();
+    Trigger searchTrigger = scheduler.upcomingAndLiveTrigger();
+
+    long end = script.getEnd().toEpochMilli();
+    long nextStatusPoll = statusTrigger.nextExecutionTime(completedAt(clock.millis())).getTime();
+    long nextSearchPoll = searchTrigger.nextExecutionTime(completedAt(clock.millis())).getTime();
+
+    observe(rp, clock.instant());
+
+    while (true) {
+      // the timeline wakes up just past the instant it is armed for
+      long armedFor = lp.getNextTransitionMillis();
+      long nextTransition = armedFor == LiveShow.NOT_SET ? Long.MAX_VALUE : armedFor + 1;
+
+      long next = Math.min(nextTransition, Math.min(nextStatusPoll, nextSearchPoll));
+      if (next >= end) {
+        break;
+      }
+      clock.advanceTo(next);
+
+      if (next == nextTransition) {
+        transitionCount++;
+        lp.refreshStatus().join();
+      }
+      if (next == nextSearchPoll) {
+        searchPollCount++;
+        scheduler.measureUpcomingAndLiveSearch(lp::fetchUpcomingAndLiveShowIds);
+        nextSearchPoll = searchTrigger.nextExecutionTime(completedAt(clock.millis())).getTime();
+      }
+      if (next == nextStatusPoll) {
+        statusPollCount++;
+        lp.fetchBroadcastStatusOfRelevantIds();
+        nextStatusPoll = statusTrigger.nextExecutionTime(completedAt(clock.millis())).getTime();
+      }
+
+      observe(rp, clock.instant());
+    }
+  }
+
+  /**
+   * Note when the radio player first had each show on air, and when it first stopped.
+   */
+  private void observe(RadioPlayer rp, Instant now) {
+    LiveShow current = rp.getState().getCurrentLiveShow();
+    String currentId = current == null ? null : current.getId();
+
+    if (currentId != null) {
+      startsSeen.putIfAbsent(currentId, now);
+    }
+    for (String id : startsSeen.keySet()) {
+      if (id.equals(currentId) == false) {
+        endsSeen.putIfAbsent(id, now);
+      }
+    }
+  }
+
+  private void report(PrintStream out, FakeYouTubeApi api, SimpleMeterRegistry registry,
+      long startupUnits) {
+    out.println();
+    out.println("Replayed " + script.getShows().size() + " shows from " + script.getStart()
+        + " to " + script.getEnd());
+    out.println();
+    out.printf("Quota: %d units, %d at startup and %d over the day%n", unitsSpent,
+        startupUnits, unitsSpent - startupUnits);
+    out.printf("Polls: %d broadcast status, %d upcoming and live, %d timeline wakeups%n",
+        statusPollCount, searchPollCount, transitionCount);
+    out.println("Requests: " + new TreeMap<>(api.getRequestCounts()));
+
+    out.println();
+    out.printf("%-12s %-9s %12s %12s%n", "show", "kind", "start seen", "end seen");
+    for (ScriptedShow show : script.getShows()) {
+      out.printf("%-12s %-9s %12s %12s%n", show.getId(), show.isPremiere() ? "premiere" : "live",
+          lateness(show.getActualStart(), startsSeen.get(show.getId())),
+          lateness(show.getActualEnd(), endsSeen.get(show.getId())));
+    }
+
+    out.println();
+    out.printf("%-40s %6s %9s %9s %9s%n", "api call", "calls", "p50 ms", "p90 ms", "p99 ms");
+    for (Timer timer : registry.find("youtube.api.requests").timers()) {
+      String name = timer.getId().getTag("method") + " (" + timer.getId().getTag("outcome") + ")";
+      out.printf("%-40s %6d", name, timer.count());
+      for (ValueAtPercentile p : timer.takeSnapshot().percentileValues()) {
+        out.printf(" %9.1f", p.value(TimeUnit.MILLISECONDS));
+      }
+      out.println();
+    }
+  }
+
+  private static String lateness(Instant happened, Instant seen) {
+    if (seen == null) {
+      return "missed";
+    }
+    Duration late = Duration.between(happened, seen);
+    return late.isNegative() ? "early" : late.getSeconds() + "s";
+  }
+
+  /**
+   * A registry that keeps API latency percentiles over the whole replay.
+   */
+  private static SimpleMeterRegistry latencyRegistry() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    registry.config().meterFilter(new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure(Meter.Id id,
+          DistributionStatisticConfig config) {
+        if (id.getName().equals("youtube.api.requests") == false) {
+          return config;
+        }
+        return DistributionStatisticConfig.builder()
+            .percentiles(PERCENTILES)
+            .expiry(Duration.ofDays(1))
+            .bufferLength(1)
+            .build()
+            .merge(config);
+      }
+    });
+    return registry;
+  }
+
+  private static TriggerContext completedAt(long millis) {
+    Date completed = new Date(millis);
+    return new TriggerContext() {
+      @Override
+      public Date lastScheduledExecutionTime() {
+        return completed;
+      }
+
+      @Override
+      public Date lastActualExecutionTime() {
+        return completed;
+      }
+
+      @Override
+      public Date lastCompletionTime() {
+        return completed;
+      }
+    };
+  }
+}
@@ -0,0 +1,216 @@
+package com.alistairj.frlgang;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A scripted day of premieres and live streams on the channel.
+ *
+ * <p>
+ * One line per show, with times as hh:mm from the start of the day:
+ * </p>
+ * <pre>
+ * premiere &lt;id&gt; &lt;announced&gt; &lt;scheduled&gt; &lt;minutes long&gt;
+ * live     &lt;id&gt; &lt;announced&gt; &lt;scheduled&gt; &lt;started&gt; &lt;ended&gt;
+ * archive  &lt;videos in the archive playlist&gt;
+ * </pre>
+ *
+ * <p>
+ * Blank lines and lines starting with # are skipped. The day starts at midnight Pacific Time,
+ * when the YouTube quota resets.
+ * </p>
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ReplayScript {
+
+  public static final String DEFAULT_SCRIPT = "/replay-day.txt";
+
+  private static final Instant DAY_START =
+      LocalDate.of(2020, 6, 1).atStartOfDay(ZoneId.of("America/Los_Angeles")).toInstant();
+
+  private static final Duration DAY_LENGTH = Duration.ofDays(1);
+
+  /**
+   * A premiere or live stream, and when everything happens to it.
+   */
+  public static class ScriptedShow {
+
+    private final String id;
+
+    private final boolean isPremiere;
+
+    private final Instant announcedAt;
+
+    private final Instant scheduledStart;
+
+    private final Instant actualStart;
+
+    private final Instant actualEnd;
+
+    ScriptedShow(String id, boolean isPremiere, Instant announcedAt, Instant scheduledStart,
+        Instant actualStart, Instant actualEnd) {
+      this.id = id;
+      this.isPremiere = isPremiere;
+      this.announcedAt = announcedAt;
+      this.scheduledStart = scheduledStart;
+      this.actualStart = actualStart;
+      this.actualEnd = actualEnd;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public String getTitle() {
+      return (isPremiere ? "Premiere " : "Live ") + id;
+    }
+
+    public boolean isPremiere() {
+      return isPremiere;
+    }
+
+    public boolean isAnnounced(Instant now) {
+      return now.isBefore(announcedAt) == false;
+    }
+
+    public boolean isLive(Instant now) {
+      return now.isBefore(actualStart) == false && now.isBefore(actualEnd);
+    }
+
+    public boolean hasStarted(Instant now) {
+      return now.isBefore(actualStart) == false;
+    }
+
+    public boolean hasEnded(Instant now) {
+      return now.isBefore(actualEnd) == false;
+    }
+
+    public Instant getAnnouncedAt() {
+      return announcedAt;
+    }
+
+    public Instant getScheduledStart() {
+      return scheduledStart;
+    }
+
+    public Instant getActualStart() {
+      return actualStart;
+    }
+
+    public Instant getActualEnd() {
+      return actualEnd;
+    }
+  }
+
+  private final List<ScriptedShow> shows;
+
+  private final int archiveSize;
+
+  ReplayScript(List<ScriptedShow> shows, int archiveSize) {
+    this.shows = Collections.unmodifiableList(shows);
+    this.archiveSize = archiveSize;
+  }
+
+  /**
+   * Read the script that comes with the replay.
+   *
+   * @return the script
+   * @throws IOException Thrown if it cannot be read
+   */
+  public static ReplayScript readDefault() throws IOException {
+    try (InputStream in = ReplayScript.class.getResourceAsStream(DEFAULT_SCRIPT)) {
+      if (in == null) {
+        throw new IOException("Missing replay script " + DEFAULT_SCRIPT);
+      }
+      return read(in);
+    }
+  }
+
+  /**
+   * Read a script file.
+   *
+   * @param path The file
+   * @return the script
+   * @throws IOException Thrown if it cannot be read or does not make sense
+   */
+  public static ReplayScript read(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return read(in);
+    }
+  }
+
+  static ReplayScript read(InputStream in) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+    List<ScriptedShow> shows = new ArrayList<>();
+    int archiveSize = 0;
+
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      String[] fields = line.split("\\s+");
+      try {
+        if (fields[0].equals("premiere") && fields.length == 5) {
+          Instant scheduled = at(fields[3]);
+          Instant ended = scheduled.plus(Duration.ofMinutes(Long.parseLong(fields[4])));
+          shows.add(new ScriptedShow(fields[1], true, at(fields[2]), scheduled, scheduled, ended));
+        } else if (fields[0].equals("live") && fields.length == 6) {
+          shows.add(new ScriptedShow(fields[1], false, at(fields[2]), at(fields[3]),
+              at(fields[4]), at(fields[5])));
+        } else if (fields[0].equals("archive") && fields.length == 2) {
+          archiveSize = Integer.parseInt(fields[1]);
+        } else {
+          throw new IOException("Unable to read line " + lineNumber + " of the replay script");
+        }
+      } catch (NumberFormatException e) {
+        throw new IOException("Unable to read line " + lineNumber + " of the replay script", e);
+      }
+    }
+
+    return new ReplayScript(shows, archiveSize);
+  }
+
+  private static Instant at(String hoursAndMinutes) {
+    String[] parts = hoursAndMinutes.split(":");
+    if (parts.length != 2) {
+      throw new NumberFormatException("Not hh:mm " + hoursAndMinutes);
+    }
+    return DAY_START.plus(Duration.ofHours(Integer.parseInt(parts[0])))
+        .plus(Duration.ofMinutes(Integer.parseInt(parts[1])));
+  }
+
+  public Instant getStart() {
+    return DAY_START;
+  }
+
+  public Instant getEnd() {
+    return DAY_START.plus(DAY_LENGTH);
+  }
+
+  public List<ScriptedShow> getShows() {
+    return shows;
+  }
+
+  public int getArchiveSize() {
+    return archiveSize;
+  }
+}
@@ -0,0 +1,76 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.ReplayScript.ScriptedShow;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ReplayTest {
+
+  private static final String SCRIPT = String.join("\n",
+      "archive 20",
+      "premiere premiere001 00:00 08:00 60",
+      "live     livestream1 09:00 12:00 12:04 13:30");
+
+  /**
+   * A day with these two shows costs about 700 units, well inside the 10000 a day key.
+   */
+  private static final long MAX_UNITS = 1000;
+
+  @Test
+  public void testReplay_seesEveryShowStartAndEnd() throws Exception {
+    ReplayScript script = read(SCRIPT);
+    Replay replay = new Replay(script, 0);
+
+    replay.run(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+
+    for (ScriptedShow show : script.getShows()) {
+      assertSeenWithin(show.getId() + " start", show.getActualStart(),
+          replay.getStartsSeen().get(show.getId()), Duration.ofMinutes(2));
+      assertSeenWithin(show.getId() + " end", show.getActualEnd(),
+          replay.getEndsSeen().get(show.getId()), Duration.ofMinutes(2));
+    }
+    Assert.assertTrue("spent " + replay.getUnitsSpent(), replay.getUnitsSpent() > 0);
+    Assert.assertTrue("spent " + replay.getUnitsSpent(), replay.getUnitsSpent() <= MAX_UNITS);
+  }
+
+  @Test
+  public void testRead_scriptedShows() throws IOException {
+    ReplayScript script = read(SCRIPT);
+
+    Assert.assertEquals(20, script.getArchiveSize());
+    Assert.assertEquals(2, script.getShows().size());
+
+    ScriptedShow premiere = script.getShows().get(0);
+    Assert.assertTrue(premiere.isPremiere());
+    Assert.assertEquals(script.getStart().plus(Duration.ofHours(8)), premiere.getActualStart());
+    Assert.assertEquals(script.getStart().plus(Duration.ofHours(9)), premiere.getActualEnd());
+
+    ScriptedShow live = script.getShows().get(1);
+    Assert.assertFalse(live.isPremiere());
+    Assert.assertEquals(script.getStart().plus(Duration.ofMinutes(12 * 60 + 4)),
+        live.getActualStart());
+  }
+
+  private static ReplayScript read(String script) throws IOException {
+    return ReplayScript.read(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static void assertSeenWithin(String what, Instant happened, Instant seen,
+      Duration within) {
+    Assert.assertNotNull(what + " missed", seen);
+    Duration late = Duration.between(happened, seen);
+    Assert.assertFalse(what + " seen " + late + " early", late.isNegative());
+    Assert.assertTrue(what + " seen " + late + " late", late.compareTo(within) <= 0);
+  }
+}
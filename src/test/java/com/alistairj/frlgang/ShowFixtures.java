@@ -0,0 +1,122 @@
+package com.alistairj.frlgang;
+
+import com.alistairj.frlgang.player.LiveShow;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.Thumbnail;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoContentDetails;
+import com.google.api.services.youtube.model.VideoLiveStreamingDetails;
+import com.google.api.services.youtube.model.VideoSnippet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Videos that look like the real thing, built without the YouTube API, for the tests, the fake
+ * YouTube API and the benchmarks.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public final class ShowFixtures {
+
+  public static final String CHANNEL_ID = "UC5Z2eMviso2vnK9iHnmJO8w";
+
+  private static final String ID_CHARS =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+  private ShowFixtures() {
+    // private constructor
+  }
+
+  /**
+   * Make up a video id.
+   *
+   * @param random Source of randomness
+   * @return an 11 character id
+   */
+  public static String videoId(Random random) {
+    char[] id = new char[11];
+    for (int i = 0; i < id.length; i++) {
+      id[i] = ID_CHARS.charAt(random.nextInt(ID_CHARS.length()));
+    }
+    return new String(id);
+  }
+
+  /**
+   * A live stream or premiere on the channel, as the videos endpoint describes it.
+   *
+   * @param id       Video id
+   * @param duration ISO 8601 duration, P0D for a live stream
+   * @param details  When the show is scheduled, started and ended
+   * @return the video, without a thumbnail
+   */
+  public static Video video(String id, String duration, VideoLiveStreamingDetails details) {
+    return new Video()
+        .setId(id)
+        .setSnippet(new VideoSnippet()
+            .setChannelId(CHANNEL_ID)
+            .setTitle("EfferalGang Radio - DJ " + id))
+        .setContentDetails(new VideoContentDetails().setDuration(duration))
+        .setLiveStreamingDetails(details);
+  }
+
+  /**
+   * A live stream or premiere on the channel that has been scheduled but not started.
+   *
+   * @param id                   Video id
+   * @param duration             ISO 8601 duration, P0D for a live stream
+   * @param scheduledStartMillis When it is scheduled to start
+   * @return the video, without a thumbnail
+   */
+  public static Video scheduledVideo(String id, String duration, long scheduledStartMillis) {
+    return video(id, duration, new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(scheduledStartMillis)));
+  }
+
+  /**
+   * The show the radio player makes of a live stream or premiere on the channel.
+   */
+  public static LiveShow show(String id, String duration, VideoLiveStreamingDetails details) {
+    return LiveShow.fromVideo(video(id, duration, details));
+  }
+
+  /**
+   * The show the radio player makes of a live stream or premiere that has been scheduled.
+   */
+  public static LiveShow show(String id, String duration, long scheduledStartMillis) {
+    return LiveShow.fromVideo(scheduledVideo(id, duration, scheduledStartMillis));
+  }
+
+  /**
+   * Make up archived shows of one to three hours.
+   *
+   * @param count How many to make
+   * @param seed  Seed so that every run gets the same videos
+   * @return archived videos
+   */
+  public static List<ArchivedVideo> archivedVideos(int count, long seed) {
+    Random random = new Random(seed);
+    List<ArchivedVideo> videos = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String id = videoId(random);
+      long duration = 3600 + random.nextInt(2 * 3600);
+      videos.add(new ArchivedVideo(id, "EfferalGang Radio #" + i + " - DJ " + id, duration,
+          thumbnail(id)));
+    }
+    return videos;
+  }
+
+  /**
+   * The standard thumbnail YouTube serves for a video.
+   *
+   * @param id Video id
+   * @return a 640x480 thumbnail
+   */
+  public static Thumbnail thumbnail(String id) {
+    return new Thumbnail()
+        .setUrl("https://i.ytimg.com/vi/" + id + "/sddefault.jpg")
+        .setWidth(640L)
+        .setHeight(480L);
+  }
+}
@@ -0,0 +1,62 @@
+package com.alistairj.frlgang;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock that only moves when told to, for tests and replays.
+ *
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class SteppingClock extends Clock {
+
+  private volatile long millis;
+
+  public SteppingClock(Instant start) {
+    this.millis = start.toEpochMilli();
+  }
+
+  /**
+   * Move the clock on by a duration.
+   *
+   * @param d How far to move
+   */
+  public void step(Duration d) {
+    millis += d.toMillis();
+  }
+
+  /**
+   * Move the clock on. It never goes back.
+   *
+   * @param millis Epoch milliseconds to move to
+   */
+  public void advanceTo(long millis) {
+    if (millis > this.millis) {
+      this.millis = millis;
+    }
+  }
+
+  @Override
+  public long millis() {
+    return millis;
+  }
+
+  @Override
+  public Instant instant() {
+    return Instant.ofEpochMilli(millis);
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return ZoneOffset.UTC;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    // only ever asked for to work out dates, for which a fixed view is enough
+    return Clock.fixed(instant(), zone);
+  }
+}
@@ -0,0 +1,105 @@
+package com.alistairj.frlgang;
+
+import com.google.api.services.youtube.model.Video;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class VideoBatcherTest {
+
+  private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+  private List<Video> fetch(String parts, List<String> videoIds) {
+    calls.add(videoIds);
+
+    List<Video> videos = new ArrayList<>();
+    for (String id : videoIds) {
+      if (id.startsWith("missing") == false) {
+        videos.add(new Video().setId(id));
+      }
+    }
+    return videos;
+  }
+
+  private static List<String> ids(List<Video> videos) {
+    List<String> ids = new ArrayList<>();
+    for (Video v : videos) {
+      ids.add(v.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testConcurrentCallersShareOneCall() throws Exception {
+    VideoBatcher batcher = new VideoBatcher(this::fetch, 200, 2);
+
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    try {
+      Future<List<Video>> a = pool.submit(() -> batcher.fetch("snippet", Arrays.asList("a", "b")));
+      Future<List<Video>> b = pool.submit(() -> batcher.fetch("snippet", Arrays.asList("b", "c")));
+      Future<List<Video>> c =
+          pool.submit(() -> batcher.fetch("snippet", Collections.singletonList("missing")));
+
+      Assert.assertEquals(Arrays.asList("a", "b"), ids(a.get(5, TimeUnit.SECONDS)));
+      Assert.assertEquals(Arrays.asList("b", "c"), ids(b.get(5, TimeUnit.SECONDS)));
+      Assert.assertTrue(c.get(5, TimeUnit.SECONDS).isEmpty());
+    } finally {
+      pool.shutdownNow();
+    }
+
+    Assert.assertEquals(1, calls.size());
+    Assert.assertEquals(4, calls.get(0).size());
+  }
+
+  @Test
+  public void testLargeSetsAreChunkedNotTrimmed() throws IOException {
+    VideoBatcher batcher = new VideoBatcher(this::fetch, 5, 2);
+
+    List<String> requested = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      requested.add("video" + i);
+    }
+
+    Assert.assertEquals(requested, ids(batcher.fetch("contentDetails", requested)));
+    Assert.assertEquals(3, calls.size());
+    for (List<String> call : calls) {
+      Assert.assertTrue(call.size() <= VideoBatcher.MAX_IDS_PER_CALL);
+    }
+  }
+
+  @Test
+  public void testPartSetsAreFetchedSeparately() throws IOException {
+    VideoBatcher batcher = new VideoBatcher(this::fetch, 5, 2);
+
+    batcher.fetch("snippet", Collections.singletonList("a"));
+    batcher.fetch("contentDetails", Collections.singletonList("a"));
+
+    Assert.assertEquals(2, calls.size());
+  }
+
+  @Test
+  public void testFailureReachesEveryCaller() {
+    VideoBatcher batcher = new VideoBatcher((parts, videoIds) -> {
+      throw new IOException("quota exceeded");
+    }, 5, 1);
+
+    try {
+      batcher.fetch("snippet", Arrays.asList("a", "b"));
+      Assert.fail("Failure was swallowed");
+    } catch (IOException e) {
+      Assert.assertEquals("quota exceeded", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.ShowFixtures;
+import com.alistairj.frlgang.SteppingClock;
+import com.alistairj.frlgang.player.archive.ArchivePlayer;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.google.api.services.youtube.model.Video;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LivePlayerTest {
+
+  private static final Instant START = Instant.parse("2020-09-14T17:00:00Z");
+
+  private final List<Set<String>> calls = new CopyOnWriteArrayList<>();
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final AtomicInteger liveShowsChanges = new AtomicInteger();
+
+  private Path catalog;
+
+  private RadioPlayer rp;
+
+  /**
+   * Fetches every id as an upcoming live stream, holding up the first call until released.
+   */
+  private List<Video> fetch(Collection<String> videoIds) throws IOException {
+    calls.add(new HashSet<>(videoIds));
+    if (calls.size() == 1) {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+    }
+
+    List<Video> videos = new ArrayList<>();
+    for (String id : videoIds) {
+      videos.add(video(id));
+    }
+    return videos;
+  }
+
+  private static Video video(String id) {
+    return ShowFixtures.scheduledVideo(id, "P0D", START.toEpochMilli() + 3600000);
+  }
+
+  private static Set<String> ids(String... ids) {
+    return new HashSet<>(Arrays.asList(ids));
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    // keep away from the real archive catalog, the archive player is never started anyway
+    catalog = Files.createTempFile("efferalgang-test", ".catalog");
+    System.setProperty("archive.catalog.path", catalog.toString());
+    rp = new RadioPlayer(new ArchivePlayer(false), null, Collections.emptyList());
+    System.clearProperty("archive.catalog.path");
+
+    rp.addListener(new RadioPlayerListener() {
+      @Override
+      public void onStatusChanged(BroadcastStatus status) {
+      }
+
+      @Override
+      public void onTrackChanged(ArchivedVideo video) {
+      }
+
+      @Override
+      public void onLiveShowsChanged(RadioPlayerState state) {
+        liveShowsChanges.incrementAndGet();
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(catalog);
+  }
+
+  @Test
+  public void testQueuedCommandsShareOneCall() throws Exception {
+    LivePlayer lp = new LivePlayer(rp, new SteppingClock(START), this::fetch);
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      // the first poll holds up the live player thread while everything else queues up
+      CompletableFuture<Boolean> first = lp.fetchShows(ids("a"));
+      while (calls.isEmpty()) {
+        Thread.sleep(5);
+      }
+
+      Set<String> polled = ids("b");
+      CompletableFuture<Boolean> second = lp.fetchShows(polled);
+      CompletableFuture<Boolean> refresh = lp.refreshStatus();
+      Future<Boolean> tracked = pool.submit(() -> lp.track(LiveShow.fromVideo(video("c"))));
+      Future<?> status = pool.submit(lp::fetchBroadcastStatusOfRelevantIds);
+      while (lp.getQueuedCommandCount() < 4) {
+        Thread.sleep(5);
+      }
+
+      release.countDown();
+      first.get(5, TimeUnit.SECONDS);
+      second.get(5, TimeUnit.SECONDS);
+      refresh.get(5, TimeUnit.SECONDS);
+      Assert.assertTrue(tracked.get(5, TimeUnit.SECONDS));
+      status.get(5, TimeUnit.SECONDS);
+
+      // one call for the first poll, one for everything that queued up behind it
+      Assert.assertEquals(Arrays.asList(ids("a"), ids("a", "b", "c")), calls);
+      Assert.assertEquals(ids("b"), polled);
+
+      List<String> upcoming = new ArrayList<>();
+      for (LiveShow show : lp.getUpcomingShows()) {
+        upcoming.add(show.getId());
+      }
+      Collections.sort(upcoming);
+      Assert.assertEquals(Arrays.asList("a", "b", "c"), upcoming);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testUnchangedPollPublishesNothing() throws Exception {
+    release.countDown();
+    LivePlayer lp = new LivePlayer(rp, new SteppingClock(START), this::fetch);
+
+    lp.fetchShows(ids("a", "b")).get(5, TimeUnit.SECONDS);
+    RadioPlayerState published = rp.getState();
+    int changes = liveShowsChanges.get();
+
+    // the shows are fetched afresh but nothing about them has changed
+    lp.fetchBroadcastStatusOfRelevantIds();
+    lp.refreshStatus().get(5, TimeUnit.SECONDS);
+
+    Assert.assertEquals(2, calls.size());
+    Assert.assertSame(published, rp.getState());
+    Assert.assertEquals(changes, liveShowsChanges.get());
+  }
+}
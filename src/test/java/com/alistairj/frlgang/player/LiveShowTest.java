@@ -0,0 +1,100 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.ShowFixtures;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.youtube.model.Thumbnail;
+import com.google.api.services.youtube.model.ThumbnailDetails;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoLiveStreamingDetails;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LiveShowTest {
+
+  private static final long NOW = 1600102800000L; // 2020-09-14T17:00:00Z
+
+  private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+  private static Video video(String duration, VideoLiveStreamingDetails details) {
+    return ShowFixtures.video("dQw4w9WgXcQ", duration, details);
+  }
+
+  @Test
+  public void testLiveStream() {
+    LiveShow upcoming = LiveShow.fromVideo(video("P0D", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(NOW + 5 * MINUTE))));
+    Assert.assertFalse(upcoming.isPremiere());
+    Assert.assertFalse(upcoming.isLive(NOW));
+    Assert.assertFalse(upcoming.hasEnded(NOW));
+    Assert.assertFalse(upcoming.isPending(NOW));
+    Assert.assertTrue(upcoming.isPending(NOW + 4 * MINUTE));
+    Assert.assertTrue(upcoming.isPending(NOW + 14 * MINUTE));
+    Assert.assertFalse(upcoming.isPending(NOW + 15 * MINUTE));
+
+    LiveShow live = LiveShow.fromVideo(video("P0D", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(NOW - 5 * MINUTE))
+        .setActualStartTime(new DateTime(NOW - MINUTE))));
+    Assert.assertTrue(live.isLive(NOW));
+    Assert.assertFalse(live.hasEnded(NOW));
+
+    LiveShow ended = LiveShow.fromVideo(video("PT1H", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(NOW - 90 * MINUTE))
+        .setActualStartTime(new DateTime(NOW - 90 * MINUTE))
+        .setActualEndTime(new DateTime(NOW - 30 * MINUTE))));
+    Assert.assertTrue(ended.hasEnded(NOW));
+    Assert.assertEquals(NOW - 30 * MINUTE, ended.getActualEndMillis());
+  }
+
+  @Test
+  public void testPremiere() {
+    LiveShow premiere = LiveShow.fromVideo(video("PT1H", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(NOW))));
+    Assert.assertTrue(premiere.isPremiere());
+    Assert.assertEquals(3600, premiere.getDurationInSeconds());
+
+    Assert.assertFalse(premiere.isLive(NOW - MINUTE));
+    Assert.assertTrue(premiere.isLive(NOW + MINUTE));
+
+    // an hour long plus the countdown
+    Assert.assertFalse(premiere.hasEnded(NOW + 62 * MINUTE));
+    Assert.assertTrue(premiere.hasEnded(NOW + 62 * MINUTE + 1));
+  }
+
+  @Test
+  public void testFromVideo_resolvesThumbnail() {
+    LiveShow noThumbnail = LiveShow.fromVideo(video("P0D", new VideoLiveStreamingDetails()));
+    Assert.assertEquals(600, noThumbnail.getThumbnailWidth());
+    Assert.assertEquals(LiveShow.NOT_SET, noThumbnail.getScheduledStartMillis());
+    Assert.assertNull(noThumbnail.getScheduledStartRfc3339());
+    Assert.assertFalse(noThumbnail.isPending(NOW));
+
+    Video v = video("P0D", new VideoLiveStreamingDetails());
+    v.getSnippet().setThumbnails(new ThumbnailDetails().setStandard(
+        new Thumbnail().setUrl("https://i.ytimg.com/vi/dQw4w9WgXcQ/sddefault.jpg")
+            .setWidth(640L).setHeight(480L)));
+    LiveShow withThumbnail = LiveShow.fromVideo(v);
+    Assert.assertEquals("https://i.ytimg.com/vi/dQw4w9WgXcQ/sddefault.jpg",
+        withThumbnail.getThumbnailUrl());
+    Assert.assertEquals(640, withThumbnail.getThumbnailWidth());
+    Assert.assertEquals(480, withThumbnail.getThumbnailHeight());
+  }
+
+  @Test
+  public void testIsScheduledAfter() {
+    LiveShow early = LiveShow.fromVideo(video("P0D", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(NOW))));
+    LiveShow late = LiveShow.fromVideo(video("P0D", new VideoLiveStreamingDetails()
+        .setScheduledStartTime(new DateTime(NOW + MINUTE))));
+    LiveShow unscheduled = LiveShow.fromVideo(video("P0D", new VideoLiveStreamingDetails()));
+
+    Assert.assertTrue(late.isScheduledAfter(early));
+    Assert.assertFalse(early.isScheduledAfter(late));
+    Assert.assertTrue(early.isScheduledAfter(unscheduled));
+    Assert.assertFalse(unscheduled.isScheduledAfter(early));
+  }
+}
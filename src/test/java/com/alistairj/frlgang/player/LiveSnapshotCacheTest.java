@@ -0,0 +1,70 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.player.archive.ArchiveCatalog;
+import com.alistairj.frlgang.player.archive.ArchivedVideo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LiveSnapshotCacheTest {
+
+  private static final long PLAYHEAD = 1234;
+
+  private static RadioPlayerState archiveState() throws IOException {
+    List<ArchivedVideo> videos = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      videos.add(new ArchivedVideo("archive000" + i, "EfferalGang Radio #" + i, 3600, null));
+    }
+
+    Path catalog = Files.createTempFile("efferalgang-test", ".catalog");
+    try {
+      ArchiveCatalog.write(catalog, videos);
+      System.setProperty("archive.catalog.path", catalog.toString());
+      RadioPlayer rp = new RadioPlayer(Clock.systemUTC(), true);
+      rp.setLiveShows(BroadcastStatus.ARCHIVE, null, Collections.emptyList());
+      return rp.getState();
+    } finally {
+      System.clearProperty("archive.catalog.path");
+      Files.deleteIfExists(catalog);
+    }
+  }
+
+  @Test
+  public void testSnapshot_sameAsSerializedRadioPlayer() throws IOException {
+    RadioPlayerState state = archiveState();
+
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator g = new JsonFactory().createGenerator(sw)) {
+      RadioPlayerSerializer.writeRadioPlayer(state, g,
+          (generator, playhead) -> generator.writeNumber(PLAYHEAD));
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new LiveSnapshotCache().get(state).writeTo(out, PLAYHEAD);
+    String snapshot = new String(out.toByteArray(), StandardCharsets.UTF_8);
+
+    Assert.assertEquals(sw.toString(), snapshot);
+    JsonNode node = new ObjectMapper().readTree(snapshot);
+    Assert.assertEquals(PLAYHEAD,
+        node.get("archive_player").get("current").get("playhead").asLong());
+    Assert.assertTrue(node.get("archive_player").get("next").get("id").asText()
+        .startsWith("archive"));
+  }
+}
@@ -0,0 +1,64 @@
+package com.alistairj.frlgang.player;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class LiveSnapshotTest {
+
+  private static final byte[] HEAD = "{\"current\":{\"playhead\":".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] TAIL = ",\"id\":\"dQw4w9WgXcQ\"}}".getBytes(StandardCharsets.UTF_8);
+
+  private String write(LiveSnapshot snapshot, long playhead) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    snapshot.writeTo(out, playhead);
+    Assert.assertEquals(snapshot.getContentLength(playhead), out.size());
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testWriteTo_patchesPlayhead() throws IOException {
+    LiveSnapshot snapshot = new LiveSnapshot(1, HEAD, TAIL, "abc");
+    Assert.assertEquals("{\"current\":{\"playhead\":0,\"id\":\"dQw4w9WgXcQ\"}}",
+        write(snapshot, 0));
+    Assert.assertEquals("{\"current\":{\"playhead\":10,\"id\":\"dQw4w9WgXcQ\"}}",
+        write(snapshot, 10));
+    Assert.assertEquals("{\"current\":{\"playhead\":3599,\"id\":\"dQw4w9WgXcQ\"}}",
+        write(snapshot, 3599));
+  }
+
+  @Test
+  public void testETag_changesWithPlayhead() {
+    LiveSnapshot snapshot = new LiveSnapshot(1, HEAD, TAIL, "abc");
+    Assert.assertEquals("\"abc-42\"", snapshot.getETag(42));
+    Assert.assertNotEquals(snapshot.getETag(42), snapshot.getETag(43));
+  }
+
+  @Test
+  public void testStarting_isValidJson() throws IOException {
+    JsonNode node = new ObjectMapper().readTree(write(LiveSnapshot.STARTING, 0));
+    Assert.assertEquals("STARTING", node.get("status").asText());
+    Assert.assertEquals(0, node.get("archive_player").get("current").get("playhead").asLong());
+    Assert.assertTrue(node.get("archive_player").get("current").get("id").isNull());
+    Assert.assertTrue(node.get("live_player").get("current").isNull());
+    Assert.assertEquals(0, node.get("live_player").get("upcoming").size());
+  }
+
+  @Test
+  public void testIsNotModified() {
+    Assert.assertFalse(LiveSnapshot.isNotModified(null, "\"abc-42\""));
+    Assert.assertFalse(LiveSnapshot.isNotModified("\"abc-41\"", "\"abc-42\""));
+    Assert.assertTrue(LiveSnapshot.isNotModified("\"abc-42\"", "\"abc-42\""));
+    Assert.assertTrue(LiveSnapshot.isNotModified("W/\"abc-42\"", "\"abc-42\""));
+    Assert.assertTrue(LiveSnapshot.isNotModified("\"abc-41\", \"abc-42\"", "\"abc-42\""));
+    Assert.assertTrue(LiveSnapshot.isNotModified("*", "\"abc-42\""));
+  }
+}
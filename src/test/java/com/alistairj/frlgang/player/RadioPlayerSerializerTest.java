@@ -0,0 +1,28 @@
+package com.alistairj.frlgang.player;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class RadioPlayerSerializerTest {
+
+  @Test
+  public void testWriteRadioPlayer_emptyArchive() throws IOException {
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator g = new JsonFactory().createGenerator(sw)) {
+      RadioPlayerSerializer.writeRadioPlayer(RadioPlayerState.INITIAL, g,
+          JsonGenerator::writeNumber);
+    }
+
+    Assert.assertEquals("{\"status\":\"ARCHIVE\",\"archive_player\":{\"current\":{\"playhead\":0,"
+        + "\"id\":null,\"title\":null,\"duration_in_seconds\":0},\"next\":null},"
+        + "\"live_player\":{\"current\":null,\"upcoming\":[]}}", sw.toString());
+  }
+}
@@ -0,0 +1,133 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.ShowFixtures;
+import com.alistairj.frlgang.SteppingClock;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ShowLookupTest {
+
+  private static final Instant START = Instant.parse("2020-09-14T17:00:00Z");
+
+  private static LiveShow show(String videoId) {
+    return ShowFixtures.show(videoId, "P0D", START.toEpochMilli());
+  }
+
+  @Test
+  public void testConcurrentLookupsShareOneCall() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ShowLookup lookup = new ShowLookup(id -> {
+      calls.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      return show(id);
+    }, new SteppingClock(START));
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<LiveShow>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(pool.submit(() -> lookup.lookup("dQw4w9WgXcQ")));
+      }
+
+      // give every lookup the chance to pile up behind the first one
+      Thread.sleep(100);
+      release.countDown();
+
+      LiveShow first = results.get(0).get(5, TimeUnit.SECONDS);
+      for (Future<LiveShow> result : results) {
+        Assert.assertSame(first, result.get(5, TimeUnit.SECONDS));
+      }
+      Assert.assertEquals(1, calls.get());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFoundShowsExpire() throws IOException {
+    AtomicInteger calls = new AtomicInteger();
+    SteppingClock clock = new SteppingClock(START);
+    ShowLookup lookup = new ShowLookup(id -> {
+      calls.incrementAndGet();
+      return show(id);
+    }, clock);
+
+    lookup.lookup("dQw4w9WgXcQ");
+    clock.step(Duration.ofSeconds(29));
+    lookup.lookup("dQw4w9WgXcQ");
+    Assert.assertEquals(1, calls.get());
+
+    clock.step(Duration.ofSeconds(1));
+    lookup.lookup("dQw4w9WgXcQ");
+    Assert.assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testNotFoundIsRemembered() {
+    AtomicInteger calls = new AtomicInteger();
+    SteppingClock clock = new SteppingClock(START);
+    ShowLookup lookup = new ShowLookup(id -> {
+      calls.incrementAndGet();
+      return null;
+    }, clock);
+
+    for (int i = 0; i < 3; i++) {
+      try {
+        lookup.lookup("notOurVideo");
+        Assert.fail("Found a video that is not on the channel");
+      } catch (IOException e) {
+        Assert.assertEquals("I can't find notOurVideo", e.getMessage());
+      }
+      clock.step(Duration.ofMinutes(1));
+    }
+    Assert.assertEquals(1, calls.get());
+
+    clock.step(Duration.ofMinutes(10));
+    try {
+      lookup.lookup("notOurVideo");
+    } catch (IOException e) {
+      // expected
+    }
+    Assert.assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testFailuresAreNotRemembered() throws IOException {
+    AtomicInteger calls = new AtomicInteger();
+    ShowLookup lookup = new ShowLookup(id -> {
+      if (calls.incrementAndGet() == 1) {
+        throw new IOException("quota exceeded");
+      }
+      return show(id);
+    }, new SteppingClock(START));
+
+    try {
+      lookup.lookup("dQw4w9WgXcQ");
+      Assert.fail("Failure was swallowed");
+    } catch (IOException e) {
+      Assert.assertEquals("quota exceeded", e.getMessage());
+    }
+
+    Assert.assertEquals("dQw4w9WgXcQ", lookup.lookup("dQw4w9WgXcQ").getId());
+    Assert.assertEquals(2, calls.get());
+  }
+}
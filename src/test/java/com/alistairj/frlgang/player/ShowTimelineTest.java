@@ -0,0 +1,62 @@
+package com.alistairj.frlgang.player;
+
+import com.alistairj.frlgang.ShowFixtures;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ShowTimelineTest {
+
+  private static final long NOW = 1600102800000L; // 2020-09-14T17:00:00Z
+
+  private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+  private static LiveShow show(String duration, long scheduledStartMillis) {
+    return ShowFixtures.show("dQw4w9WgXcQ", duration, scheduledStartMillis);
+  }
+
+  @Test
+  public void testNextTransition_liveStream() {
+    List<LiveShow> shows = Collections.singletonList(show("P0D", NOW + 60 * MINUTE));
+
+    // the pending window opens two minutes before and closes ten minutes after
+    Assert.assertEquals(NOW + 58 * MINUTE, ShowTimeline.nextTransition(shows, NOW));
+    Assert.assertEquals(NOW + 70 * MINUTE,
+        ShowTimeline.nextTransition(shows, NOW + 58 * MINUTE + 1));
+    Assert.assertEquals(LiveShow.NOT_SET,
+        ShowTimeline.nextTransition(shows, NOW + 70 * MINUTE + 1));
+  }
+
+  @Test
+  public void testNextTransition_premiere() {
+    List<LiveShow> shows = Collections.singletonList(show("PT1H", NOW + 60 * MINUTE));
+
+    Assert.assertEquals(NOW + 58 * MINUTE, ShowTimeline.nextTransition(shows, NOW));
+    Assert.assertEquals(NOW + 60 * MINUTE,
+        ShowTimeline.nextTransition(shows, NOW + 58 * MINUTE + 1));
+    Assert.assertEquals(NOW + 70 * MINUTE,
+        ShowTimeline.nextTransition(shows, NOW + 60 * MINUTE + 1));
+    // an hour long plus the countdown
+    Assert.assertEquals(NOW + 122 * MINUTE,
+        ShowTimeline.nextTransition(shows, NOW + 70 * MINUTE + 1));
+  }
+
+  @Test
+  public void testNextTransition_earliestOfAll() {
+    List<LiveShow> shows = Arrays.asList(
+        show("P0D", NOW + 60 * MINUTE),
+        show("PT1H", NOW - 30 * MINUTE));
+
+    // the playing premiere ends before the live stream becomes pending
+    Assert.assertEquals(NOW + 32 * MINUTE, ShowTimeline.nextTransition(shows, NOW));
+    Assert.assertEquals(LiveShow.NOT_SET,
+        ShowTimeline.nextTransition(Collections.emptyList(), NOW));
+  }
+}
@@ -0,0 +1,78 @@
+package com.alistairj.frlgang.player.archive;
+
+import com.google.api.services.youtube.model.Thumbnail;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ArchiveCatalogTest {
+
+  @Test
+  public void testWriteThenRead() throws IOException {
+    Path path = Files.createTempFile("archive", ".catalog");
+    try {
+      List<ArchivedVideo> videos = new ArrayList<>();
+      videos.add(new ArchivedVideo("dQw4w9WgXcQ", "Never gonna give you up", 213,
+          new Thumbnail().setUrl("https://i.ytimg.com/vi/dQw4w9WgXcQ/sddefault.jpg")
+              .setWidth(640L).setHeight(480L)));
+      videos.add(new ArchivedVideo("WNMfvKiYtiw", "\u00c9lan \u2014 nuit blanche", 7200, null));
+
+      ArchiveCatalog.write(path, videos);
+      List<ArchivedVideo> read = ArchiveCatalog.read(path);
+
+      Assert.assertEquals(2, read.size());
+      Assert.assertEquals("dQw4w9WgXcQ", read.get(0).getId());
+      Assert.assertEquals("Never gonna give you up", read.get(0).getTitle());
+      Assert.assertEquals(213, read.get(0).getDurationInSeconds());
+      Assert.assertEquals("https://i.ytimg.com/vi/dQw4w9WgXcQ/sddefault.jpg",
+          read.get(0).getThumbnail().getUrl());
+      Assert.assertEquals(640L, (long) read.get(0).getThumbnail().getWidth());
+      Assert.assertEquals(480L, (long) read.get(0).getThumbnail().getHeight());
+      Assert.assertEquals("\u00c9lan \u2014 nuit blanche", read.get(1).getTitle());
+      Assert.assertNull(read.get(1).getThumbnail());
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void testWrite_keepsWhenItWasFetched() throws IOException {
+    Path path = Files.createTempFile("archive", ".catalog");
+    try {
+      long fetchedAtMillis = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(5);
+      ArchiveCatalog.write(path, new ArrayList<>(), fetchedAtMillis);
+
+      Assert.assertEquals(TimeUnit.MILLISECONDS.toSeconds(fetchedAtMillis),
+          Files.getLastModifiedTime(path).to(TimeUnit.SECONDS));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void testRead_missingFile() throws IOException {
+    Path path = Files.createTempFile("archive", ".catalog");
+    Files.delete(path);
+    Assert.assertTrue(ArchiveCatalog.read(path).isEmpty());
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_notACatalog() throws IOException {
+    Path path = Files.createTempFile("archive", ".catalog");
+    try {
+      Files.write(path, "not a catalog".getBytes("UTF-8"));
+      ArchiveCatalog.read(path);
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+}
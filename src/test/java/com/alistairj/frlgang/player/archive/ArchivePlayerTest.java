@@ -0,0 +1,74 @@
+package com.alistairj.frlgang.player.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ArchivePlayerTest {
+
+  private Path catalog;
+
+  private Path previousCatalog;
+
+  private static List<ArchivedVideo> catalog(String prefix, int count) {
+    List<ArchivedVideo> videos = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      videos.add(new ArchivedVideo(String.format("%s%04d", prefix, i), "Show " + i, 3600, null));
+    }
+    return videos;
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    catalog = Files.createTempFile("efferalgang-test", ".catalog");
+    previousCatalog = ArchiveCatalog.getPreviousPath(catalog);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(catalog);
+    Files.deleteIfExists(previousCatalog);
+  }
+
+  private ArchivePlayer restart() {
+    System.setProperty("archive.catalog.path", catalog.toString());
+    try {
+      return new ArchivePlayer(true);
+    } finally {
+      System.clearProperty("archive.catalog.path");
+    }
+  }
+
+  @Test
+  public void testRestartBeforeChangeover_playsCatalogOnAir() throws IOException {
+    // a changed catalog was fetched just now, so it waits for the next day of the schedule
+    ArchiveCatalog.write(previousCatalog, catalog("old", 30));
+    ArchiveCatalog.write(catalog, catalog("new", 30), System.currentTimeMillis());
+
+    ArchivePlayer player = restart();
+
+    Assert.assertTrue(player.getState().getCurrentVideo().getId().startsWith("old"));
+  }
+
+  @Test
+  public void testRestartAfterChangeover_playsSavedCatalog() throws IOException {
+    ArchiveCatalog.write(previousCatalog, catalog("old", 30));
+    ArchiveCatalog.write(catalog, catalog("new", 30),
+        System.currentTimeMillis() - TimeUnit.DAYS.toMillis(3));
+
+    ArchivePlayer player = restart();
+
+    Assert.assertTrue(player.getState().getCurrentVideo().getId().startsWith("new"));
+  }
+}
@@ -0,0 +1,94 @@
+package com.alistairj.frlgang.player.archive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ArchiveRotationTest {
+
+  private static List<ArchivedVideo> catalog(int count) {
+    List<ArchivedVideo> videos = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      videos.add(new ArchivedVideo(String.format("video%04d", i), "Show " + i, 3600, null));
+    }
+    return videos;
+  }
+
+  private static List<String> picks(ArchiveRotation rotation, int count) {
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      ids.add(rotation.next().getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testNoRepeatWithinWindow() {
+    ArchiveRotation rotation = new ArchiveRotation(10, 42);
+    rotation.setCatalog(catalog(25));
+
+    List<String> ids = picks(rotation, 1000);
+    for (int i = 0; i < ids.size(); i++) {
+      Set<String> window = new HashSet<>(ids.subList(Math.max(0, i - 10), i));
+      Assert.assertFalse("Repeated " + ids.get(i) + " at pick " + i,
+          window.contains(ids.get(i)));
+    }
+  }
+
+  @Test
+  public void testWindowLargerThanCatalog() {
+    ArchiveRotation rotation = new ArchiveRotation(50, 42);
+    rotation.setCatalog(catalog(3));
+
+    List<String> ids = picks(rotation, 9);
+    Assert.assertEquals(ids.subList(0, 3), ids.subList(3, 6));
+    Assert.assertEquals(3, new HashSet<>(ids.subList(0, 3)).size());
+  }
+
+  @Test
+  public void testSameSeedSamePicks() {
+    List<ArchivedVideo> shuffled = catalog(100);
+    Collections.shuffle(shuffled);
+
+    ArchiveRotation a = new ArchiveRotation(20, 7);
+    a.setCatalog(catalog(100));
+    ArchiveRotation b = new ArchiveRotation(20, 7);
+    b.setCatalog(shuffled);
+
+    Assert.assertEquals(picks(a, 500), picks(b, 500));
+  }
+
+  @Test
+  public void testRecentKeptAcrossCatalogChange() {
+    ArchiveRotation rotation = new ArchiveRotation(10, 42);
+    rotation.setCatalog(catalog(20));
+    List<String> before = picks(rotation, 10);
+
+    // a new upload to the archive
+    List<ArchivedVideo> grown = catalog(21);
+    rotation.setCatalog(grown);
+    Assert.assertEquals(21, rotation.size());
+
+    Set<String> after = new HashSet<>(picks(rotation, 5));
+    for (String id : before.subList(5, 10)) {
+      Assert.assertFalse(after.contains(id));
+    }
+  }
+
+  @Test
+  public void testEmptyCatalog() {
+    ArchiveRotation rotation = new ArchiveRotation(10, 42);
+    Assert.assertNull(rotation.next());
+
+    rotation.setCatalog(catalog(0));
+    Assert.assertNull(rotation.next());
+  }
+}
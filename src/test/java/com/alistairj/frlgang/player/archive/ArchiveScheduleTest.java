@@ -0,0 +1,114 @@
+package com.alistairj.frlgang.player.archive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ArchiveScheduleTest {
+
+  private static final long EPOCH = 1577865600000L;
+
+  private static List<ArchivedVideo> catalog(int count) {
+    List<ArchivedVideo> videos = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      videos.add(new ArchivedVideo(String.format("video%04d", i), "Show " + i,
+          1800 + 600 * (i % 7), null));
+    }
+    return videos;
+  }
+
+  @Test
+  public void testSameCatalogSameSlot() {
+    List<ArchivedVideo> shuffled = catalog(40);
+    Collections.shuffle(shuffled);
+
+    ArchiveSchedule a = new ArchiveSchedule(catalog(40), 7, EPOCH, 10);
+    ArchiveSchedule b = new ArchiveSchedule(shuffled, 7, EPOCH, 10);
+    Assert.assertEquals(a.getVersion(), b.getVersion());
+
+    long instant = EPOCH + TimeUnit.DAYS.toMillis(400) + 12345;
+    ArchiveSchedule.Slot slotA = a.at(instant);
+    ArchiveSchedule.Slot slotB = b.at(instant);
+    Assert.assertEquals(slotA.getVideo().getId(), slotB.getVideo().getId());
+    Assert.assertEquals(slotA.getPosition(), slotB.getPosition());
+    Assert.assertEquals(slotA.getStartedAtMillis(), slotB.getStartedAtMillis());
+    Assert.assertTrue(slotA.getStartedAtMillis() <= instant);
+    Assert.assertTrue(instant < slotA.getEndsAtMillis());
+  }
+
+  @Test
+  public void testRotationPicksWhatComesNext() {
+    ArchiveSchedule schedule = new ArchiveSchedule(catalog(40), 7, EPOCH, 10);
+
+    ArchiveSchedule.Slot slot = schedule.at(EPOCH + TimeUnit.DAYS.toMillis(3));
+    ArchivedVideo picked = slot.getRotation().next();
+
+    ArchiveSchedule.Slot following = schedule.at(slot.getEndsAtMillis());
+    Assert.assertEquals(picked.getId(), following.getVideo().getId());
+    Assert.assertEquals(slot.getPosition() + 1, following.getPosition());
+    Assert.assertEquals(slot.getEndsAtMillis(), following.getStartedAtMillis());
+  }
+
+  @Test
+  public void testChangedCatalogChangesVersion() {
+    List<ArchivedVideo> grown = catalog(40);
+    grown.add(new ArchivedVideo("uploaded", "New upload", 3600, null));
+
+    Assert.assertNotEquals(new ArchiveSchedule(catalog(40), 7, EPOCH, 10).getVersion(),
+        new ArchiveSchedule(grown, 7, EPOCH, 10).getVersion());
+  }
+
+  @Test
+  public void testBeforeEpoch() {
+    ArchiveSchedule schedule = new ArchiveSchedule(catalog(40), 7, EPOCH, 10);
+
+    ArchiveSchedule.Slot slot = schedule.at(EPOCH - 1000);
+    Assert.assertEquals(0, slot.getPosition());
+    Assert.assertEquals(EPOCH, slot.getStartedAtMillis());
+  }
+
+  @Test
+  public void testNothingPlayable() {
+    List<ArchivedVideo> videos = new ArrayList<>();
+    videos.add(new ArchivedVideo("broken", "No duration", 0, null));
+
+    Assert.assertTrue(new ArchiveSchedule(videos, 7, EPOCH, 10).isEmpty());
+  }
+
+  @Test
+  public void testNextDayAfter() {
+    long day = TimeUnit.DAYS.toMillis(1);
+    Assert.assertEquals(EPOCH + day, ArchiveSchedule.nextDayAfter(EPOCH, EPOCH));
+    Assert.assertEquals(EPOCH + day, ArchiveSchedule.nextDayAfter(EPOCH, EPOCH + day - 1));
+    Assert.assertEquals(EPOCH + 2 * day, ArchiveSchedule.nextDayAfter(EPOCH, EPOCH + day));
+    Assert.assertEquals(EPOCH, ArchiveSchedule.nextDayAfter(EPOCH, EPOCH - 1));
+  }
+
+  @Test
+  public void testChangeoverAfter_sameDaySameMoment() {
+    ArchiveSchedule schedule = new ArchiveSchedule(catalog(40), 7, EPOCH, 10);
+    long dayStart = EPOCH + TimeUnit.DAYS.toMillis(30);
+
+    // fetched by different instances at different times in the hour before the day starts
+    long changeover = schedule.changeoverAfter(dayStart - TimeUnit.HOURS.toMillis(1));
+    Assert.assertEquals(changeover,
+        schedule.changeoverAfter(dayStart - TimeUnit.MINUTES.toMillis(7)));
+    Assert.assertEquals(changeover, schedule.changeoverAfter(dayStart - 1));
+
+    // the video playing as the day starts is finished first
+    ArchiveSchedule.Slot playing = schedule.at(dayStart);
+    Assert.assertEquals(playing.getEndsAtMillis(), changeover);
+    Assert.assertTrue(playing.getStartedAtMillis() <= dayStart);
+
+    // fetched once the day has started, it waits for the next one
+    Assert.assertEquals(schedule.at(dayStart + TimeUnit.DAYS.toMillis(1)).getEndsAtMillis(),
+        schedule.changeoverAfter(dayStart));
+  }
+}
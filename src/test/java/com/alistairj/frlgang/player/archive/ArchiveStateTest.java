@@ -0,0 +1,91 @@
+package com.alistairj.frlgang.player.archive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ArchiveStateTest {
+
+  private static final ArchivedVideo VIDEO = new ArchivedVideo("dQw4w9WgXcQ", "Radio", 60, null);
+
+  private static final long STARTED_AT = TimeUnit.SECONDS.toNanos(1000);
+
+  private static long at(long seconds) {
+    return STARTED_AT + TimeUnit.SECONDS.toNanos(seconds);
+  }
+
+  @Test
+  public void testPlayhead() {
+    ArchiveState playing = new ArchiveState(VIDEO, ArchiveQueue.EMPTY, 0, true, STARTED_AT, 0);
+    Assert.assertEquals(0, playing.getPlayheadInSeconds(STARTED_AT));
+    Assert.assertEquals(42, playing.getPlayheadInSeconds(at(42)));
+
+    // the player has not moved on yet, so stay at the end of the video
+    Assert.assertEquals(60, playing.getPlayheadInSeconds(at(61)));
+
+    ArchiveState stopped = new ArchiveState(VIDEO, ArchiveQueue.EMPTY, 0, false, STARTED_AT, 12000);
+    Assert.assertEquals(12, stopped.getPlayheadInSeconds(at(42)));
+  }
+
+  @Test
+  public void testPlayhead_nothingToPlay() {
+    Assert.assertEquals(0, ArchiveState.EMPTY.getPlayheadInMillis(System.nanoTime()));
+  }
+
+  private static List<ArchivedVideo> videos(int from, int count) {
+    List<ArchivedVideo> videos = new ArrayList<>();
+    for (int i = from; i < from + count; i++) {
+      videos.add(new ArchivedVideo("video" + i, "Show " + i, 3600, null));
+    }
+    return videos;
+  }
+
+  private static List<String> ids(ArchiveQueuePage page) {
+    List<String> ids = new ArrayList<>();
+    for (ArchivedVideo v : page.getVideos()) {
+      ids.add(v.getId());
+    }
+    return ids;
+  }
+
+  private static ArchiveState stateOf(ArchiveQueue queue) {
+    return new ArchiveState(VIDEO, queue, 0, true, STARTED_AT, 0);
+  }
+
+  @Test
+  public void testQueuePage() {
+    ArchiveQueue queue = ArchiveQueue.EMPTY.withBatch(videos(0, 5));
+
+    ArchiveQueuePage first = stateOf(queue).getQueuePage(ArchiveQueuePage.NO_CURSOR, 2);
+    Assert.assertEquals(5, first.getState().getQueuedCount());
+    Assert.assertEquals("[video0, video1]", ids(first).toString());
+
+    // a video is played and a batch is added before the next page is asked for
+    queue = queue.withoutFirst().withBatch(videos(5, 2));
+
+    ArchiveQueuePage second = stateOf(queue).getQueuePage(first.getNextCursor(), 2);
+    Assert.assertEquals("[video2, video3]", ids(second).toString());
+
+    ArchiveQueuePage last = stateOf(queue).getQueuePage(second.getNextCursor(), 10);
+    Assert.assertEquals("[video4, video5, video6]", ids(last).toString());
+    Assert.assertEquals(ArchiveQueuePage.NO_CURSOR, last.getNextCursor());
+  }
+
+  @Test
+  public void testQueuePage_cursorAlreadyPlayed() {
+    ArchiveQueue queue = ArchiveQueue.EMPTY.withBatch(videos(0, 5));
+    long cursor = stateOf(queue).getQueuePage(ArchiveQueuePage.NO_CURSOR, 1).getNextCursor();
+
+    queue = queue.withoutFirst().withoutFirst().withoutFirst();
+
+    // starts from the front instead of going back to videos already played
+    ArchiveQueuePage page = stateOf(queue).getQueuePage(cursor, 10);
+    Assert.assertEquals("[video3, video4]", ids(page).toString());
+  }
+}
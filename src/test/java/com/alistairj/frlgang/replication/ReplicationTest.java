@@ -0,0 +1,180 @@
+package com.alistairj.frlgang.replication;
+
+import com.alistairj.frlgang.ShowFixtures;
+import com.alistairj.frlgang.player.BroadcastStatus;
+import com.alistairj.frlgang.player.LiveShow;
+import com.alistairj.frlgang.player.RadioPlayer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * @author Alistair Jones (alistair@ohalo.co)
+ */
+public class ReplicationTest {
+
+  private static final long NOW = 1600102800000L; // 2020-09-14T17:00:00Z
+
+  private static LiveShow show(String id, String duration, long scheduledStartMillis) {
+    return ShowFixtures.show(id, duration, scheduledStartMillis);
+  }
+
+  @Test
+  public void testSnapshotRoundTrip() throws IOException {
+    LiveShow premiere = show("premiere", "PT1H", NOW + 60000);
+    LiveShow stream = show("stream", "P0D", NOW + 3600000);
+    LiveShowsSnapshot snapshot = new LiveShowsSnapshot(BroadcastStatus.UPCOMING, null,
+        Arrays.asList(premiere, stream));
+
+    LiveShowsSnapshot read = LiveShowsSnapshot.fromBytes(snapshot.toBytes());
+
+    Assert.assertEquals(BroadcastStatus.UPCOMING, read.getStatus());
+    Assert.assertNull(read.getCurrentLiveShow());
+    Assert.assertEquals(2, read.getUpcomingShows().size());
+    Assert.assertEquals(premiere, read.getUpcomingShows().get(0));
+    Assert.assertEquals(stream, read.getUpcomingShows().get(1));
+  }
+
+  @Test
+  public void testLeaderToFollower() throws Exception {
+    BlockingQueue<LiveShowsSnapshot> received = new LinkedBlockingQueue<>();
+    BlockingQueue<LiveShow> tracked = new LinkedBlockingQueue<>();
+
+    LiveShow live = show("live", "PT1H", NOW - 60000);
+
+    try (SnapshotServer server = new SnapshotServer(0, tracked::add)) {
+      server.publish(new LiveShowsSnapshot(BroadcastStatus.ARCHIVE, null,
+          Collections.emptyList()));
+
+      try (SnapshotClient client = new SnapshotClient(server.getPort(), received::add)) {
+        // the latest snapshot is sent as soon as the follower connects
+        LiveShowsSnapshot first = received.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(first);
+        Assert.assertEquals(BroadcastStatus.ARCHIVE, first.getStatus());
+
+        server.publish(new LiveShowsSnapshot(BroadcastStatus.LIVE, live,
+            Collections.emptyList()));
+        LiveShowsSnapshot second = received.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(second);
+        Assert.assertEquals(BroadcastStatus.LIVE, second.getStatus());
+        Assert.assertEquals(live, second.getCurrentLiveShow());
+
+        client.sendTrack(live);
+        LiveShow forwarded = tracked.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(forwarded);
+        Assert.assertEquals(live, forwarded);
+      }
+    }
+  }
+
+  @Test
+  public void testStalledFollowerIsDropped() throws Exception {
+    BlockingQueue<LiveShowsSnapshot> received = new LinkedBlockingQueue<>();
+
+    List<LiveShow> upcoming = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      upcoming.add(show("upcoming" + i, "PT1H", NOW + i * 3600000L));
+    }
+
+    try (SnapshotServer server = new SnapshotServer(0, show -> { });
+        Socket stalled = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        SnapshotClient client = new SnapshotClient(server.getPort(), received::add)) {
+
+      // never reads, so its socket buffers and then its queue fill up
+      stalled.setReceiveBufferSize(1024);
+      while (client.isConnected() == false || server.getFollowerCount() < 2) {
+        Thread.sleep(10);
+      }
+
+      // the other follower keeps up the whole time
+      for (int i = 0; i < 200; i++) {
+        server.publish(new LiveShowsSnapshot(BroadcastStatus.UPCOMING, null, upcoming));
+        Assert.assertNotNull(received.poll(5, TimeUnit.SECONDS));
+      }
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (server.getFollowerCount() > 1 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(1, server.getFollowerCount());
+      Assert.assertTrue(client.isConnected());
+    }
+  }
+
+  @Test
+  public void testOneLeader() throws IOException {
+    Path path = Files.createTempFile("leader", ".lock");
+    LeaderLock first = new LeaderLock(path);
+    LeaderLock second = new LeaderLock(path);
+    try {
+      Assert.assertTrue(first.tryAcquire());
+      Assert.assertFalse(second.tryAcquire());
+
+      // the leader went away
+      first.close();
+      Assert.assertTrue(second.tryAcquire());
+      Assert.assertTrue(second.isHeld());
+    } finally {
+      first.close();
+      second.close();
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void testUnreadyInstanceLetsGoOfTheLock() throws Exception {
+    Path path = Files.createTempFile("leader", ".lock");
+    Path catalog = Files.createTempFile("efferalgang-test", ".catalog");
+    int port;
+    try (ServerSocket free = new ServerSocket(0)) {
+      port = free.getLocalPort();
+    }
+
+    System.setProperty("archive.catalog.path", catalog.toString());
+    RadioPlayer rp;
+    try {
+      rp = new RadioPlayer(Clock.systemUTC(), true);
+    } finally {
+      System.clearProperty("archive.catalog.path");
+    }
+
+    AtomicInteger asked = new AtomicInteger();
+    LeaderLock other = new LeaderLock(path);
+    try (Replication replication = new Replication(port, path)) {
+      // can never get ready to poll, like an instance that cannot reach YouTube
+      replication.start(rp, () -> asked.incrementAndGet() < 0);
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (asked.get() == 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(1, asked.get());
+
+      // it lets go of the lock as soon as it finds it cannot poll
+      while (other.tryAcquire() == false && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertTrue(other.isHeld());
+      Assert.assertFalse(replication.isLeader());
+    } finally {
+      other.close();
+      Files.deleteIfExists(path);
+      Files.deleteIfExists(catalog);
+    }
+  }
+}